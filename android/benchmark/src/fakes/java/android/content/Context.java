@@ -0,0 +1,16 @@
+package android.content;
+
+import android.content.res.Resources;
+
+import java.io.File;
+
+/**
+ * Stands in for the Android class on a plain JVM. Benchmarks subclass it with the app they need.
+ */
+public abstract class Context {
+    public abstract String getPackageName();
+
+    public abstract File getFilesDir();
+
+    public abstract Resources getResources();
+}
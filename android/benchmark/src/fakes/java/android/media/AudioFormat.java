@@ -0,0 +1,13 @@
+package android.media;
+
+/**
+ * Stands in for the Android class on a plain JVM.
+ */
+public final class AudioFormat {
+    public static final int ENCODING_PCM_16BIT = 2;
+    public static final int CHANNEL_OUT_MONO = 4;
+    public static final int CHANNEL_OUT_STEREO = 12;
+
+    private AudioFormat() {
+    }
+}
@@ -0,0 +1,8 @@
+package android.media;
+
+/**
+ * Stands in for the Android class on a plain JVM.
+ */
+public class AudioManager {
+    public static final int STREAM_MUSIC = 3;
+}
@@ -0,0 +1,25 @@
+package android.media;
+
+/**
+ * Stands in for the Android class on a plain JVM, an idle player at position 0.
+ */
+public class MediaPlayer {
+    public void start() {
+    }
+
+    public boolean isPlaying() {
+        return false;
+    }
+
+    public int getCurrentPosition() {
+        return 0;
+    }
+
+    public int getDuration() {
+        return 0;
+    }
+
+    public int getAudioSessionId() {
+        return 0;
+    }
+}
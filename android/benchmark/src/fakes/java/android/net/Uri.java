@@ -0,0 +1,45 @@
+package android.net;
+
+import java.io.File;
+
+/**
+ * Stands in for the Android class on a plain JVM. Only splits off the scheme and the last path
+ * segment, which is all the resolver reads.
+ */
+public final class Uri {
+    private final String uriString;
+
+    private Uri(String uriString) {
+        this.uriString = uriString;
+    }
+
+    public static Uri parse(String uriString) {
+        return new Uri(uriString);
+    }
+
+    public static Uri fromFile(File file) {
+        return new Uri("file://" + file.getAbsolutePath());
+    }
+
+    public String getScheme() {
+        int colon = uriString.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        int slash = uriString.indexOf('/');
+        if (slash >= 0 && slash < colon) {
+            return null;
+        }
+        return uriString.substring(0, colon);
+    }
+
+    public String getLastPathSegment() {
+        int slash = uriString.lastIndexOf('/');
+        return slash >= 0 && slash < uriString.length() - 1 ? uriString.substring(slash + 1) : null;
+    }
+
+    @Override
+    public String toString() {
+        return uriString;
+    }
+}
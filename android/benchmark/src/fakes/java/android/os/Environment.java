@@ -0,0 +1,15 @@
+package android.os;
+
+import java.io.File;
+
+/**
+ * Stands in for the Android class on a plain JVM, external storage is the temp directory.
+ */
+public final class Environment {
+    private Environment() {
+    }
+
+    public static File getExternalStorageDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+}
@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * Stands in for the Android class on a plain JVM, thread priorities are left alone.
+ */
+public final class Process {
+    public static final int THREAD_PRIORITY_AUDIO = -16;
+
+    private Process() {
+    }
+
+    public static void setThreadPriority(int priority) {
+    }
+}
@@ -0,0 +1,13 @@
+package android.os;
+
+/**
+ * Stands in for the Android class on a plain JVM, see the benchmark build.
+ */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000;
+    }
+}
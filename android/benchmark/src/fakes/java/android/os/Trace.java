@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * Stands in for the Android class on a plain JVM, sections are not recorded.
+ */
+public final class Trace {
+    private Trace() {
+    }
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+}
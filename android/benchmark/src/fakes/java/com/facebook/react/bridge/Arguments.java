@@ -0,0 +1,10 @@
+package com.facebook.react.bridge;
+
+/**
+ * Stands in for the React Native class on a plain JVM.
+ */
+public class Arguments {
+    public static WritableMap createMap() {
+        return new WritableNativeMap();
+    }
+}
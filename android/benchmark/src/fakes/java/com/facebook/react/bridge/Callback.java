@@ -0,0 +1,8 @@
+package com.facebook.react.bridge;
+
+/**
+ * Stands in for the React Native interface on a plain JVM.
+ */
+public interface Callback {
+    void invoke(Object... args);
+}
@@ -0,0 +1,7 @@
+package com.facebook.react.bridge;
+
+/**
+ * Stands in for the React Native interface on a plain JVM, the benchmarks only pass it along.
+ */
+public interface ReadableMap {
+}
@@ -0,0 +1,18 @@
+package com.facebook.react.bridge;
+
+/**
+ * Stands in for the React Native interface on a plain JVM, with the setters the module uses.
+ */
+public interface WritableMap {
+    void putNull(String key);
+
+    void putBoolean(String key, boolean value);
+
+    void putDouble(String key, double value);
+
+    void putInt(String key, int value);
+
+    void putString(String key, String value);
+
+    void putMap(String key, WritableMap value);
+}
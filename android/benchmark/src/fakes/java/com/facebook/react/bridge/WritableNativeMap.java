@@ -0,0 +1,39 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+
+/**
+ * Stands in for the JNI backed map on a plain JVM. Entries go into a HashMap, so benchmarks
+ * using it measure the payload building around the map, not the cost of crossing into C++.
+ */
+public class WritableNativeMap extends HashMap<String, Object> implements WritableMap {
+    @Override
+    public void putNull(String key) {
+        put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, WritableMap value) {
+        put(key, value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.reactnativecommunity.rctaudiotoolkit.benchmark;
+
+/**
+ * Resource ids of the app that PathResolverBenchmark resolves paths for, read by the resolver
+ * like the R class of a real app.
+ */
+public final class R {
+    private R() {
+    }
+
+    public static final class raw {
+        public static final int beep = 0x7f0e0000;
+        public static final int click = 0x7f0e0001;
+        public static final int tap = 0x7f0e0002;
+
+        private raw() {
+        }
+    }
+}
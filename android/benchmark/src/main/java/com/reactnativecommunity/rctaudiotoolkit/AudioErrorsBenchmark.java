@@ -0,0 +1,46 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one error object like errObj() builds it, with and without the native stack trace.
+ * Errors come in bursts of one code, e.g. `seekfail` while scrubbing, so most of them only
+ * count towards the log limit. The benchmark frames make the stack shallower than on a device.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioErrorsBenchmark {
+    @Param({"false", "true"})
+    public boolean stackTraces;
+
+    private AudioErrors errors;
+
+    @Setup
+    public void setUp() {
+        errors = new AudioErrors();
+        errors.setCaptureStackTraces(stackTraces);
+    }
+
+    @Benchmark
+    public WritableMap create() {
+        return errors.create("AudioPlayerModule", AudioErrors.SEEK_FAIL, "Seek to 1500 failed", true);
+    }
+}
@@ -0,0 +1,51 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the two readable times of one info map, before and after they stopped going through
+ * String.format. Run with `-prof gc` to compare the allocations too.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DurationFormatBenchmark {
+    // Duration and position of a player, changing between calls like during playback
+    private int duration = 3 * 60 * 60 * 1000 + 25 * 60 * 1000 + 7000;
+    private int position = 0;
+
+    @Benchmark
+    public String[] stringFormat() {
+        position = (position + 250) % duration;
+        return new String[] {formatBefore(duration), formatBefore(duration - position)};
+    }
+
+    @Benchmark
+    public String[] durationFormat() {
+        position = (position + 250) % duration;
+        return new String[] {DurationFormat.format(duration), DurationFormat.format(duration - position)};
+    }
+
+    // convertDurationMillis as it was, three String.format calls and TimeUnit conversions per time
+    private static String formatBefore(int millis) {
+        String hours = String.format("%02d", TimeUnit.MILLISECONDS.toHours(millis));
+        String minutes = String.format("%02d", TimeUnit.MILLISECONDS.toMinutes(millis)
+                - TimeUnit.HOURS.toMinutes(TimeUnit.MILLISECONDS.toHours(millis)));
+        String seconds = String.format("%02d", TimeUnit.MILLISECONDS.toSeconds(millis)
+                - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(millis)));
+        return hours + ":" + minutes + ":" + seconds;
+    }
+}
@@ -0,0 +1,52 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of metering one capture block of the 'pcm' recorder, and of turning a snapshot into the
+ * dBFS values of a meter frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelMeterBenchmark {
+    // 20 ms of 48 kHz mono
+    private final short[] block = new short[960];
+    private final LevelMeter meter = new LevelMeter();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (short) random.nextInt(65536);
+        }
+    }
+
+    @Benchmark
+    public LevelMeter process() {
+        meter.process(block, block.length);
+        return meter;
+    }
+
+    @Benchmark
+    public float snapshotToDb() {
+        meter.processPeak(12000);
+        meter.snapshot();
+        return LevelMeter.toDb(meter.peakLevel) + LevelMeter.toDb(meter.rmsLevel);
+    }
+}
@@ -0,0 +1,106 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.net.Uri;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving the path of one prepare, once memoized and once looked up from scratch. A
+ * lookup probes the files directory, external storage and the path itself before it tries raw
+ * resources, so misses are dominated by file system calls and cost more on flash storage than
+ * here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathResolverBenchmark {
+    // A raw resource, a relative path that matches nothing and a remote URL
+    @Param({"click.mp3", "missing.mp3", "https://example.com/clip.mp3"})
+    public String path;
+
+    private File filesDir;
+    private PathResolver cached;
+    private PathResolver uncached;
+
+    @Setup
+    public void setUp() throws IOException {
+        filesDir = File.createTempFile("files", "");
+        filesDir.delete();
+        filesDir.mkdir();
+
+        // Kept forever, so that every call is a hit
+        cached = new PathResolver(new App(filesDir));
+        cached.setFileTtl(-1);
+        cached.preload();
+        cached.resolve(path);
+
+        uncached = new PathResolver(new App(filesDir));
+        uncached.preload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        filesDir.delete();
+    }
+
+    @Benchmark
+    public PathResolver.Resolution resolveHit() {
+        return cached.resolve(path);
+    }
+
+    @Benchmark
+    public Uri uriFromPathHit() {
+        return cached.uriFromPath(path);
+    }
+
+    @Benchmark
+    public PathResolver.Resolution resolveMiss() {
+        uncached.clear();
+        return uncached.resolve(path);
+    }
+
+    // An app whose raw resources are those of the benchmark R class
+    private static class App extends Context {
+        private final File filesDir;
+        private final Resources resources = new Resources();
+
+        App(File filesDir) {
+            this.filesDir = filesDir;
+        }
+
+        @Override
+        public String getPackageName() {
+            return "com.reactnativecommunity.rctaudiotoolkit.benchmark";
+        }
+
+        @Override
+        public File getFilesDir() {
+            return filesDir;
+        }
+
+        @Override
+        public Resources getResources() {
+            return resources;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of moving one capture block through the ring between the capture and delivery threads of
+ * the 'pcm' recorder. 640 bytes is 20 ms of 16 kHz mono, 3840 bytes 20 ms of 48 kHz stereo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PcmRingBufferBenchmark {
+    @State(Scope.Thread)
+    public static class Single {
+        @Param({"640", "3840"})
+        public int chunkBytes;
+
+        PcmRingBuffer ring;
+        byte[] in;
+        byte[] out;
+
+        @Setup
+        public void setUp() {
+            // Not a multiple of the chunk size, so writes and reads keep splitting at the end
+            ring = new PcmRingBuffer(64 * 1024 + 17);
+            in = new byte[chunkBytes];
+            out = new byte[chunkBytes];
+        }
+    }
+
+    // Shared by one capture and one delivery thread, like in the recorder
+    @State(Scope.Group)
+    public static class Shared {
+        @Param({"640", "3840"})
+        public int chunkBytes;
+
+        PcmRingBuffer ring;
+
+        @Setup
+        public void setUp() {
+            ring = new PcmRingBuffer(64 * 1024 + 17);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Chunk {
+        byte[] data;
+
+        @Setup
+        public void setUp(Shared shared) {
+            data = new byte[shared.chunkBytes];
+        }
+    }
+
+    @Benchmark
+    public int writeThenRead(Single state) {
+        state.ring.write(state.in, 0, state.in.length);
+        return state.ring.read(state.out, 0, state.out.length);
+    }
+
+    // Overruns are counted and dropped, never block, so the producer's cost stays flat
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public int capture(Shared shared, Chunk chunk) {
+        return shared.ring.write(chunk.data, 0, chunk.data.length);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public int deliver(Shared shared, Chunk chunk) {
+        return shared.ring.read(chunk.data, 0, chunk.data.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the info map of getInfo() and wrapping it into an `interval` event, against a
+ * HashMap backed map. On a device every put also crosses into the native map, which comes on top.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerPayloadsBenchmark {
+    // A plain player, one with an A-B loop region and one created with `readableTimes`
+    @Param({"plain", "loopRegion", "readableTimes"})
+    public String player;
+
+    private PlayerRegistry.PlayerState state;
+    private int duration = 4 * 60 * 1000 + 12000;
+    private int position = 0;
+
+    @Setup
+    public void setUp() {
+        state = new PlayerRegistry.PlayerState("player-1");
+        state.duration = duration;
+        if ("loopRegion".equals(player)) {
+            state.loopStart = 30000;
+            state.loopEnd = 45000;
+        } else if ("readableTimes".equals(player)) {
+            state.readableTimes = true;
+        }
+    }
+
+    @Benchmark
+    public WritableMap info() {
+        position = (position + 250) % duration;
+        return PlayerPayloads.info(state, duration, position, 17);
+    }
+
+    @Benchmark
+    public WritableMap intervalEvent() {
+        position = (position + 250) % duration;
+        // As the progress tick does it
+        WritableMap data = new WritableNativeMap();
+        data.putMap("info", PlayerPayloads.info(state, duration, position, 17));
+        return PlayerPayloads.event(state.playerId, "interval", data);
+    }
+}
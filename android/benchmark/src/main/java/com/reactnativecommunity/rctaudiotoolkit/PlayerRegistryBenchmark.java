@@ -0,0 +1,83 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaPlayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one registry lookup or put while several media control lanes use the registry at once.
+ * Every thread walks all players, so threads keep touching the same states and the shared access
+ * clock. Run with `-t 1` for the uncontended cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PlayerRegistryBenchmark {
+    @State(Scope.Benchmark)
+    public static class Registry {
+        @Param({"16", "256"})
+        public int players;
+
+        PlayerRegistry registry;
+        String[] ids;
+        MediaPlayer player;
+
+        @Setup
+        public void setUp() {
+            registry = new PlayerRegistry(new PlayerRegistry.EvictionListener() {
+                @Override
+                public void onEvicted(PlayerRegistry.PlayerState state, MediaPlayer player) {
+                }
+            });
+            player = new MediaPlayer();
+            ids = new String[players];
+            for (int i = 0; i < players; i++) {
+                ids[i] = "player-" + i;
+                registry.put(ids[i], player, ids[i] + ".mp3", null);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+
+        String next(String[] ids) {
+            next = next + 1 < ids.length ? next + 1 : 0;
+            return ids[next];
+        }
+    }
+
+    @Benchmark
+    public MediaPlayer get(Registry registry, Cursor cursor) {
+        return registry.registry.get(cursor.next(registry.ids));
+    }
+
+    @Benchmark
+    public MediaPlayer peek(Registry registry, Cursor cursor) {
+        return registry.registry.peek(cursor.next(registry.ids));
+    }
+
+    // Prepares an existing player again, which replaces it in its state
+    @Benchmark
+    public void put(Registry registry, Cursor cursor) {
+        String id = cursor.next(registry.ids);
+        registry.registry.put(id, registry.player, id, null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of time stretching one output block of a player before Android 6.0. A block of 1024 frames
+ * at 44.1 kHz plays for 23 ms, the render has to take a small fraction of that on a phone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeStretchBenchmark {
+    private static final int RATE = 44100;
+    private static final int FRAMES = 1024;
+
+    // 1.0 with pitch 1.0 copies the source, the baseline for the others
+    @Param({"1.0", "0.75", "1.5", "2.0"})
+    public float speed;
+
+    @Param({"1.0", "1.25"})
+    public float pitch;
+
+    @Param({"1", "2"})
+    public int channels;
+
+    private TimeStretch stretch;
+    private float[] out;
+
+    @Setup
+    public void setUp() {
+        // Ten seconds of a tone with some noise, so the segment search has something to match
+        Random random = new Random(1);
+        float[] data = new float[10 * RATE * channels];
+        for (int f = 0; f < data.length / channels; f++) {
+            float tone = (float) (0.5 * Math.sin(2 * Math.PI * 220 * f / RATE));
+            for (int c = 0; c < channels; c++) {
+                data[f * channels + c] = tone + (random.nextFloat() - 0.5f) * 0.1f;
+            }
+        }
+
+        stretch = new TimeStretch(new MixerCore.Sample(data, channels, RATE));
+        stretch.setParams(speed, pitch);
+        out = new float[FRAMES * channels];
+    }
+
+    @Benchmark
+    public float[] render() {
+        if (stretch.render(out, FRAMES) < FRAMES) {
+            stretch.seek(0);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding one decoder output buffer (1024 AAC frames) to a waveform, which bounds how fast
+ * getWaveform() gets through a file once decoding is done.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WaveformBenchmark {
+    private static final int FRAMES = 1024;
+
+    @Param({"1", "2"})
+    public int channels;
+
+    @Param({"200", "4000"})
+    public int buckets;
+
+    private final float[] samples = new float[FRAMES * 2];
+    private Waveform waveform;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextFloat() * 2 - 1;
+        }
+    }
+
+    // An hour long file, so an iteration never runs past its last bucket
+    @Setup(Level.Iteration)
+    public void newWaveform() {
+        waveform = new Waveform(buckets, 60 * 60 * 1000, 44100);
+    }
+
+    @Benchmark
+    public Waveform add() {
+        waveform.add(samples, FRAMES, channels);
+        return waveform;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the error objects passed to JS callbacks and keeps per-code statistics. Shared by all
+ * modules.
+ *
+ * Stack traces are only captured when enabled for debugging, and logging is rate limited per
+ * code, so that routine errors like `seekfail` during scrubbing stay cheap.
+ */
+class AudioErrors {
+    static final String NOT_FOUND = "notfound";
+    static final String NO_PATH = "nopath";
+    static final String INVALID_PATH = "invalidpath";
+    static final String INVALID_OPTION = "invalidoption";
+    static final String INVALID_INTERVAL = "invalidinterval";
+    static final String INVALID_INDEX = "invalidindex";
+    static final String NO_ITEMS = "noitems";
+    static final String NO_CACHE = "nocache";
+    static final String NOT_SUPPORTED = "notsupported";
+    static final String PREPARE = "prepare";
+    static final String PREPARE_FAIL = "preparefail";
+    static final String PLAYBACK = "playback";
+    static final String PAUSE = "pause";
+    static final String STOP = "stop";
+    static final String SEEK_FAIL = "seekfail";
+    static final String START_FAIL = "startfail";
+    static final String STOP_FAIL = "stopfail";
+    static final String GET_CURRENT_TIME = "getCurrentTime";
+    static final String GET_SNAPSHOT = "getSnapshot";
+    // A native call failed with an exception it did not handle itself
+    static final String UNEXPECTED = "unexpected";
+
+    // At most this many errors of one code are logged per window, the rest are only counted
+    private static final int LOG_LIMIT = 5;
+    private static final long LOG_WINDOW_MS = 1000;
+
+    private static class CodeStats {
+        final AtomicLong count = new AtomicLong();
+
+        // Guarded by `this`
+        long windowStart = 0;
+        int logged = 0;
+        long suppressed = 0;
+    }
+
+    private final ConcurrentHashMap<String, CodeStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong suppressedLogs = new AtomicLong();
+    private volatile boolean captureStackTraces = false;
+
+    void setCaptureStackTraces(boolean captureStackTraces) {
+        this.captureStackTraces = captureStackTraces;
+    }
+
+    WritableMap create(String tag, String code, String message, boolean log) {
+        CodeStats codeStats = statsFor(code);
+        codeStats.count.incrementAndGet();
+
+        WritableMap err = Arguments.createMap();
+        err.putString("err", code);
+        err.putString("message", message);
+
+        String stackTrace = null;
+        if (captureStackTraces) {
+            stackTrace = stackTrace();
+            err.putString("stackTrace", stackTrace);
+        }
+
+        if (log) {
+            log(tag, code, message, stackTrace, codeStats);
+        }
+
+        return err;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> counts = new HashMap<>();
+        for (Map.Entry<String, CodeStats> entry : stats.entrySet()) {
+            counts.put(entry.getKey(), (double) entry.getValue().count.get());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("counts", counts);
+        result.put("suppressedLogs", (double) suppressedLogs.get());
+        result.put("stackTraces", captureStackTraces);
+        return result;
+    }
+
+    void reset() {
+        stats.clear();
+        suppressedLogs.set(0);
+    }
+
+    private CodeStats statsFor(String code) {
+        CodeStats codeStats = stats.get(code);
+        if (codeStats == null) {
+            CodeStats created = new CodeStats();
+            codeStats = stats.putIfAbsent(code, created);
+            if (codeStats == null) {
+                codeStats = created;
+            }
+        }
+        return codeStats;
+    }
+
+    private void log(String tag, String code, String message, String stackTrace, CodeStats codeStats) {
+        long now = SystemClock.uptimeMillis();
+        long suppressedBefore = 0;
+
+        synchronized (codeStats) {
+            if (now - codeStats.windowStart >= LOG_WINDOW_MS) {
+                suppressedBefore = codeStats.suppressed;
+                codeStats.windowStart = now;
+                codeStats.logged = 0;
+                codeStats.suppressed = 0;
+            }
+
+            if (codeStats.logged >= LOG_LIMIT) {
+                codeStats.suppressed++;
+                suppressedLogs.incrementAndGet();
+                return;
+            }
+            codeStats.logged++;
+        }
+
+        if (suppressedBefore > 0) {
+            Log.w(tag, "Suppressed " + suppressedBefore + " more '" + code + "' errors");
+        }
+        Log.e(tag, message);
+        if (stackTrace != null) {
+            Log.d(tag, stackTrace);
+        }
+    }
+
+    private static String stackTrace() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            for (StackTraceElement e : Thread.currentThread().getStackTrace()) {
+                builder.append(e != null ? e.toString() : "null").append('\n');
+            }
+        } catch (Exception e) {
+            return "Exception occurred while parsing stack trace";
+        }
+        return builder.toString();
+    }
+}
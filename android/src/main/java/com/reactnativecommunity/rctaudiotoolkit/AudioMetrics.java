@@ -0,0 +1,157 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lifecycle timings and event counts of the player and recorder modules, shared by all modules.
+ * Recording is lock free, so it can be done from the media control lanes, MediaPlayer listeners
+ * and the metering threads without slowing them down.
+ */
+class AudioMetrics {
+    static final String PREPARE = "prepare";
+    static final String FIRST_AUDIO = "firstAudio";
+    static final String SEEK = "seek";
+    static final String BUFFERING_STALL = "bufferingStall";
+    static final String RECORDER_PREPARE = "recorderPrepare";
+    static final String RECORDER_START = "recorderStart";
+    static final String RECORDER_STOP = "recorderStop";
+
+    /**
+     * Histogram of durations in milliseconds with power of two buckets: bucket 0 counts values
+     * below 1 ms, bucket i values from 2^(i-1) up to 2^i ms, the last bucket everything above.
+     */
+    static class Histogram {
+        static final int BUCKETS = 18;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long millis) {
+            if (millis < 0) {
+                millis = 0;
+            }
+
+            int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+            count.incrementAndGet();
+            sum.addAndGet(millis);
+
+            long current = max.get();
+            while (millis > current && !max.compareAndSet(current, millis)) {
+                current = max.get();
+            }
+        }
+
+        // Upper bound of the bucket holding the given quantile, or 0 when empty
+        private static long quantile(long[] counts, long total, double q) {
+            long rank = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return 1L << i;
+                }
+            }
+            return 0;
+        }
+
+        Map<String, Object> snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+
+            List<Object> bucketList = new ArrayList<>();
+            for (long c : counts) {
+                bucketList.add((double) c);
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("count", (double) total);
+            result.put("mean", total > 0 ? (double) sum.get() / count.get() : 0.0);
+            result.put("max", (double) max.get());
+            result.put("p50", (double) quantile(counts, total, 0.5));
+            result.put("p90", (double) quantile(counts, total, 0.9));
+            result.put("p99", (double) quantile(counts, total, 0.99));
+            result.put("buckets", bucketList);
+            return result;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> events = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void record(String name, long millis) {
+        if (!enabled) {
+            return;
+        }
+
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(millis);
+    }
+
+    void countEvent(String event) {
+        if (!enabled) {
+            return;
+        }
+
+        AtomicLong counter = events.get(event);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = events.putIfAbsent(event, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> timings = new HashMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            timings.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        Map<String, Object> eventCounts = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : events.entrySet()) {
+            eventCounts.put(entry.getKey(), (double) entry.getValue().get());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("timings", timings);
+        result.put("events", eventCounts);
+        result.put("enabled", enabled);
+        return result;
+    }
+
+    void reset() {
+        histograms.clear();
+        events.clear();
+    }
+}
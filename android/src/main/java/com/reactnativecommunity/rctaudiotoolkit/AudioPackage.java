@@ -14,8 +14,22 @@ public class AudioPackage implements ReactPackage {
     @Override
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
-        modules.add(new AudioRecorderModule(reactContext));
-        modules.add(new AudioPlayerModule(reactContext));
+        final PathResolver pathResolver = new PathResolver(reactContext);
+        AudioErrors errors = new AudioErrors();
+        MediaExecutor mediaExecutor = new MediaExecutor(errors);
+        AudioMetrics metrics = new AudioMetrics();
+        PcmCache pcmCache = new PcmCache(reactContext);
+        // Load the raw resource table off the main thread before the first prepare needs it
+        mediaExecutor.execute("resolver", new Runnable() {
+            @Override
+            public void run() {
+                pathResolver.preload();
+            }
+        });
+        modules.add(new AudioRecorderModule(reactContext, mediaExecutor, errors, metrics));
+        modules.add(new AudioPlayerModule(reactContext, pathResolver, mediaExecutor, errors, metrics));
+        modules.add(new SoundPoolModule(reactContext, pathResolver, errors));
+        modules.add(new MixerModule(reactContext, pathResolver, pcmCache, mediaExecutor, errors));
         return modules;
     }
 
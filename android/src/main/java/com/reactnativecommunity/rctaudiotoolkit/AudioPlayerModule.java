@@ -1,17 +1,21 @@
 package com.reactnativecommunity.rctaudiotoolkit;
 
+import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.ContextWrapper;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.media.PlaybackParams;
 import android.net.Uri;
 import android.os.Build;
-import android.os.Environment;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
+import android.view.Choreographer;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
@@ -19,56 +23,336 @@ import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AudioPlayerModule extends ReactContextBaseJavaModule implements
         LifecycleEventListener, AudioManager.OnAudioFocusChangeListener {
     private static final String LOG_TAG = "AudioPlayerModule";
+    private static final int DEFAULT_PREPARE_CONCURRENCY = 4;
+    // Numbers the default ids of prepareMany batches
+    private final AtomicInteger prepareBatches = new AtomicInteger();
+    private static final long DEFAULT_CACHE_SIZE = 100 * 1024 * 1024;
+    // Loop regions wrap this long before their end, about the time a precise seek takes to land
+    private static final int LOOP_LEAD_MS = 10;
+    private static final int MIN_LOOP_LENGTH_MS = 50;
+    private static final long FIRST_AUDIO_POLL_MS = 5;
+    private static final long FIRST_AUDIO_TIMEOUT_MS = 5000;
+    private static final long MIN_LOOP_CHECK_MS = 2;
+    private static final long MAX_LOOP_CHECK_MS = 250;
+    // 32 MB of float samples, about 95 seconds of stereo at 44.1 kHz
+    private static final int MAX_STRETCH_SAMPLES = 8 * 1024 * 1024;
+    private static final int MAX_WAVEFORM_BUCKETS = 65536;
+    private static final long WAVEFORM_PROGRESS_MS = 250;
+
+    final PlayerRegistry playerPool = new PlayerRegistry(new PlayerRegistry.EvictionListener() {
+        @Override
+        public void onEvicted(final PlayerRegistry.PlayerState state, final MediaPlayer player) {
+            // Evictions happen in put(), on the main looper or another player's lane. The evicted
+            // player's own lane may still be using it, so it is released after what is queued there.
+            mediaExecutor.execute(state.playerId, new Runnable() {
+                @Override
+                public void run() {
+                    releaseEvicted(state, player);
+                }
+            });
+        }
+    });
+
+    private void releaseEvicted(PlayerRegistry.PlayerState state, MediaPlayer player) {
+        player.release();
+
+        Callback seekCallback = state.seekCallback.getAndSet(null);
+        if (seekCallback != null) {
+            seekCallback.invoke(errObj(AudioErrors.SEEK_FAIL, "Player was evicted before seek operation could finish", false));
+        }
+
+        List<Callback> seekWaiters;
+        synchronized (state) {
+            seekWaiters = state.seekWaiters;
+            state.seekWaiters = new ArrayList<>();
+            state.seekInFlight = false;
+            state.pendingSeek = -1;
+        }
+        for (Callback waiter : seekWaiters) {
+            waiter.invoke(errObj(AudioErrors.SEEK_FAIL, "Player was evicted before seek operation could finish", false));
+        }
+
+        WritableMap data = new WritableNativeMap();
+        data.putString("message", "Player was evicted from the pool, it will be prepared again on play");
+        emitEvent(state.playerId, "evicted", data);
+    }
 
-    Map<String, MediaPlayer> playerPool = new HashMap<>();
-    Map<String, Callback> playerSeekCallback = new HashMap<>();
+    // Gapless queues by queueId, each driven on its own media control lane
+    private final Map<String, PlayerQueue> queues = new ConcurrentHashMap<>();
+
+    private final PlayerQueue.Listener queueListener = new PlayerQueue.Listener() {
+        @Override
+        public void onQueueEvent(String queueId, String event, WritableMap data) {
+            emitEvent(queueId, event, data);
+        }
+    };
+
+    // Created on first use by setCacheOptions
+    private CacheProxy cacheProxy;
+    // Small clips of players prepared with the `inMemory` option
+    private final ClipCache clipCache;
 
-    boolean looping = false;
     private ReactApplicationContext context;
+    private final PathResolver pathResolver;
+    private final MediaExecutor mediaExecutor;
+    private final AudioErrors errors;
+    private final AudioMetrics metrics;
     private AudioManager mAudioManager;
     private String lastPlayerId;
     boolean mixWithOthers = false;
 
-    public AudioPlayerModule(ReactApplicationContext reactContext) {
+    // Progress subscriptions are only ever touched on the main looper
+    private final Handler handler;
+    private final Map<String, ProgressSubscription> progressSubscriptions = new HashMap<>();
+
+    // Loop regions are checked on a thread of their own, so that main thread work can't delay a wrap
+    private HandlerThread loopThread;
+    private Handler loopHandler;
+    // Set when play() or a new region asks for a check, so an idle tick doesn't quit under it
+    private boolean loopKicked;
+
+    private static class ProgressSubscription {
+        int interval;
+        long due;
+
+        ProgressSubscription(int interval) {
+            this.interval = interval;
+        }
+    }
+
+    public AudioPlayerModule(ReactApplicationContext reactContext, PathResolver pathResolver,
+                             MediaExecutor mediaExecutor, AudioErrors errors, AudioMetrics metrics) {
         super(reactContext);
         this.context = reactContext;
+        this.pathResolver = pathResolver;
+        this.mediaExecutor = mediaExecutor;
+        this.errors = errors;
+        this.metrics = metrics;
+        this.clipCache = new ClipCache(reactContext);
         reactContext.addLifecycleEventListener(this);
         this.mAudioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
-        handler=new Handler(Looper.getMainLooper());
-        handler.postDelayed(sendEmit(),2000L);
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    // Emits "interval" events for subscribed players that are currently playing, then reschedules
+    // itself for the earliest upcoming deadline. Stops as soon as no subscribed player is playing;
+    // play() kicks it again.
+    private final Runnable progressTick = new Runnable() {
+        @Override
+        public void run() {
+            Trace.beginSection("AudioPlayer.progressTick");
+            try {
+                long now = SystemClock.uptimeMillis();
+                long nextDue = Long.MAX_VALUE;
+
+                for (Map.Entry<String, ProgressSubscription> entry : progressSubscriptions.entrySet()) {
+                    MediaPlayer player = playerPool.peek(entry.getKey());
+                    if (player == null || !isPlaying(player)) {
+                        continue;
+                    }
+
+                    ProgressSubscription subscription = entry.getValue();
+                    if (subscription.due <= now) {
+                        WritableMap data = new WritableNativeMap();
+                        data.putMap("info", getInfo(entry.getKey(), player));
+                        emitEvent(entry.getKey(), "interval", data);
+                        subscription.due = now + subscription.interval;
+                    }
+                    nextDue = Math.min(nextDue, subscription.due);
+                }
+
+                if (nextDue != Long.MAX_VALUE) {
+                    handler.postAtTime(this, nextDue);
+                }
+            } finally {
+                Trace.endSection();
+            }
+        }
+    };
+
+    // Wraps playing players with a loop region back to its start shortly before they reach its end.
+    // The check is rescheduled at half the remaining time, so it gets more precise towards the end
+    // of the region. The thread quits when no player with a region is playing; play() starts it again.
+    private final Runnable loopTick = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (AudioPlayerModule.this) {
+                loopKicked = false;
+            }
+            long nextDelay = Long.MAX_VALUE;
+
+            for (PlayerRegistry.PlayerState state : playerPool.states()) {
+                int start = state.loopStart;
+                int end = state.loopEnd;
+                if (end < 0) {
+                    continue;
+                }
+
+                MediaPlayer player = playerPool.peek(state.playerId);
+                if (player == null) {
+                    continue;
+                }
+
+                int position;
+                try {
+                    if (!player.isPlaying()) {
+                        continue;
+                    }
+                    position = player.getCurrentPosition();
+                } catch (IllegalStateException e) {
+                    continue;
+                }
+
+                int remaining = end - position;
+                if (remaining <= LOOP_LEAD_MS && wrapLoop(state, player, start)) {
+                    remaining = end - start;
+                }
+                nextDelay = Math.min(nextDelay, Math.max(MIN_LOOP_CHECK_MS,
+                        Math.min(MAX_LOOP_CHECK_MS, (remaining - LOOP_LEAD_MS) / 2)));
+            }
+
+            scheduleLoopTick(nextDelay);
+        }
+    };
+
+    // Seeks back to the start of the region, unless a seek from JS is running
+    private boolean wrapLoop(PlayerRegistry.PlayerState state, MediaPlayer player, int start) {
+        synchronized (state) {
+            if (state.seekInFlight || state.seekCallback.get() != null) {
+                return false;
+            }
+            state.quietSeek = true;
+        }
+
+        try {
+            seekTo(player, start, false);
+        } catch (IllegalStateException e) {
+            state.quietSeek = false;
+            return false;
+        }
+        state.regionLoops++;
+        return true;
+    }
+
+    private synchronized void kickLoopTick() {
+        if (loopHandler == null) {
+            loopThread = new HandlerThread("AudioLoopMonitor", Process.THREAD_PRIORITY_AUDIO);
+            loopThread.start();
+            loopHandler = new Handler(loopThread.getLooper());
+        }
+        loopHandler.removeCallbacks(loopTick);
+        loopHandler.post(loopTick);
+        loopKicked = true;
+    }
+
+    private synchronized void scheduleLoopTick(long delay) {
+        if (loopHandler == null) {
+            return;
+        }
+        if (delay != Long.MAX_VALUE) {
+            loopHandler.postDelayed(loopTick, delay);
+        } else if (!loopKicked) {
+            stopLoopTick();
+        }
+    }
+
+    private synchronized void stopLoopTick() {
+        if (loopThread != null) {
+            loopThread.quit();
+            loopThread = null;
+            loopHandler = null;
+        }
     }
-    private final Handler handler;
-    private Runnable sendEmit(){
 
-        return new Runnable(){
+    private void kickProgressTick() {
+        handler.removeCallbacks(progressTick);
+        handler.post(progressTick);
+    }
+
+    // MediaPlayer has no callback for the first rendered audio, so the time until the position first
+    // moves after start() is measured instead
+    private void probeFirstAudio(final String playerId, final long started, final int startPosition) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+
+        handler.post(new Runnable() {
             @Override
             public void run() {
-                Map<String, MediaPlayer> playerPoolCopy = new HashMap<>(playerPool);
-                Log.e("sendEmit",String.valueOf(playerPoolCopy.size()));
-                for (Map.Entry<String, MediaPlayer> entry : playerPoolCopy.entrySet()) {
-                    WritableMap info = getInfo(entry.getValue());
-                    WritableMap data = new WritableNativeMap();
-                    data.putMap("info", info);
-                    emitEvent(entry.getKey(), "interval", data);
+                long elapsed = SystemClock.uptimeMillis() - started;
+                MediaPlayer player = playerPool.peek(playerId);
+                if (player == null || elapsed > FIRST_AUDIO_TIMEOUT_MS) {
+                    return;
                 }
-                handler.postDelayed(sendEmit(),2000L);
+
+                try {
+                    if (!player.isPlaying()) {
+                        return;
+                    }
+                    if (player.getCurrentPosition() != startPosition) {
+                        metrics.record(AudioMetrics.FIRST_AUDIO, elapsed);
+                        return;
+                    }
+                } catch (IllegalStateException e) {
+                    return;
+                }
+                handler.postDelayed(this, FIRST_AUDIO_POLL_MS);
             }
-        };
+        });
+    }
+
+    private static boolean isPlaying(MediaPlayer player) {
+        try {
+            return player.isPlaying();
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void subscribeProgress(final String playerId, final int interval) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (interval <= 0) {
+                    progressSubscriptions.remove(playerId);
+                    return;
+                }
+
+                ProgressSubscription subscription = progressSubscriptions.get(playerId);
+                if (subscription == null) {
+                    progressSubscriptions.put(playerId, new ProgressSubscription(interval));
+                } else {
+                    subscription.interval = interval;
+                }
+                kickProgressTick();
+            }
+        });
+    }
+
+    private void unsubscribeProgress(String playerId) {
+        subscribeProgress(playerId, 0);
     }
 
     @Override
@@ -84,21 +368,44 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
     @Override
     public void onHostDestroy() {
         // Activity `onDestroy`
-        // Need to create a copy here because it is possible for other code to modify playerPool
-        // at the same time which will lead to a ConcurrentModificationException being thrown
-        Map<String, MediaPlayer> playerPoolCopy = new HashMap<>(this.playerPool);
+        handler.removeCallbacks(progressTick);
+        handler.removeCallbacks(flushEvents);
+        handler.removeCallbacks(postFlushOnFrame);
+        handler.removeCallbacks(metricsTick);
+        stopLoopTick();
+
+        // The registry can be iterated while other threads modify it
+        for (PlayerRegistry.PlayerState state : this.playerPool.states()) {
+            MediaPlayer player;
+            synchronized (state) {
+                player = state.player;
+            }
+            if (player != null) {
+                player.pause();
+                player.release();
+            }
+            destroy(state.playerId);
+        }
 
-        for (Map.Entry<String, MediaPlayer> entry : playerPoolCopy.entrySet()) {
-            String playerId = entry.getKey();
-            entry.getValue().pause();
-            entry.getValue().release();
-            destroy(playerId);
+        for (PlayerQueue queue : this.queues.values()) {
+            queue.release();
         }
+        this.queues.clear();
+
+        // No player is left to read from it, the next prepare of a remote URL starts it again
+        stopCacheProxy();
     }
 
     @Override
     public void onCatalystInstanceDestroy() {
         super.onCatalystInstanceDestroy();
+        stopCacheProxy();
+    }
+
+    private synchronized void stopCacheProxy() {
+        if (this.cacheProxy != null) {
+            this.cacheProxy.stop();
+        }
     }
 
     @Override
@@ -107,39 +414,174 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
     }
 
     private void emitEvent(String playerId, String event, WritableMap data) {
-        WritableMap payload = new WritableNativeMap();
-        payload.putString("playerId", playerId);
-        payload.putString("event", event);
-        payload.putMap("data", data);
+        Trace.beginSection("AudioPlayer.emitEvent");
+        try {
+            metrics.countEvent(event);
+
+            WritableMap payload = PlayerPayloads.event(playerId, event, data);
+
+            synchronized (eventBatchLock) {
+                if (batchEvents) {
+                    if (pendingEvents == null) {
+                        pendingEvents = new WritableNativeArray();
+                        scheduleEventFlush();
+                    }
+                    pendingEvents.pushMap(payload);
+                    return;
+                }
+            }
+
+            this.context
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit("RCTAudioPlayerEvent:" + playerId, payload);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    // Batched event delivery: while enabled, events of all players are collected into one array and
+    // emitted as a single "RCTAudioPlayerEvents" event, either on the next frame (window 0) or after
+    // `batchWindow` milliseconds.
+    private final Object eventBatchLock = new Object();
+    private boolean batchEvents = false;
+    private int batchWindow = 0;
+    private WritableArray pendingEvents = null;
+
+    private final Runnable flushEvents = new Runnable() {
+        @Override
+        public void run() {
+            flushEvents();
+        }
+    };
+
+    private final Choreographer.FrameCallback flushEventsOnFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flushEvents();
+        }
+    };
+
+    private final Runnable postFlushOnFrame = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(flushEventsOnFrame);
+        }
+    };
+
+    // Must be called while holding eventBatchLock
+    private void scheduleEventFlush() {
+        if (batchWindow > 0) {
+            handler.postDelayed(flushEvents, batchWindow);
+        } else {
+            handler.post(postFlushOnFrame);
+        }
+    }
+
+    private void flushEvents() {
+        WritableArray events;
+        synchronized (eventBatchLock) {
+            events = pendingEvents;
+            pendingEvents = null;
+        }
+
+        if (events == null) {
+            return;
+        }
 
         this.context
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit("RCTAudioPlayerEvent:" + playerId, payload);
+                .emit("RCTAudioPlayerEvents", events);
     }
 
-    private WritableMap errObj(final String code, final String message, final boolean enableLog) {
-        WritableMap err = Arguments.createMap();
+    @ReactMethod
+    public void setErrorOptions(ReadableMap options, Callback callback) {
+        if (options.hasKey("stackTraces") && !options.isNull("stackTraces")) {
+            this.errors.setCaptureStackTraces(options.getBoolean("stackTraces"));
+        }
+        if (options.hasKey("resetStats") && !options.isNull("resetStats") && options.getBoolean("resetStats")) {
+            this.errors.reset();
+        }
+        callback.invoke();
+    }
 
-        String stackTraceString = "";
-        try {
-            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-            for (StackTraceElement e : stackTrace) {
-                stackTraceString += (e != null ? e.toString() : "null") + "\n";
+    @ReactMethod
+    public void getErrorStats(Callback callback) {
+        callback.invoke(null, Arguments.makeNativeMap(this.errors.stats()));
+    }
+
+    @ReactMethod
+    public void getMetrics(Callback callback) {
+        callback.invoke(null, Arguments.makeNativeMap(this.metrics.snapshot()));
+    }
+
+    // Periodic "RCTAudioMetrics" events with the same content as getMetrics()
+    private int metricsInterval = 0;
+
+    private final Runnable metricsTick = new Runnable() {
+        @Override
+        public void run() {
+            if (metricsInterval <= 0) {
+                return;
             }
-        } catch (Exception e) {
-            stackTraceString = "Exception occurred while parsing stack trace";
+            AudioPlayerModule.this.context
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit("RCTAudioMetrics", Arguments.makeNativeMap(metrics.snapshot()));
+            handler.postDelayed(this, metricsInterval);
         }
+    };
 
-        err.putString("err", code);
-        err.putString("message", message);
+    @ReactMethod
+    public void setMetricsOptions(final ReadableMap options, final Callback callback) {
+        if (options.hasKey("enabled") && !options.isNull("enabled")) {
+            this.metrics.setEnabled(options.getBoolean("enabled"));
+        }
+        if (options.hasKey("reset") && !options.isNull("reset") && options.getBoolean("reset")) {
+            this.metrics.reset();
+        }
+        if (options.hasKey("interval") && !options.isNull("interval")) {
+            final int interval = options.getInt("interval");
+            if (interval < 0) {
+                callback.invoke(errObj(AudioErrors.INVALID_INTERVAL, "interval must not be negative"));
+                return;
+            }
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    metricsInterval = interval;
+                    handler.removeCallbacks(metricsTick);
+                    if (interval > 0) {
+                        handler.postDelayed(metricsTick, interval);
+                    }
+                }
+            });
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void setEventBatching(ReadableMap options, Callback callback) {
+        boolean enabled = true;
+        if (options.hasKey("enabled") && !options.isNull("enabled")) {
+            enabled = options.getBoolean("enabled");
+        }
 
-        if (enableLog) {
-            err.putString("stackTrace", stackTraceString);
-            Log.e(LOG_TAG, message);
-            Log.d(LOG_TAG, stackTraceString);
+        synchronized (eventBatchLock) {
+            if (options.hasKey("window") && !options.isNull("window")) {
+                this.batchWindow = Math.max(0, options.getInt("window"));
+            }
+            this.batchEvents = enabled;
         }
 
-        return err;
+        if (!enabled) {
+            // Deliver whatever was collected before batching got disabled
+            flushEvents();
+        }
+
+        callback.invoke();
+    }
+
+    private WritableMap errObj(final String code, final String message, final boolean enableLog) {
+        return this.errors.create(LOG_TAG, code, message, enableLog);
     }
 
     private WritableMap errObj(final String code, final String message) {
@@ -147,154 +589,643 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
     }
 
     private Uri uriFromPath(String path) {
-        File file = null;
-        String fileNameWithoutExt;
-        String extPath;
+        return this.pathResolver.uriFromPath(path);
+    }
+
+    @ReactMethod
+    public void destroy(final String playerId, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.remove(playerId);
+                MediaPlayer player = null;
+                if (state != null) {
+                    synchronized (state) {
+                        player = state.player;
+                        state.player = null;
+                    }
+                    StretchPlayer stretch = state.stretch;
+                    if (stretch != null) {
+                        state.stretch = null;
+                        stretch.release();
+                    }
+                }
 
-        // Try finding file in app data directory
-        extPath = new ContextWrapper(this.context).getFilesDir() + "/" + path;
-        file = new File(extPath);
-        if (file.exists()) {
-            return Uri.fromFile(file);
+                if (player != null) {
+                    player.release();
+                    //this.playerAutoDestroy.remove(playerId);
+                    //this.playerContinueInBackground.remove(playerId);
+                    unsubscribeProgress(playerId);
+
+                    WritableMap data = new WritableNativeMap();
+                    data.putString("message", "Destroyed player");
+
+                    emitEvent(playerId, "info", data);
+                }
+
+                if (callback != null) {
+                    callback.invoke();
+                }
+            }
+        });
+    }
+
+    private void destroy(String playerId) {
+        this.destroy(playerId, null);
+    }
+
+    @ReactMethod
+    public void seek(final String playerId, final Integer position, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (state == null || player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
+
+                StretchPlayer stretch = state.stretch;
+                if (stretch != null && position >= 0) {
+                    stretch.seekTo(position);
+                    callback.invoke(null, getInfo(playerId, player));
+
+                    WritableMap data = new WritableNativeMap();
+                    data.putString("message", "Seek operation completed");
+                    emitEvent(playerId, "seeked", data);
+                    return;
+                }
+
+                if (position >= 0) {
+                    if (seekCoalesced(state, player, position, callback)) {
+                        return;
+                    }
+
+                    Callback oldCallback = state.seekCallback.getAndSet(callback);
+
+                    if (oldCallback != null) {
+                        oldCallback.invoke(errObj(AudioErrors.SEEK_FAIL, "new seek operation before old one completed", false));
+                    }
+
+                    // A loop wrap still in flight must not swallow the completion of this seek
+                    state.quietSeek = false;
+                    state.seekStarted = SystemClock.uptimeMillis();
+                    player.seekTo(position);
+                }
+            }
+        });
+    }
+
+    // While scrubbing, seeks issued during an in-flight seek only replace the pending target instead
+    // of failing the previous callback. Returns false when the player is not scrubbing.
+    private boolean seekCoalesced(PlayerRegistry.PlayerState state, MediaPlayer player, int position, Callback callback) {
+        boolean fast;
+        synchronized (state) {
+            if (!state.scrubbing) {
+                return false;
+            }
+
+            state.lastSeekTarget = position;
+            state.seekWaiters.add(callback);
+            if (state.seekInFlight) {
+                if (state.pendingSeek >= 0) {
+                    state.droppedSeeks++;
+                }
+                state.pendingSeek = position;
+                return true;
+            }
+
+            state.seekInFlight = true;
+            state.quietSeek = false;
+            fast = state.fastSeek;
+            state.lastSeekFast = fast;
         }
 
-        // Try finding file on sdcard
-        extPath = Environment.getExternalStorageDirectory() + "/" + path;
-        file = new File(extPath);
-        if (file.exists()) {
-            return Uri.fromFile(file);
+        state.seekStarted = SystemClock.uptimeMillis();
+        seekTo(player, position, fast);
+        return true;
+    }
+
+    // Fast seeks land on the closest sync frame, which is much cheaper for previews while scrubbing.
+    // Before API 26 all seeks are done the default way.
+    @TargetApi(26)
+    private static void seekTo(MediaPlayer player, int position, boolean fast) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            player.seekTo((long) position, fast ? MediaPlayer.SEEK_CLOSEST_SYNC : MediaPlayer.SEEK_CLOSEST);
+        } else {
+            player.seekTo(position);
         }
+    }
+
+    @ReactMethod
+    public void setScrubbing(final String playerId, final ReadableMap options, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (state == null || player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
+
+                boolean enabled = options.hasKey("enabled") && options.getBoolean("enabled");
+                boolean fastSeek = options.hasKey("fastSeek") && options.getBoolean("fastSeek");
+
+                int preciseTarget = -1;
+                long droppedSeeks;
+                synchronized (state) {
+                    boolean wasScrubbing = state.scrubbing;
+                    state.scrubbing = enabled;
+                    state.fastSeek = enabled && fastSeek;
+
+                    // On release, a preview that landed on a sync frame is followed by a precise
+                    // seek to the same target. Pending targets are always issued precisely.
+                    if (wasScrubbing && !enabled && state.lastSeekTarget >= 0 && state.lastSeekFast) {
+                        if (!state.seekInFlight) {
+                            state.seekInFlight = true;
+                            preciseTarget = state.lastSeekTarget;
+                        } else if (state.pendingSeek < 0) {
+                            state.pendingSeek = state.lastSeekTarget;
+                        }
+                        state.lastSeekFast = false;
+                    }
+                    if (!enabled) {
+                        state.lastSeekTarget = -1;
+                    }
+                    droppedSeeks = state.droppedSeeks;
+                }
+
+                if (preciseTarget >= 0) {
+                    state.seekStarted = SystemClock.uptimeMillis();
+                    seekTo(player, preciseTarget, false);
+                }
+
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("scrubbing", enabled);
+                result.putDouble("droppedSeeks", droppedSeeks);
+                callback.invoke(null, result);
+            }
+        });
+    }
 
-        // Try finding file by full path
-        file = new File(path);
-        if (file.exists()) {
-            return Uri.fromFile(file);
+    private WritableMap getInfo(String playerId, MediaPlayer player) {
+        Trace.beginSection("AudioPlayer.getInfo");
+        try {
+            // Duration is cached when the player is prepared, the position is only read once
+            PlayerRegistry.PlayerState state = this.playerPool.state(playerId);
+            int duration = state != null && state.duration >= 0 ? state.duration : player.getDuration();
+            StretchPlayer stretch = state != null ? state.stretch : null;
+            int position = stretch != null ? stretch.getCurrentPosition() : player.getCurrentPosition();
+
+            return PlayerPayloads.info(state, duration, position, player.getAudioSessionId());
+        } finally {
+            Trace.endSection();
         }
-        
-        // Try finding file in Android "raw" resources
-        if (path.lastIndexOf('.') != -1) {
-            fileNameWithoutExt = path.substring(0, path.lastIndexOf('.'));
+    }
+
+    // Formats milliseconds as HH:MM:SS
+    public String convertDurationMillis(Integer getDurationInMillis){
+        return DurationFormat.format(getDurationInMillis);
+    }
+    @ReactMethod
+    public void prepare(final String playerId, final String path, final ReadableMap options, final Callback callback) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                final MediaPlayer cekPlayer = AudioPlayerModule.this.playerPool.get(playerId);
+                if (cekPlayer == null) {
+                    if (path == null || path.isEmpty()) {
+                        callback.invoke(errObj(AudioErrors.NO_PATH, "Provided path was empty"));
+                        return;
+                    }
+                    preparePlayer(playerId, path, options, callback);
+                }else{
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    if (state != null) {
+                        state.readableTimes = options.hasKey("readableTimes") && !options.isNull("readableTimes")
+                                && options.getBoolean("readableTimes");
+                    }
+                    // Already prepared, the callback is completed right away
+                    setListener(cekPlayer,playerId,path,null,options);
+                    callback.invoke(null, getInfo(playerId, cekPlayer));
+                }
+            }
+        };
+
+        // setDataSource of a remote URL can block for as long as the server takes to answer
+        if (isRemote(path)) {
+            mediaExecutor.executeNetwork(playerId, callback, task);
         } else {
-            fileNameWithoutExt = path;
+            mediaExecutor.execute(playerId, callback, task);
+        }
+    }
+
+    private static boolean isRemote(String path) {
+        return path != null && (path.startsWith("http://") || path.startsWith("https://"));
+    }
+
+    private void preparePlayer(final String playerId, String path, final ReadableMap options, final Callback callback) {
+        this.lastPlayerId = playerId;
+
+        Uri uri = uriFromPath(path);
+
+        //MediaPlayer player = MediaPlayer.create(this.context, uri, null, attributes);
+        final MediaPlayer player = new MediaPlayer();
+        try {
+            Log.d(LOG_TAG, uri.getPath());
+            ByteBuffer clip = null;
+            // `MediaDataSource` was only added in API 23
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && options.hasKey("inMemory")
+                    && !options.isNull("inMemory") && options.getBoolean("inMemory")) {
+                clip = this.clipCache.get(uri);
+            }
+            if (clip != null) {
+                setClipDataSource(player, clip);
+            } else {
+                player.setDataSource(this.context, uri);
+            }
+        } catch (IOException e) {
+            callback.invoke(errObj(AudioErrors.INVALID_PATH, e.toString()));
+            return;
+        }
+        // Time from here until the player is prepared
+        final long prepareStarted = SystemClock.uptimeMillis();
+        Callback timedCallback = new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                if (args.length == 0 || args[0] == null) {
+                    metrics.record(AudioMetrics.PREPARE, SystemClock.uptimeMillis() - prepareStarted);
+                }
+                callback.invoke(args);
+            }
+        };
+        setListener(player,playerId,path,timedCallback,options);
+        try {
+            player.prepareAsync();
+        } catch (Exception e) {
+            callback.invoke(errObj(AudioErrors.PREPARE, e.toString()));
+        }
+    }
+
+    @TargetApi(23)
+    private static void setClipDataSource(MediaPlayer player, ByteBuffer clip) {
+        player.setDataSource(new ClipCache.BufferDataSource(clip));
+    }
+
+    @ReactMethod
+    public void setClipCacheOptions(ReadableMap options, Callback callback) {
+        if (options.hasKey("maxSize") && !options.isNull("maxSize")) {
+            this.clipCache.setMaxBytes((long) options.getDouble("maxSize"));
+        }
+        if (options.hasKey("maxClipSize") && !options.isNull("maxClipSize")) {
+            this.clipCache.setMaxClipBytes((long) options.getDouble("maxClipSize"));
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void getClipCacheStats(Callback callback) {
+        callback.invoke(null, Arguments.makeNativeMap(this.clipCache.stats()));
+    }
+
+    @ReactMethod
+    public void prepareMany(ReadableArray entries, ReadableMap options, Callback callback) {
+        int concurrency = DEFAULT_PREPARE_CONCURRENCY;
+        String batchId = "prepareMany:native:" + this.prepareBatches.incrementAndGet();
+
+        if (options.hasKey("concurrency") && !options.isNull("concurrency")) {
+            concurrency = Math.max(1, options.getInt("concurrency"));
+        }
+        if (options.hasKey("batchId") && !options.isNull("batchId")) {
+            batchId = options.getString("batchId");
+        }
+
+        new PrepareBatch(entries, options, batchId, callback).start(concurrency);
+    }
+
+    // Prepares a list of players with at most `concurrency` prepareAsync calls in flight. Progress
+    // is emitted as "prepareProgress" events on the batch id, results are reported in entry order.
+    private class PrepareBatch {
+        private final ReadableArray entries;
+        private final ReadableMap options;
+        private final String batchId;
+        private final Callback callback;
+        private final WritableMap[] results;
+        private int next = 0;
+        private int completed = 0;
+
+        PrepareBatch(ReadableArray entries, ReadableMap options, String batchId, Callback callback) {
+            this.entries = entries;
+            this.options = options;
+            this.batchId = batchId;
+            this.callback = callback;
+            this.results = new WritableMap[entries.size()];
+        }
+
+        void start(int concurrency) {
+            if (entries.size() == 0) {
+                callback.invoke(null, Arguments.createArray());
+                return;
+            }
+
+            for (int i = 0; i < concurrency; i++) {
+                startNext();
+            }
+        }
+
+        private void startNext() {
+            final int index;
+            synchronized (this) {
+                if (next >= entries.size()) {
+                    return;
+                }
+                index = next++;
+            }
+
+            ReadableMap entry = entries.getMap(index);
+            final String playerId = entry.getString("playerId");
+            String path = entry.hasKey("path") && !entry.isNull("path") ? entry.getString("path") : null;
+            ReadableMap entryOptions = entry.hasKey("options") && !entry.isNull("options")
+                    ? entry.getMap("options") : options;
+
+            prepare(playerId, path, entryOptions, new Callback() {
+                @Override
+                public void invoke(Object... args) {
+                    finish(index, playerId, args);
+                }
+            });
         }
 
-        int resId = this.context.getResources().getIdentifier(fileNameWithoutExt,
-            "raw", this.context.getPackageName());
-        if (resId != 0) {
-            return Uri.parse("android.resource://" + this.context.getPackageName() + "/" + resId);
+        private void finish(int index, String playerId, Object... args) {
+            WritableMap result = Arguments.createMap();
+            WritableMap progress = new WritableNativeMap();
+            result.putString("playerId", playerId);
+            progress.putString("playerId", playerId);
+
+            if (args.length > 0 && args[0] != null) {
+                result.putMap("err", (WritableMap) args[0]);
+                progress.putBoolean("success", false);
+            } else {
+                if (args.length > 1 && args[1] != null) {
+                    result.putMap("info", (WritableMap) args[1]);
+                }
+                progress.putBoolean("success", true);
+            }
+
+            boolean done;
+            synchronized (this) {
+                results[index] = result;
+                completed++;
+                done = completed == results.length;
+                progress.putInt("completed", completed);
+                progress.putInt("total", results.length);
+            }
+
+            emitEvent(batchId, "prepareProgress", progress);
+
+            if (done) {
+                WritableArray array = Arguments.createArray();
+                for (WritableMap r : results) {
+                    array.pushMap(r);
+                }
+                callback.invoke(null, array);
+            } else {
+                startNext();
+            }
         }
+    }
 
-        // Otherwise pass whole path string as URI and hope for the best
-        return Uri.parse(path);
+    @ReactMethod
+    public void setPoolOptions(ReadableMap options, Callback callback) {
+        if (options.hasKey("maxSize") && !options.isNull("maxSize")) {
+            this.playerPool.setMaxSize(options.getInt("maxSize"));
+        }
+        callback.invoke();
     }
 
     @ReactMethod
-    public void destroy(String playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
+    public void getPoolStats(Callback callback) {
+        callback.invoke(null, Arguments.makeNativeMap(this.playerPool.stats()));
+    }
 
-        if (player != null) {
-            player.release();
-            this.playerPool.remove(playerId);
-            //this.playerAutoDestroy.remove(playerId);
-            //this.playerContinueInBackground.remove(playerId);
-            this.playerSeekCallback.remove(playerId);
+    @ReactMethod
+    public synchronized void setCacheOptions(ReadableMap options, Callback callback) {
+        boolean enabled = true;
+        if (options.hasKey("enabled") && !options.isNull("enabled")) {
+            enabled = options.getBoolean("enabled");
+        }
 
-            WritableMap data = new WritableNativeMap();
-            data.putString("message", "Destroyed player");
+        if (this.cacheProxy == null) {
+            if (!enabled) {
+                callback.invoke();
+                return;
+            }
+            File directory = new File(this.context.getCacheDir(), "rctaudiotoolkit");
+            this.cacheProxy = new CacheProxy(new MediaCache(directory, DEFAULT_CACHE_SIZE));
+        }
 
-            emitEvent(playerId, "info", data);
+        if (options.hasKey("maxSize") && !options.isNull("maxSize")) {
+            this.cacheProxy.getCache().setMaxBytes((long) options.getDouble("maxSize"));
         }
 
-        if (callback != null) {
-            callback.invoke();
+        // Only affects players prepared from now on
+        this.pathResolver.setCacheProxy(enabled ? this.cacheProxy : null);
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void getCacheStats(Callback callback) {
+        if (this.cacheProxy == null) {
+            callback.invoke(errObj(AudioErrors.NO_CACHE, "Caching was never enabled", false));
+            return;
         }
+        callback.invoke(null, Arguments.makeNativeMap(this.cacheProxy.getCache().stats()));
     }
 
-    private void destroy(String playerId) {
-        this.destroy(playerId, null);
+    @ReactMethod
+    public synchronized void clearCache(Callback callback) {
+        if (this.cacheProxy != null) {
+            this.cacheProxy.getCache().clear();
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void resolve(final String path, final Callback callback) {
+        mediaExecutor.execute("resolver", callback, new Runnable() {
+            @Override
+            public void run() {
+                if (path == null || path.isEmpty()) {
+                    callback.invoke(errObj(AudioErrors.NO_PATH, "Provided path was empty"));
+                    return;
+                }
+
+                PathResolver.Resolution resolution = AudioPlayerModule.this.pathResolver.resolve(path);
+                WritableMap result = Arguments.createMap();
+                result.putString("uri", resolution.uri.toString());
+                result.putString("source", resolution.source);
+                callback.invoke(null, result);
+            }
+        });
     }
 
+    /**
+     * Computes min, max and RMS levels of `buckets` equal slices of the file at `path` by streaming
+     * it through the decoder. Partial results are emitted as "RCTAudioWaveform" events while
+     * decoding. Finished waveforms of files are stored in sidecar files next to the other caches,
+     * so asking again only reads those.
+     */
     @ReactMethod
-    public void seek(final String playerId, Integer position, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+    public void getWaveform(final String path, final Integer buckets, final Callback callback) {
+        if (path == null || path.isEmpty()) {
+            callback.invoke(errObj(AudioErrors.NO_PATH, "Provided path was empty"));
+            return;
+        }
+        if (buckets == null || buckets <= 0 || buckets > MAX_WAVEFORM_BUCKETS) {
+            callback.invoke(errObj(AudioErrors.INVALID_OPTION, "buckets must be between 1 and " + MAX_WAVEFORM_BUCKETS));
             return;
         }
 
-        if (position >= 0) {
-            Callback oldCallback = this.playerSeekCallback.get(playerId);
+        // One lane, so that decoding long files never holds more than one thread of the pool
+        mediaExecutor.execute("waveform", callback, new Runnable() {
+            @Override
+            public void run() {
+                Uri uri = uriFromPath(path);
+                File sidecar = waveformFile(uri, buckets);
+                Waveform waveform = sidecar != null ? Waveform.read(sidecar, buckets) : null;
+                boolean cached = waveform != null;
+
+                if (waveform == null) {
+                    try {
+                        waveform = extractWaveform(path, uri, buckets);
+                    } catch (IOException e) {
+                        callback.invoke(errObj(AudioErrors.PREPARE_FAIL, e.toString()));
+                        return;
+                    }
+
+                    if (sidecar != null) {
+                        try {
+                            waveform.write(sidecar);
+                        } catch (IOException e) {
+                            Log.w(LOG_TAG, e.toString());
+                        }
+                    }
+                }
 
-            if (oldCallback != null) {
-                oldCallback.invoke(errObj("seekfail", "new seek operation before old one completed", false));
-                this.playerSeekCallback.remove(playerId);
+                WritableMap result = waveformSlice(waveform, 0, waveform.buckets);
+                result.putBoolean("cached", cached);
+                callback.invoke(null, result);
             }
-
-            this.playerSeekCallback.put(playerId, callback);
-            player.seekTo(position);
-        }
+        });
     }
 
-    private WritableMap getInfo(MediaPlayer player) {
-        WritableMap info = Arguments.createMap();
+    private Waveform extractWaveform(final String path, Uri uri, final int buckets) throws IOException {
+        final Waveform[] waveform = new Waveform[1];
+        PcmDecoder.decode(this.context, uri, new PcmDecoder.Sink() {
+            int channels;
+            int reported = 0;
+            long lastReport = SystemClock.uptimeMillis();
+
+            @Override
+            public void onFormat(int channels, int sampleRate, long durationUs) throws IOException {
+                this.channels = channels;
+                if (waveform[0] == null) {
+                    if (durationUs <= 0) {
+                        throw new IOException("Duration of " + path + " is unknown");
+                    }
+                    waveform[0] = new Waveform(buckets, durationUs / 1000, sampleRate);
+                } else {
+                    // The decoder's output format, which is what the frames are actually at
+                    waveform[0].setSampleRate(sampleRate);
+                }
+            }
 
-        info.putDouble("duration", player.getDuration());
-        info.putString("durationReadable", convertDurationMillis(player.getDuration()));
-        info.putDouble("position", player.getCurrentPosition());
-        info.putString("positionReadable", convertDurationMillis(player.getDuration()-player.getCurrentPosition()));
-        info.putDouble("audioSessionId", player.getAudioSessionId());
+            @Override
+            public void onFrames(float[] samples, int frames) {
+                waveform[0].add(samples, frames, channels);
+
+                long now = SystemClock.uptimeMillis();
+                int completed = waveform[0].getCompleted();
+                if (now - lastReport >= WAVEFORM_PROGRESS_MS && completed > reported) {
+                    emitWaveformProgress(path, waveform[0], reported, completed);
+                    reported = completed;
+                    lastReport = now;
+                }
+            }
+        });
 
-        return info;
+        if (waveform[0] == null) {
+            throw new IOException("No audio decoded from " + path);
+        }
+        waveform[0].finish();
+        return waveform[0];
     }
 
-    public String convertDurationMillis(Integer getDurationInMillis){
-        int getDurationMillis = getDurationInMillis;
+    // Only the buckets completed since the last event are sent
+    private void emitWaveformProgress(String path, Waveform waveform, int from, int to) {
+        WritableMap data = waveformSlice(waveform, from, to);
+        data.putString("path", path);
+        data.putInt("buckets", waveform.buckets);
+        data.putInt("from", from);
+        data.putInt("completed", to);
+        this.context
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit("RCTAudioWaveform", data);
+    }
 
-        String convertHours = String.format("%02d", TimeUnit.MILLISECONDS.toHours(getDurationMillis));
-        String convertMinutes = String.format("%02d", TimeUnit.MILLISECONDS.toMinutes(getDurationMillis) -
-                TimeUnit.HOURS.toMinutes(TimeUnit.MILLISECONDS.toHours(getDurationMillis))); //I needed to add this part.
-        String convertSeconds = String.format("%02d", TimeUnit.MILLISECONDS.toSeconds(getDurationMillis) -
-                TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(getDurationMillis)));
+    private static WritableMap waveformSlice(Waveform waveform, int from, int to) {
+        WritableArray min = Arguments.createArray();
+        WritableArray max = Arguments.createArray();
+        WritableArray rms = Arguments.createArray();
+        for (int i = from; i < to; i++) {
+            min.pushDouble(waveform.min[i]);
+            max.pushDouble(waveform.max[i]);
+            rms.pushDouble(waveform.rms[i]);
+        }
 
+        WritableMap map = Arguments.createMap();
+        map.putDouble("duration", waveform.durationMillis);
+        map.putArray("min", min);
+        map.putArray("max", max);
+        map.putArray("rms", rms);
+        return map;
+    }
 
-        return convertHours + ":" + convertMinutes + ":" + convertSeconds;
+    // Sidecar file of a local file's waveform, keyed by its size and modification time so that a
+    // file recorded again gets a new one. Other sources are not cached.
+    private File waveformFile(Uri uri, int buckets) {
+        if (!"file".equals(uri.getScheme()) || uri.getPath() == null) {
+            return null;
+        }
 
-    }
-    private ScheduledThreadPoolExecutor executor=null;
-    @ReactMethod
-    public void prepare(final String playerId, String path,final ReadableMap options, final Callback callback) {
-        final MediaPlayer cekPlayer = this.playerPool.get(playerId);
-        if (cekPlayer == null) {
-            if (path == null || path.isEmpty()) {
-                callback.invoke(errObj("nopath", "Provided path was empty"));
-                return;
-            }
-            this.lastPlayerId = playerId;
+        File source = new File(uri.getPath());
+        if (!source.isFile()) {
+            return null;
+        }
 
-            Uri uri = uriFromPath(path);
+        File directory = new File(this.context.getCacheDir(), "rctaudiotoolkit-waveforms");
+        directory.mkdirs();
+        String key = MediaCache.keyFor(source.getAbsolutePath() + "#" + source.length() + "#"
+                + source.lastModified() + "#" + buckets);
+        return new File(directory, key);
+    }
 
-            //MediaPlayer player = MediaPlayer.create(this.context, uri, null, attributes);
-            final MediaPlayer player = new MediaPlayer();
-            try {
-                Log.d(LOG_TAG, uri.getPath());
-                player.setDataSource(this.context, uri);
-            } catch (IOException e) {
-                callback.invoke(errObj("invalidpath", e.toString()));
-                return;
-            }
-            setListener(player,playerId,callback,options);
-            try {
-                player.prepareAsync();
-            } catch (Exception e) {
-                callback.invoke(errObj("prepare", e.toString()));
-            }
-        }else{
-            setListener(cekPlayer,playerId,callback,options);
-            callback.invoke(null, getInfo(cekPlayer));
+    @ReactMethod
+    public void setResolverOptions(ReadableMap options, Callback callback) {
+        if (options.hasKey("fileTtl") && !options.isNull("fileTtl")) {
+            this.pathResolver.setFileTtl((long) options.getDouble("fileTtl"));
+        } else {
+            this.pathResolver.clear();
         }
+        callback.invoke();
     }
-    private void setListener(final MediaPlayer player,
-                             final String playerId,final Callback callback,final ReadableMap options){
+
+    // The prepare callback is completed exactly once, by onPrepared or by an error while preparing
+    private void setListener(final MediaPlayer player, final String playerId, final String path,
+                             Callback callback, final ReadableMap options){
+        final AtomicReference<Callback> pendingPrepare = new AtomicReference<>(callback);
         player.setOnErrorListener(new MediaPlayer.OnErrorListener() {
             @Override
             public boolean onError(MediaPlayer mp, int what, int extra) {
@@ -305,6 +1236,15 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
                 data.putMap("err", err);
                 data.putString("message", "Android MediaPlayer error");
                 emitEvent(playerId, "error", data);
+
+                Callback prepareCallback = pendingPrepare.getAndSet(null);
+                if (prepareCallback != null) {
+                    // Not registered yet, nothing else refers to it
+                    mp.release();
+                    prepareCallback.invoke(errObj(AudioErrors.PREPARE,
+                            "Preparing failed with MediaPlayer error " + what + ", " + extra));
+                    return true;
+                }
                 destroy(playerId);
                 return true; // don't call onCompletion listener afterwards
             }
@@ -312,6 +1252,14 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
         player.setOnInfoListener(new MediaPlayer.OnInfoListener() {
             @Override
             public boolean onInfo(MediaPlayer mp, int what, int extra) {
+                PlayerRegistry.PlayerState state = playerPool.state(playerId);
+                if (state != null && what == MediaPlayer.MEDIA_INFO_BUFFERING_START) {
+                    state.stallStarted = SystemClock.uptimeMillis();
+                } else if (state != null && what == MediaPlayer.MEDIA_INFO_BUFFERING_END && state.stallStarted > 0) {
+                    metrics.record(AudioMetrics.BUFFERING_STALL, SystemClock.uptimeMillis() - state.stallStarted);
+                    state.stallStarted = 0;
+                }
+
                 WritableMap info = new WritableNativeMap();
                 info.putInt("what", what);
                 info.putInt("extra", extra);
@@ -329,29 +1277,72 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
             public void onCompletion(MediaPlayer mp) {
                 WritableMap data = new WritableNativeMap();
                 WritableMap info = Arguments.createMap();
-                info.putDouble("position", mp.getCurrentPosition());
-                info.putString("positionReadable", convertDurationMillis(mp.getDuration()-player.getCurrentPosition()));
+                PlayerRegistry.PlayerState state = playerPool.state(playerId);
+                int position = mp.getCurrentPosition();
+                info.putDouble("position", position);
+                if (state != null && state.readableTimes) {
+                    int duration = state.duration >= 0 ? state.duration : mp.getDuration();
+                    info.putString("positionReadable", convertDurationMillis(duration - position));
+                }
 
                 data.putMap("info", info);
+                // Looping players never complete, the platform restarts them itself
                 mp.seekTo(0);
-                if (looping) {
-                    mp.start();
-                    data.putString("message", "Media playback looped");
-                    emitEvent(playerId, "looped", data);
-                } else {
-                    data.putString("message", "Playback completed");
-
-                    emitEvent(playerId, "ended", data);
-                }
+                data.putString("message", "Playback completed");
+                emitEvent(playerId, "ended", data);
             }
         });
         player.setOnSeekCompleteListener(new MediaPlayer.OnSeekCompleteListener() {
             @Override
             public void onSeekComplete(MediaPlayer mp) {
-                Callback callback = playerSeekCallback.get(playerId);
+                PlayerRegistry.PlayerState state = playerPool.state(playerId);
+                if (state != null && state.seekStarted > 0) {
+                    metrics.record(AudioMetrics.SEEK, SystemClock.uptimeMillis() - state.seekStarted);
+                    state.seekStarted = 0;
+                }
+                if (state != null && state.quietSeek) {
+                    // Wrapped by the loop monitor or restored after eviction, nothing to report
+                    state.quietSeek = false;
+                    return;
+                }
+
+                List<Callback> seekWaiters = null;
+                int nextSeek = -1;
+                boolean fast = false;
+                if (state != null) {
+                    synchronized (state) {
+                        if (state.seekInFlight) {
+                            if (state.pendingSeek >= 0) {
+                                nextSeek = state.pendingSeek;
+                                state.pendingSeek = -1;
+                                fast = state.scrubbing && state.fastSeek;
+                                state.lastSeekFast = fast;
+                            } else {
+                                state.seekInFlight = false;
+                                seekWaiters = state.seekWaiters;
+                                state.seekWaiters = new ArrayList<>();
+                            }
+                        }
+                    }
+                }
+                if (nextSeek >= 0) {
+                    // Only the newest target of a coalesced run is reported
+                    state.seekStarted = SystemClock.uptimeMillis();
+                    seekTo(mp, nextSeek, fast);
+                    return;
+                }
+
+                Callback callback = state != null ? state.seekCallback.getAndSet(null) : null;
                 if (callback != null) {
-                    callback.invoke(null, getInfo(mp));
-                    playerSeekCallback.remove(playerId);
+                    callback.invoke(null, getInfo(playerId, mp));
+                }
+                if (seekWaiters != null && !seekWaiters.isEmpty()) {
+                    // Superseded seeks complete without info, the newest one gets it
+                    int last = seekWaiters.size() - 1;
+                    for (int i = 0; i < last; i++) {
+                        seekWaiters.get(i).invoke();
+                    }
+                    seekWaiters.get(last).invoke(null, getInfo(playerId, mp));
                 }
                 WritableMap data = new WritableNativeMap();
                 data.putString("message", "Seek operation completed");
@@ -370,157 +1361,658 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements
         player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() { // Async preparing, so we need to run the callback after preparing has finished
             @Override
             public void onPrepared(MediaPlayer player) {
-                AudioPlayerModule.this.playerPool.put(playerId, player);
+                AudioPlayerModule.this.playerPool.put(playerId, player, path, options);
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                if (state != null) {
+                    state.duration = player.getDuration();
+                    // A player prepared again after eviction keeps its speed and pitch
+                    state.paramsPending = state.speed != 1.0f || state.pitch != 1.0f;
+                    state.readableTimes = options.hasKey("readableTimes") && !options.isNull("readableTimes")
+                            && options.getBoolean("readableTimes");
+                }
                 AudioPlayerModule.this.mixWithOthers = false;
                 if (options.hasKey("mixWithOthers")) {
                     AudioPlayerModule.this.mixWithOthers = options.getBoolean("mixWithOthers");
                 }
-                callback.invoke(null, getInfo(player));
+                if (options.hasKey("progressInterval") && !options.isNull("progressInterval")) {
+                    subscribeProgress(playerId, options.getInt("progressInterval"));
+                }
+                Callback prepareCallback = pendingPrepare.getAndSet(null);
+                if (prepareCallback != null) {
+                    prepareCallback.invoke(null, getInfo(playerId, player));
+                }
             }
         });
     }
 
     @ReactMethod
-    public void set(final String playerId, ReadableMap options, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+    public void set(final String playerId, final ReadableMap options, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
+
+                if (options.hasKey("wakeLock")) {
+                    // TODO: can we disable the wake lock also?
+                    if (options.getBoolean("wakeLock")) {
+                        player.setWakeMode(AudioPlayerModule.this.context, PowerManager.PARTIAL_WAKE_LOCK);
+                        PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                        if (state != null) {
+                            state.wakeLock = true;
+                        }
+                    }
+                }
+
+                if (options.hasKey("volume") && !options.isNull("volume")) {
+                    double vol = options.getDouble("volume");
+                    player.setVolume((float) vol, (float) vol);
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    if (state != null) {
+                        state.volume = (float) vol;
+                        StretchPlayer stretch = state.stretch;
+                        if (stretch != null) {
+                            stretch.setVolume((float) vol);
+                        }
+                    }
+                }
+
+                if (options.hasKey("looping") && !options.isNull("looping")) {
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    boolean hasLoopRegion = false;
+                    if (state != null) {
+                        state.looping = options.getBoolean("looping");
+                        hasLoopRegion = state.loopEnd >= 0;
+                        StretchPlayer stretch = state.stretch;
+                        if (stretch != null) {
+                            stretch.setLooping(state.looping);
+                        }
+                    }
+                    // Loop inside the platform player, seeking back from onCompletion leaves a gap
+                    player.setLooping(options.getBoolean("looping") || hasLoopRegion);
+                }
+
+                if (options.hasKey("speed") || options.hasKey("pitch")) {
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    float speed = state != null ? state.speed : 1.0f;
+                    float pitch = state != null ? state.pitch : 1.0f;
+                    if (options.hasKey("speed") && !options.isNull("speed")) {
+                        speed = (float) options.getDouble("speed");
+                    }
+                    if (options.hasKey("pitch") && !options.isNull("pitch")) {
+                        pitch = (float) options.getDouble("pitch");
+                    }
+
+                    // Unchanged values are not applied again, JS sends the speed along with every prepare
+                    if (state != null && (speed != state.speed || pitch != state.pitch)) {
+                        float previousSpeed = state.speed;
+                        float previousPitch = state.pitch;
+                        state.speed = speed;
+                        state.pitch = pitch;
+
+                        // `PlaybackParams` was only added in API 23, older devices stretch decoded PCM instead
+                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                            if (player.isPlaying()) {
+                                applyPlaybackParams(state, player);
+                            } else {
+                                state.paramsPending = true;
+                            }
+                        } else {
+                            try {
+                                updateStretch(playerId, state, player);
+                            } catch (IOException | RuntimeException e) {
+                                state.speed = previousSpeed;
+                                state.pitch = previousPitch;
+                                callback.invoke(errObj(AudioErrors.NOT_SUPPORTED, "Could not change speed or pitch: " + e.toString()));
+                                return;
+                            }
+                        }
+                    }
+                }
+
+                callback.invoke();
+            }
+        });
+    }
+
+    // Sets the cached speed and pitch in one call. A playing player is neither paused nor restarted.
+    @TargetApi(23)
+    private static void applyPlaybackParams(PlayerRegistry.PlayerState state, MediaPlayer player) {
+        state.paramsPending = false;
+        player.setPlaybackParams(new PlaybackParams().setSpeed(state.speed).setPitch(state.pitch));
+    }
+
+    // Before API 23, a player whose speed or pitch differ from 1 is handed over to a StretchPlayer at
+    // its current position, and handed back to its MediaPlayer once both are 1 again. Must be called
+    // on the player's lane.
+    private void updateStretch(final String playerId, PlayerRegistry.PlayerState state, MediaPlayer player)
+            throws IOException {
+        boolean stretched = state.speed != 1.0f || state.pitch != 1.0f;
+        StretchPlayer stretch = state.stretch;
+
+        if (stretch != null) {
+            if (stretched) {
+                stretch.setParams(state.speed, state.pitch);
+                return;
+            }
+
+            boolean wasPlaying = stretch.isPlaying();
+            int position = stretch.getCurrentPosition();
+            state.stretch = null;
+            stretch.release();
+            player.seekTo(position);
+            if (wasPlaying) {
+                this.playerPool.start(playerId);
+            }
             return;
         }
 
-        if (options.hasKey("wakeLock")) {
-            // TODO: can we disable the wake lock also?
-            if (options.getBoolean("wakeLock")) {
-                player.setWakeMode(this.context, PowerManager.PARTIAL_WAKE_LOCK);
+        if (!stretched) {
+            return;
+        }
+
+        String path;
+        synchronized (state) {
+            path = state.path;
+        }
+        // Decoded while the MediaPlayer keeps playing, the hand over happens at its position afterwards
+        MixerCore.Sample sample = PcmDecoder.decode(this.context, uriFromPath(path), MAX_STRETCH_SAMPLES, false);
+        stretch = new StretchPlayer(sample, new StretchPlayer.Listener() {
+            @Override
+            public void onCompletion(StretchPlayer stretchPlayer) {
+                WritableMap info = Arguments.createMap();
+                info.putDouble("position", stretchPlayer.getDuration());
+
+                WritableMap data = new WritableNativeMap();
+                data.putMap("info", info);
+                data.putString("message", "Playback completed");
+                emitEvent(playerId, "ended", data);
             }
+        });
+        stretch.setParams(state.speed, state.pitch);
+        stretch.setLooping(state.looping);
+        stretch.setVolume(state.volume);
+
+        boolean wasPlaying = player.isPlaying();
+        stretch.seekTo(player.getCurrentPosition());
+        if (wasPlaying) {
+            player.pause();
+            stretch.play();
         }
+        state.stretch = stretch;
+    }
+
+    @ReactMethod
+    public void play(final String playerId, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                MediaPlayer player = AudioPlayerModule.this.playerPool.get(playerId);
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                if (player != null && state != null && state.stretch != null) {
+                    if (!AudioPlayerModule.this.mixWithOthers) {
+                        AudioPlayerModule.this.mAudioManager.requestAudioFocus(AudioPlayerModule.this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+                    }
+                    state.stretch.play();
+                    callback.invoke(null, getInfo(playerId, player));
+                    return;
+                }
+                if (player == null) {
+                    final PlayerRegistry.Source source = AudioPlayerModule.this.playerPool.takeEvicted(playerId);
+                    if (source == null) {
+                        callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                        return;
+                    }
+
+                    // Transparently prepare an evicted player again before starting it
+                    preparePlayer(playerId, source.path, source.options, new Callback() {
+                        @Override
+                        public void invoke(Object... args) {
+                            if (args.length > 0 && args[0] != null) {
+                                callback.invoke(args[0]);
+                            } else {
+                                restoreEvicted(playerId, source.position);
+                                play(playerId, callback);
+                            }
+                        }
+                    });
+                    return;
+                }
+
+                try {
+                    if (!AudioPlayerModule.this.mixWithOthers) {
+                        AudioPlayerModule.this.mAudioManager.requestAudioFocus(AudioPlayerModule.this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+                    }
+                    long playStarted = SystemClock.uptimeMillis();
+                    int startPosition = player.getCurrentPosition();
+                    player = AudioPlayerModule.this.playerPool.start(playerId);
+                    if (player == null) {
+                        // Evicted while requesting focus, prepare it again
+                        play(playerId, callback);
+                        return;
+                    }
+                    if (state != null && state.paramsPending && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                        applyPlaybackParams(state, player);
+                    }
+                    kickProgressTick();
+                    probeFirstAudio(playerId, playStarted, startPosition);
+                    if (state != null && state.loopEnd >= 0) {
+                        kickLoopTick();
+                    }
+
+                    callback.invoke(null, getInfo(playerId, player));
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.PLAYBACK, e.toString()));
+                }
+            }
+        });
+    }
 
-        if (options.hasKey("volume") && !options.isNull("volume")) {
-            double vol = options.getDouble("volume");
-            player.setVolume((float) vol, (float) vol);
+    // Applies the settings and position an evicted player had to the player it was prepared into again
+    private void restoreEvicted(String playerId, int position) {
+        PlayerRegistry.PlayerState state = this.playerPool.state(playerId);
+        MediaPlayer player = this.playerPool.peek(playerId);
+        if (state == null || player == null) {
+            return;
         }
 
-        if (options.hasKey("looping") && !options.isNull("looping")) {
-            this.looping = options.getBoolean("looping");
+        try {
+            player.setVolume(state.volume, state.volume);
+            player.setLooping(state.looping || state.loopEnd >= 0);
+            if (state.wakeLock) {
+                player.setWakeMode(this.context, PowerManager.PARTIAL_WAKE_LOCK);
+            }
+            if (position > 0) {
+                state.quietSeek = true;
+                seekTo(player, position, false);
+            }
+        } catch (IllegalStateException e) {
+            state.quietSeek = false;
+            Log.w(LOG_TAG, "Could not restore evicted player " + playerId + ": " + e);
         }
+    }
+
+    @ReactMethod
+    public void queuePrepare(final String queueId, final ReadableArray items, final ReadableMap options,
+                             final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue oldQueue = AudioPlayerModule.this.queues.remove(queueId);
+                if (oldQueue != null) {
+                    oldQueue.release();
+                }
+
+                List<String> paths = new ArrayList<>();
+                for (int i = 0; i < items.size(); i++) {
+                    ReadableMap item = items.getMap(i);
+                    if (!item.hasKey("path") || item.isNull("path") || item.getString("path").isEmpty()) {
+                        callback.invoke(errObj(AudioErrors.NO_PATH, "Queue item " + i + " has an empty path"));
+                        return;
+                    }
+                    paths.add(item.getString("path"));
+                }
+                if (paths.isEmpty()) {
+                    callback.invoke(errObj(AudioErrors.NO_ITEMS, "Provided queue was empty"));
+                    return;
+                }
+
+                int preload = 1;
+                boolean looping = false;
+                int startIndex = 0;
+                if (options.hasKey("preload") && !options.isNull("preload")) {
+                    preload = options.getInt("preload");
+                }
+                if (options.hasKey("looping") && !options.isNull("looping")) {
+                    looping = options.getBoolean("looping");
+                }
+                if (options.hasKey("startIndex") && !options.isNull("startIndex")) {
+                    startIndex = Math.max(0, Math.min(paths.size() - 1, options.getInt("startIndex")));
+                }
 
-        // `PlaybackParams` was only added in API 23
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && (options.hasKey("speed") || options.hasKey("pitch"))) {
-            PlaybackParams params = new PlaybackParams();
+                PlayerQueue queue = new PlayerQueue(queueId, AudioPlayerModule.this.context,
+                        AudioPlayerModule.this.pathResolver, paths, preload, looping, queueListener);
+                if (options.hasKey("volume") && !options.isNull("volume")) {
+                    queue.setVolume((float) options.getDouble("volume"));
+                }
+                AudioPlayerModule.this.queues.put(queueId, queue);
+                queue.start(startIndex, callback);
+            }
+        });
+    }
 
-            boolean needToPauseAfterSet = false;
-            if (options.hasKey("speed") && !options.isNull("speed")) {
-                // If the player wasn't already playing, then setting the speed value to a non-zero value
-                // will start it playing and we don't want that so we need to make sure to pause it straight
-                // after setting the speed value
-                boolean wasAlreadyPlaying = player.isPlaying();
-                float speedValue = (float) options.getDouble("speed");
-                needToPauseAfterSet = !wasAlreadyPlaying && speedValue != 0.0f;
+    @ReactMethod
+    public void queuePlay(final String queueId, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.get(queueId);
+                if (queue == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "queueId " + queueId + " not found."));
+                    return;
+                }
 
-                params.setSpeed(speedValue);
+                try {
+                    if (!AudioPlayerModule.this.mixWithOthers) {
+                        AudioPlayerModule.this.mAudioManager.requestAudioFocus(AudioPlayerModule.this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+                    }
+                    AudioPlayerModule.this.lastPlayerId = queueId;
+                    queue.play();
+                    callback.invoke(null, queue.getInfo());
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.PLAYBACK, e.toString()));
+                }
             }
+        });
+    }
+
+    @ReactMethod
+    public void queuePause(final String queueId, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.get(queueId);
+                if (queue == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "queueId " + queueId + " not found."));
+                    return;
+                }
 
-            if (options.hasKey("pitch") && !options.isNull("pitch")) {
-                params.setPitch((float) options.getDouble("pitch"));
+                try {
+                    queue.pause();
+                    callback.invoke(null, queue.getInfo());
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.PAUSE, e.toString()));
+                }
             }
+        });
+    }
 
-            player.setPlaybackParams(params);
+    @ReactMethod
+    public void queueSkip(final String queueId, final Integer index, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.get(queueId);
+                if (queue == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "queueId " + queueId + " not found."));
+                    return;
+                }
+                if (index == null || index < 0 || index >= queue.size()) {
+                    callback.invoke(errObj(AudioErrors.INVALID_INDEX, "Queue index " + index + " is out of range", false));
+                    return;
+                }
 
-            if (needToPauseAfterSet) {
-                player.pause();
+                queue.skip(index);
+                callback.invoke(null, queue.getInfo());
             }
-        }
+        });
+    }
 
-        callback.invoke();
+    @ReactMethod
+    public void queueSet(final String queueId, final ReadableMap options, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.get(queueId);
+                if (queue == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "queueId " + queueId + " not found."));
+                    return;
+                }
+
+                if (options.hasKey("volume") && !options.isNull("volume")) {
+                    queue.setVolume((float) options.getDouble("volume"));
+                }
+                if (options.hasKey("looping") && !options.isNull("looping")) {
+                    queue.setLooping(options.getBoolean("looping"));
+                }
+                if (options.hasKey("preload") && !options.isNull("preload")) {
+                    queue.setPreload(options.getInt("preload"));
+                }
+                callback.invoke();
+            }
+        });
     }
 
     @ReactMethod
-    public void play(final String playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
-            return;
-        }
+    public void queueGetInfo(final String queueId, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.get(queueId);
+                if (queue == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "queueId " + queueId + " not found."));
+                    return;
+                }
 
-        try {
-            if (!this.mixWithOthers) {
-                this.mAudioManager.requestAudioFocus(this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+                callback.invoke(null, queue.getInfo());
             }
-            player.start();
+        });
+    }
 
-            callback.invoke(null, getInfo(player));
-        } catch (Exception e) {
-            callback.invoke(errObj("playback", e.toString()));
-        }
+    @ReactMethod
+    public void queueDestroy(final String queueId, final Callback callback) {
+        mediaExecutor.execute(queueId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerQueue queue = AudioPlayerModule.this.queues.remove(queueId);
+                if (queue != null) {
+                    queue.release();
+
+                    WritableMap data = new WritableNativeMap();
+                    data.putString("message", "Destroyed queue");
+                    emitEvent(queueId, "info", data);
+                }
+                callback.invoke();
+            }
+        });
     }
 
     @ReactMethod
-    public void pause(final String playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+    public void subscribeProgress(final String playerId, Integer interval, Callback callback) {
+        if (interval == null || interval <= 0) {
+            callback.invoke(errObj(AudioErrors.INVALID_INTERVAL, "Progress interval must be greater than 0", false));
             return;
         }
 
-        try {
+        subscribeProgress(playerId, interval);
+        callback.invoke();
+    }
 
-            player.pause();
+    @ReactMethod
+    public void unsubscribeProgress(final String playerId, Callback callback) {
+        unsubscribeProgress(playerId);
+        callback.invoke();
+    }
 
-            WritableMap info = getInfo(player);
+    @ReactMethod
+    public void pause(final String playerId, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
 
-            WritableMap data = new WritableNativeMap();
-            data.putString("message", "Playback paused");
-            data.putMap("info", info);
+                try {
 
-            emitEvent(playerId, "pause", data);
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    if (state != null && state.stretch != null) {
+                        state.stretch.pause();
+                    } else {
+                        player.pause();
+                    }
 
-            callback.invoke(null, getInfo(player));
+                    WritableMap info = getInfo(playerId, player);
 
-        } catch (Exception e) {
-            callback.invoke(errObj("pause", e.toString()));
-        }
+                    WritableMap data = new WritableNativeMap();
+                    data.putString("message", "Playback paused");
+                    data.putMap("info", info);
+
+                    emitEvent(playerId, "pause", data);
+
+                    callback.invoke(null, getInfo(playerId, player));
+
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.PAUSE, e.toString()));
+                }
+            }
+        });
     }
 
     @ReactMethod
-    public void stop(final String playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
-            return;
-        }
+    public void stop(final String playerId, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
 
-        try {
+                try {
 
-            Callback oldCallback = this.playerSeekCallback.get(playerId);
+                    PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                    StretchPlayer stretch = state.stretch;
+                    if (stretch != null) {
+                        stretch.pause();
+                        stretch.seekTo(0);
+                        callback.invoke(null, getInfo(playerId, player));
+                        return;
+                    }
 
-            if (oldCallback != null) {
-                oldCallback.invoke(errObj("seekfail", "Playback stopped before seek operation could finish"));
-                this.playerSeekCallback.remove(playerId);
+                    Callback oldCallback = state.seekCallback.getAndSet(callback);
+
+                    if (oldCallback != null) {
+                        oldCallback.invoke(errObj(AudioErrors.SEEK_FAIL, "Playback stopped before seek operation could finish"));
+                    }
+
+                    state.seekStarted = SystemClock.uptimeMillis();
+                    player.seekTo(0);
+                    player.pause();
+
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.STOP, e.toString()));
+                }
             }
+        });
+    }
 
-            this.playerSeekCallback.put(playerId, callback);
+    @ReactMethod
+    public void setLoopRegion(final String playerId, final ReadableMap region, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PlayerRegistry.PlayerState state = AudioPlayerModule.this.playerPool.state(playerId);
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (state == null || player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
 
-            player.seekTo(0);
-            player.pause();
+                int start = -1;
+                int end = -1;
+                if (region != null && region.hasKey("start") && !region.isNull("start")) {
+                    start = region.getInt("start");
+                }
+                if (region != null && region.hasKey("end") && !region.isNull("end")) {
+                    end = region.getInt("end");
+                }
 
-        } catch (Exception e) {
-            callback.invoke(errObj("stop", e.toString()));
-        }
+                if (start < 0 && end < 0) {
+                    state.loopStart = -1;
+                    state.loopEnd = -1;
+                    player.setLooping(state.looping);
+                    callback.invoke();
+                    return;
+                }
+
+                int duration = state.duration >= 0 ? state.duration : player.getDuration();
+                start = Math.max(0, start);
+                if (end < 0 || (duration > 0 && end > duration)) {
+                    end = duration;
+                }
+                if (end - start < MIN_LOOP_LENGTH_MS) {
+                    callback.invoke(errObj(AudioErrors.INVALID_OPTION, "Loop region must be at least " + MIN_LOOP_LENGTH_MS + "ms long"));
+                    return;
+                }
+
+                if (start == 0 && end >= duration) {
+                    // The whole file, the platform player loops that without a gap
+                    state.loopStart = -1;
+                    state.loopEnd = -1;
+                    player.setLooping(true);
+                } else {
+                    state.loopStart = start;
+                    state.loopEnd = end;
+                    state.regionLoops = 0;
+                    // The monitor wraps before the end of the file, completion must not stop playback
+                    player.setLooping(true);
+                    kickLoopTick();
+                }
+
+                callback.invoke();
+            }
+        });
     }
 
+    // Cheap position polling: reads the position under the player's lock right away instead of
+    // queueing on the media control lane, and returns plain numbers instead of an info map
     @ReactMethod
-    public void getCurrentTime(final String playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+    public void getSnapshot(final String playerId, final Callback callback) {
+        PlayerRegistry.PlayerState state = this.playerPool.state(playerId);
+        if (state == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found.", false));
             return;
         }
 
-        try {
-            callback.invoke(null, getInfo(player));
-        } catch (Exception e) {
-            callback.invoke(errObj("getCurrentTime", e.toString()));
+        int position;
+        int duration;
+        boolean playing;
+        synchronized (state) {
+            MediaPlayer player = state.player;
+            if (player == null) {
+                callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not prepared.", false));
+                return;
+            }
+
+            try {
+                StretchPlayer stretch = state.stretch;
+                position = stretch != null ? stretch.getCurrentPosition() : player.getCurrentPosition();
+                duration = state.duration >= 0 ? state.duration : player.getDuration();
+                playing = stretch != null ? stretch.isPlaying() : player.isPlaying();
+            } catch (IllegalStateException e) {
+                callback.invoke(errObj(AudioErrors.GET_SNAPSHOT, e.toString(), false));
+                return;
+            }
         }
+
+        callback.invoke(null, (double) position, (double) duration, playing);
+    }
+
+    @ReactMethod
+    public void getCurrentTime(final String playerId, final Callback callback) {
+        mediaExecutor.execute(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                MediaPlayer player = AudioPlayerModule.this.playerPool.peek(playerId);
+                if (player == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+                    return;
+                }
+
+                try {
+                    callback.invoke(null, getInfo(playerId, player));
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.GET_CURRENT_TIME, e.toString()));
+                }
+            }
+        });
     }
 
     // Audio Focus
@@ -2,8 +2,13 @@ package com.reactnativecommunity.rctaudiotoolkit;
 
 import android.annotation.TargetApi;
 import android.media.MediaRecorder;
+import android.util.Base64;
 import android.util.Log;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.webkit.URLUtil;
 import android.content.ContextWrapper;
 
@@ -13,37 +18,38 @@ import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
-import java.io.IOException;
 import java.io.File;
 import java.lang.Thread;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class AudioRecorderModule extends ReactContextBaseJavaModule implements
         MediaRecorder.OnInfoListener, MediaRecorder.OnErrorListener {
     private static final String LOG_TAG = "AudioRecorderModule";
+    private static final int MIN_STREAM_SLOTS = 4;
 
-    Map<Integer, MediaRecorder> recorderPool = new HashMap<>();
-    Map<Integer, Boolean> recorderAutoDestroy = new HashMap<>();
+    // Touched from the media control lanes and from MediaRecorder callbacks on the main looper
+    final RecorderRegistry recorders = new RecorderRegistry();
 
     private ReactApplicationContext context;
-    private Timer meteringUpdateTimer;
-    private int meteringFrameId = 0;
-    private Integer meteringRecorderId = null;
-    private MediaRecorder meteringRecorder = null;
-    private int meteringInterval = 0;
+    private final MediaExecutor mediaExecutor;
+    private final AudioErrors errors;
+    private final AudioMetrics metrics;
 
-    public AudioRecorderModule(ReactApplicationContext reactContext) {
+    public AudioRecorderModule(ReactApplicationContext reactContext, MediaExecutor mediaExecutor,
+                               AudioErrors errors, AudioMetrics metrics) {
         super(reactContext);
         this.context = reactContext;
+        this.mediaExecutor = mediaExecutor;
+        this.errors = errors;
+        this.metrics = metrics;
     }
 
     @Override
@@ -52,6 +58,8 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
     }
 
     private void emitEvent(Integer recorderId, String event, WritableMap data) {
+        metrics.countEvent(event);
+
         WritableMap payload = new WritableNativeMap();
         payload.putString("event", event);
         payload.putMap("data", data);
@@ -62,26 +70,7 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
     }
 
     private WritableMap errObj(final String code, final String message) {
-        WritableMap err = Arguments.createMap();
-
-        String stackTraceString = "";
-        try {
-            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-            for (StackTraceElement e : stackTrace) {
-                stackTraceString += (e != null ? e.toString() : "null") + "\n";
-            }
-        } catch (Exception e) {
-            stackTraceString = "Exception occurred while parsing stack trace";
-        }
-
-        err.putString("err", code);
-        err.putString("message", message);
-        err.putString("stackTrace", stackTraceString);
-
-        Log.e(LOG_TAG, message);
-        Log.d(LOG_TAG, stackTraceString);
-
-        return err;
+        return this.errors.create(LOG_TAG, code, message, true);
     }
 
     private int formatFromName(String name) {
@@ -145,241 +134,596 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
     }
     
     // metering methods
-    private void startMeteringTimer(int monitorInterval) {
-        meteringUpdateTimer = new Timer();
-        meteringUpdateTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (meteringRecorderId != null && meteringRecorder != null) {
-                    WritableMap body = Arguments.createMap();
-                    body.putDouble("id", meteringFrameId++);
-
-                    int amplitude = meteringRecorder.getMaxAmplitude();
-                    if (amplitude == 0) {
-                        body.putInt("value", -160);
-                        body.putInt("rawValue", 0);
-                    } else {
-                        body.putInt("rawValue", amplitude);
-                        body.putInt("value", (int) (20 * Math.log10(((double) amplitude) / 32767d)));
+    private static final int METERING_COALESCE_MS = 4;
+
+    // Metering state of a single recorder, only touched on the metering thread
+    private static class MeteringState {
+        final MediaRecorder recorder; // null for PCM recorders, which feed `meter` themselves
+        final LevelMeter meter;
+        final int interval;
+        boolean active = false;
+        long startTime;
+        long lastFrame;
+        long dropped;
+        long due;
+
+        MeteringState(MediaRecorder recorder, LevelMeter meter, int interval) {
+            this.recorder = recorder;
+            this.meter = meter;
+            this.interval = interval;
+        }
+    }
+
+    private final Map<Integer, MeteringState> meteringStates = new HashMap<>();
+    private HandlerThread meteringThread;
+    private Handler meteringHandler;
+
+    // One shared scheduler for all metered recorders. Every pass publishes the frames of all
+    // recorders due within a few milliseconds in one batched event, then sleeps until the earliest
+    // next deadline. Deadlines are relative to each recorder's start time so they don't drift, and
+    // frames skipped because the thread ran late are counted as dropped.
+    private final Runnable meteringTick = new Runnable() {
+        @Override
+        public void run() {
+            Trace.beginSection("AudioRecorder.meteringTick");
+            try {
+                long now = SystemClock.uptimeMillis();
+                long nextDue = Long.MAX_VALUE;
+                WritableArray batch = null;
+
+                for (Entry<Integer, MeteringState> entry : meteringStates.entrySet()) {
+                    MeteringState state = entry.getValue();
+                    if (!state.active) {
+                        continue;
                     }
-                    emitEvent(meteringRecorderId, "meter", body);
+
+                    if (state.due <= now + METERING_COALESCE_MS) {
+                        long frame = Math.max(state.lastFrame + 1, (now - state.startTime) / state.interval);
+                        state.dropped += frame - state.lastFrame - 1;
+                        state.lastFrame = frame;
+                        state.due = state.startTime + (frame + 1) * state.interval;
+
+                        if (batch == null) {
+                            batch = new WritableNativeArray();
+                        }
+                        batch.pushMap(meterPayload(entry.getKey(), state, frame));
+                        metrics.countEvent("meter");
+                    }
+                    nextDue = Math.min(nextDue, state.due);
+                }
+
+                if (batch != null) {
+                    AudioRecorderModule.this.context
+                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                            .emit("RCTAudioRecorderEvents", batch);
+                }
+
+                if (nextDue != Long.MAX_VALUE) {
+                    meteringHandler.postAtTime(this, nextDue);
                 }
+            } finally {
+                Trace.endSection();
+            }
+        }
+    };
+
+    private WritableMap meterPayload(Integer recorderId, MeteringState state, long frame) {
+        LevelMeter meter = state.meter;
+        if (state.recorder != null) {
+            try {
+                meter.processPeak(state.recorder.getMaxAmplitude());
+            } catch (IllegalStateException e) {
+                // Recorder was released, its state is removed right after this pass
+            }
+        }
+
+        // A MediaRecorder only gives one polled peak per frame, an RMS over that would just be
+        // the peak again, so only recorders that see the samples report it
+        boolean hasRms = state.recorder == null;
+
+        WritableMap body = new WritableNativeMap();
+        body.putDouble("id", frame);
+        body.putDouble("dropped", state.dropped);
+        if (meter.snapshot()) {
+            float peakDb = LevelMeter.toDb(meter.peakLevel);
+            body.putInt("value", (int) peakDb);
+            body.putInt("rawValue", meter.rawPeak);
+            body.putDouble("peak", meter.peakLevel);
+            body.putDouble("peakDb", peakDb);
+            if (hasRms) {
+                body.putDouble("rms", meter.rmsLevel);
+                body.putDouble("rmsDb", LevelMeter.toDb(meter.rmsLevel));
+            }
+        } else {
+            body.putInt("value", (int) LevelMeter.SILENCE_DB);
+            body.putInt("rawValue", 0);
+            body.putDouble("peak", 0);
+            body.putDouble("peakDb", LevelMeter.SILENCE_DB);
+            if (hasRms) {
+                body.putDouble("rms", 0);
+                body.putDouble("rmsDb", LevelMeter.SILENCE_DB);
             }
-        }, 0, monitorInterval);
+        }
+
+        WritableMap payload = new WritableNativeMap();
+        payload.putInt("recorderId", recorderId);
+        payload.putString("event", "meter");
+        payload.putMap("data", body);
+        return payload;
     }
 
-    private void stopMeteringTimer() {
-        if (meteringUpdateTimer != null) {
-            meteringUpdateTimer.cancel();
-            meteringUpdateTimer.purge();
-            meteringUpdateTimer = null;
-            meteringFrameId = 0;
+    private synchronized Handler getMeteringHandler() {
+        if (meteringThread == null) {
+            meteringThread = new HandlerThread("AudioRecorderMetering");
+            meteringThread.start();
+            meteringHandler = new Handler(meteringThread.getLooper());
         }
+        return meteringHandler;
     }
 
-    @ReactMethod
-    public void destroy(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
+    private void rescheduleMetering() {
+        meteringHandler.removeCallbacks(meteringTick);
+        meteringTick.run();
+    }
 
-        if (recorder != null) {
-            recorder.release();
-            this.recorderPool.remove(recorderId);
-            this.recorderAutoDestroy.remove(recorderId);
-            if (recorderId == meteringRecorderId) {
-                meteringRecorderId = null;
-                meteringRecorder = null;
+    private void registerMetering(final Integer recorderId, final MediaRecorder recorder, final LevelMeter meter,
+                                  final int interval) {
+        getMeteringHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                meteringStates.put(recorderId, new MeteringState(recorder, meter, interval));
             }
+        });
+    }
 
-            WritableMap data = new WritableNativeMap();
-            data.putString("message", "Destroyed recorder");
+    private void unregisterMetering(final Integer recorderId) {
+        getMeteringHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                if (meteringStates.remove(recorderId) != null) {
+                    rescheduleMetering();
+                }
+            }
+        });
+    }
 
-            emitEvent(recorderId, "info", data);
-        }
+    private void setMeteringActive(final Integer recorderId, final boolean active) {
+        getMeteringHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                MeteringState state = meteringStates.get(recorderId);
+                if (state == null || state.active == active) {
+                    return;
+                }
 
-        if (callback != null) {
-            callback.invoke();
-        }
+                state.active = active;
+                if (active) {
+                    state.startTime = SystemClock.uptimeMillis();
+                    state.lastFrame = -1;
+                    state.due = state.startTime;
+                }
+                rescheduleMetering();
+            }
+        });
+    }
+
+    private void startMetering(Integer recorderId) {
+        setMeteringActive(recorderId, true);
+    }
+
+    private void stopMetering(Integer recorderId) {
+        setMeteringActive(recorderId, false);
+    }
+
+    @ReactMethod
+    public void destroy(final Integer recorderId, final Callback callback) {
+        mediaExecutor.execute("recorder:" + recorderId, callback, new Runnable() {
+            @Override
+            public void run() {
+                destroyNow(recorderId);
+
+                if (callback != null) {
+                    callback.invoke();
+                }
+            }
+        });
     }
 
     private void destroy(Integer recorderId) {
         this.destroy(recorderId, null);
     }
 
-    @ReactMethod
-    public void prepare(Integer recorderId, String path, ReadableMap options, Callback callback) {
-        if (path == null || path.isEmpty()) {
-            callback.invoke(errObj("invalidpath", "Provided path was empty"));
-            return;
+    // Releases the recorder inline, for use on the recorder's own media control lane
+    private void destroyNow(Integer recorderId) {
+        RecorderRegistry.RecorderState state = this.recorders.remove(recorderId);
+
+        if (state != null) {
+            if (state.pcmRecorder != null) {
+                state.pcmRecorder.release();
+                if (state.stream != null) {
+                    state.stream.end();
+                }
+            } else {
+                state.recorder.release();
+            }
+            unregisterMetering(recorderId);
+
+            WritableMap data = new WritableNativeMap();
+            data.putString("message", "Destroyed recorder");
+
+            emitEvent(recorderId, "info", data);
         }
+    }
 
-        // Release old recorder if exists
-        Log.d(LOG_TAG, "Releasing old recorder...");
-        destroy(recorderId);
+    @ReactMethod
+    public void prepare(final Integer recorderId, final String path, final ReadableMap options, final Callback callback) {
+        mediaExecutor.execute("recorder:" + recorderId, callback, new Runnable() {
+            @Override
+            public void run() {
+                if (path == null || path.isEmpty()) {
+                    callback.invoke(errObj(AudioErrors.INVALID_PATH, "Provided path was empty"));
+                    return;
+                }
+
+                // Release old recorder if exists
+                Log.d(LOG_TAG, "Releasing old recorder...");
+                destroyNow(recorderId);
+
+                Uri uri = uriFromPath(path);
+
+                Log.d(LOG_TAG, uri.getPath());
+
+                if (options.hasKey("engine") && "pcm".equals(options.getString("engine"))) {
+                    preparePcm(recorderId, uri, options, callback);
+                    return;
+                }
+
+                //MediaRecorder recorder = MediaRecorder.create(AudioRecorderModule.this.context, uri, null, attributes);
+                MediaRecorder recorder = new MediaRecorder();
+
+                // TODO: allow configuring?
+                recorder.setAudioSource(MediaRecorder.AudioSource.MIC);
+
+                int format = formatFromPath(path);
+                int encoder = encoderFromPath(path);
+                int bitrate = 128000;
+                int channels = 2;
+                int sampleRate = 44100;
+
+                if (options.hasKey("format")) {
+                    format = formatFromName(options.getString("format"));
+                }
+                if (options.hasKey("encoder")) {
+                    encoder = encoderFromName(options.getString("encoder"));
+                }
+                if (options.hasKey("bitrate")) {
+                    bitrate = options.getInt("bitrate");
+                }
+                if (options.hasKey("channels")) {
+                    channels = options.getInt("channels");
+                }
+                if (options.hasKey("sampleRate")) {
+                    sampleRate = options.getInt("sampleRate");
+                }
 
-        Uri uri = uriFromPath(path);
+                recorder.setOutputFormat(format);
+                recorder.setAudioEncoder(encoder);
+                recorder.setAudioEncodingBitRate(bitrate);
+                recorder.setAudioChannels(channels);
+                recorder.setAudioSamplingRate(sampleRate);
 
-        Log.d(LOG_TAG, uri.getPath());
+                Log.d(LOG_TAG, "Recorder using options: (format: " + format + ") (encoder: " + encoder + ") "
+                            + "(bitrate: " + bitrate + ") (channels: " + channels + ") (sampleRate: " + sampleRate + ")");
 
-        //MediaRecorder recorder = MediaRecorder.create(this.context, uri, null, attributes);
-        MediaRecorder recorder = new MediaRecorder();
+                recorder.setOutputFile(uri.getPath());
 
-        // TODO: allow configuring?
-        recorder.setAudioSource(MediaRecorder.AudioSource.MIC);
+                recorder.setOnErrorListener(AudioRecorderModule.this);
+                recorder.setOnInfoListener(AudioRecorderModule.this);
 
-        int format = formatFromPath(path);
-        int encoder = encoderFromPath(path);
-        int bitrate = 128000;
-        int channels = 2;
+                // Auto destroy recorder by default
+                boolean autoDestroy = true;
+
+                if (options.hasKey("autoDestroy")) {
+                    autoDestroy = options.getBoolean("autoDestroy");
+                }
+
+                // Only a prepared recorder is registered and metered
+                try {
+                    long started = SystemClock.uptimeMillis();
+                    recorder.prepare();
+                    metrics.record(AudioMetrics.RECORDER_PREPARE, SystemClock.uptimeMillis() - started);
+                } catch (Exception e) {
+                    recorder.release();
+                    callback.invoke(errObj(AudioErrors.PREPARE_FAIL, e.toString()));
+                    return;
+                }
+
+                AudioRecorderModule.this.recorders.put(
+                        new RecorderRegistry.RecorderState(recorderId, recorder, null, autoDestroy));
+
+                if (options.hasKey("meteringInterval")) {
+                    int meteringInterval = options.getInt("meteringInterval");
+                    if (meteringInterval <= 0) {
+                        Log.w(LOG_TAG, "metering interval must be grater then 0. Ignoring metering");
+                    } else {
+                        registerMetering(recorderId, recorder, new LevelMeter(), meteringInterval);
+                    }
+                }
+
+                callback.invoke(null, uri.getPath());
+            }
+        });
+    }
+
+    private void preparePcm(final Integer recorderId, Uri uri, ReadableMap options, Callback callback) {
+        int channels = 1;
         int sampleRate = 44100;
+        int chunkInterval = 100;
+        String filePath = uri.getPath();
 
-        if (options.hasKey("format")) {
-            format = formatFromName(options.getString("format"));
-        }
-        if (options.hasKey("encoder")) {
-            encoder = encoderFromName(options.getString("encoder"));
-        }
-        if (options.hasKey("bitrate")) {
-            bitrate = options.getInt("bitrate");
-        }
         if (options.hasKey("channels")) {
             channels = options.getInt("channels");
         }
         if (options.hasKey("sampleRate")) {
             sampleRate = options.getInt("sampleRate");
         }
+        if (options.hasKey("chunkInterval")) {
+            chunkInterval = Math.max(10, options.getInt("chunkInterval"));
+        }
+        if (options.hasKey("writeFile") && !options.getBoolean("writeFile")) {
+            filePath = null;
+        }
+        boolean stream = options.hasKey("stream") && !options.isNull("stream") && options.getBoolean("stream");
 
-        recorder.setOutputFormat(format);
-        recorder.setAudioEncoder(encoder);
-        recorder.setAudioEncodingBitRate(bitrate);
-        recorder.setAudioChannels(channels);
-        recorder.setAudioSamplingRate(sampleRate);
-
-        Log.d(LOG_TAG, "Recorder using options: (format: " + format + ") (encoder: " + encoder + ") "
-                    + "(bitrate: " + bitrate + ") (channels: " + channels + ") (sampleRate: " + sampleRate + ")");
-
-        recorder.setOutputFile(uri.getPath());
-
-        recorder.setOnErrorListener(this);
-        recorder.setOnInfoListener(this);
-
-        this.recorderPool.put(recorderId, recorder);
+        Log.d(LOG_TAG, "PCM recorder using options: (channels: " + channels + ") (sampleRate: " + sampleRate
+                + ") (chunkInterval: " + chunkInterval + ")");
 
-        // Auto destroy recorder by default
-        boolean autoDestroy = true;
+        PcmRecorder recorder = new PcmRecorder(sampleRate, channels, chunkInterval, filePath,
+                new PcmRecorder.Listener() {
+            @Override
+            public void onChunk(byte[] data, int length, long sequence) {
+                RecorderRegistry.RecorderState state = recorders.get(recorderId);
+                PcmStream stream = state != null ? state.stream : null;
+                if (stream != null) {
+                    publishChunk(recorderId, stream, data, length);
+                    return;
+                }
 
-        if (options.hasKey("autoDestroy")) {
-            autoDestroy = options.getBoolean("autoDestroy");
-        }
+                WritableMap body = new WritableNativeMap();
+                body.putDouble("sequence", sequence);
+                body.putInt("length", length);
+                body.putString("data", Base64.encodeToString(data, 0, length, Base64.NO_WRAP));
+                emitEvent(recorderId, "data", body);
+            }
 
-        this.recorderAutoDestroy.put(recorderId, autoDestroy);
+            @Override
+            public void onError(String message) {
+                WritableMap data = new WritableNativeMap();
+                data.putString("message", message);
+                emitEvent(recorderId, "error", data);
+            }
+        });
 
         try {
+            long started = SystemClock.uptimeMillis();
             recorder.prepare();
-
-            callback.invoke(null, uri.getPath());
-        } catch (IOException e) {
-            callback.invoke(errObj("preparefail", e.toString()));
+            metrics.record(AudioMetrics.RECORDER_PREPARE, SystemClock.uptimeMillis() - started);
+        } catch (Exception e) {
+            recorder.release();
+            callback.invoke(errObj(AudioErrors.PREPARE_FAIL, e.toString()));
+            return;
         }
 
         if (options.hasKey("meteringInterval")) {
             int meteringInterval = options.getInt("meteringInterval");
-            if (meteringRecorderId != null) {
-                Log.i(LOG_TAG, "multiple recorder metering are not currently supporter. Metering will be active on the last recorder.");
-            }
             if (meteringInterval <= 0) {
                 Log.w(LOG_TAG, "metering interval must be grater then 0. Ignoring metering");
             } else {
-                meteringRecorder = recorder;
-                meteringRecorderId = recorderId;
-                this.meteringInterval = meteringInterval;
+                recorder.metering = true;
+                registerMetering(recorderId, null, recorder.meter, meteringInterval);
             }
         }
-    }
 
-    @ReactMethod
-    public void record(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
-        if (recorder == null) {
-            callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
-            return;
+        // Auto destroy recorder by default
+        boolean autoDestroy = true;
+
+        if (options.hasKey("autoDestroy")) {
+            autoDestroy = options.getBoolean("autoDestroy");
         }
 
-        try {
-            if (recorderId == meteringRecorderId) {
-                startMeteringTimer(meteringInterval);
+        PcmStream pcmStream = null;
+        if (stream) {
+            // About two seconds of chunks by default, a consumer that falls further behind loses chunks
+            int slots = Math.max(MIN_STREAM_SLOTS, 2000 / chunkInterval);
+            if (options.hasKey("streamSlots") && !options.isNull("streamSlots")) {
+                slots = Math.max(MIN_STREAM_SLOTS, options.getInt("streamSlots"));
             }
-            recorder.start();
+            pcmStream = new PcmStream(slots, recorder.getChunkBytes(), sampleRate, channels);
+        }
 
-            callback.invoke();
-        } catch (Exception e) {
-            callback.invoke(errObj("startfail", e.toString()));
+        this.recorders.put(new RecorderRegistry.RecorderState(recorderId, null, recorder, pcmStream, autoDestroy));
+
+        callback.invoke(null, filePath);
+    }
+
+    // Runs on the delivery thread. JS never hears about single chunks, only about the stream
+    // filling up, and about it being drained to half again.
+    private void publishChunk(Integer recorderId, PcmStream stream, byte[] data, int length) {
+        stream.publish(data, length);
+
+        long pending = stream.getWriteSequence() - stream.getReadSequence();
+        boolean full = stream.signalledFull ? pending > stream.getSlotCount() / 2 : pending >= stream.getSlotCount();
+        if (full != stream.signalledFull) {
+            stream.signalledFull = full;
+
+            WritableMap body = new WritableNativeMap();
+            body.putBoolean("full", full);
+            body.putDouble("pending", pending);
+            body.putDouble("dropped", stream.getDroppedChunks());
+            emitEvent(recorderId, "backpressure", body);
         }
     }
 
+    /**
+     * The shared memory stream of a `'pcm'` recorder prepared with `stream: true`, or null. For
+     * native consumers, e.g. JSI bindings or uploaders, that get this module from the
+     * ReactContext.
+     */
+    public PcmStream getStream(Integer recorderId) {
+        RecorderRegistry.RecorderState state = this.recorders.get(recorderId);
+        return state != null ? state.stream : null;
+    }
+
     @ReactMethod
-    public void stop(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
-        if (recorder == null) {
-            callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
+    public void getStreamStats(Integer recorderId, Callback callback) {
+        PcmStream stream = getStream(recorderId);
+        if (stream == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "recorderId " + recorderId + " has no stream."));
             return;
         }
+        callback.invoke(null, Arguments.makeNativeMap(stream.stats()));
+    }
 
-        try {
-            if (recorderId == meteringRecorderId) {
-                stopMeteringTimer();
+    @ReactMethod
+    public void record(final Integer recorderId, final Callback callback) {
+        mediaExecutor.execute("recorder:" + recorderId, callback, new Runnable() {
+            @Override
+            public void run() {
+                RecorderRegistry.RecorderState state = AudioRecorderModule.this.recorders.get(recorderId);
+                if (state == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "recorderId " + recorderId + "not found."));
+                    return;
+                }
+
+                PcmRecorder pcmRecorder = state.pcmRecorder;
+                if (pcmRecorder != null) {
+                    try {
+                        startMetering(recorderId);
+                        long started = SystemClock.uptimeMillis();
+                        pcmRecorder.start();
+                        metrics.record(AudioMetrics.RECORDER_START, SystemClock.uptimeMillis() - started);
+                        callback.invoke();
+                    } catch (Exception e) {
+                        callback.invoke(errObj(AudioErrors.START_FAIL, e.toString()));
+                    }
+                    return;
+                }
+
+                MediaRecorder recorder = state.recorder;
+
+                try {
+                    startMetering(recorderId);
+                    long started = SystemClock.uptimeMillis();
+                    recorder.start();
+                    metrics.record(AudioMetrics.RECORDER_START, SystemClock.uptimeMillis() - started);
+
+                    callback.invoke();
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.START_FAIL, e.toString()));
+                }
             }
-            recorder.stop();
-            if (this.recorderAutoDestroy.get(recorderId)) {
-                Log.d(LOG_TAG, "Autodestroying recorder...");
-                destroy(recorderId);
+        });
+    }
+
+    @ReactMethod
+    public void stop(final Integer recorderId, final Callback callback) {
+        mediaExecutor.execute("recorder:" + recorderId, callback, new Runnable() {
+            @Override
+            public void run() {
+                RecorderRegistry.RecorderState state = AudioRecorderModule.this.recorders.get(recorderId);
+                if (state == null) {
+                    callback.invoke(errObj(AudioErrors.NOT_FOUND, "recorderId " + recorderId + "not found."));
+                    return;
+                }
+
+                PcmRecorder pcmRecorder = state.pcmRecorder;
+                if (pcmRecorder != null) {
+                    try {
+                        stopMetering(recorderId);
+                        long started = SystemClock.uptimeMillis();
+                        pcmRecorder.stop();
+                        metrics.record(AudioMetrics.RECORDER_STOP, SystemClock.uptimeMillis() - started);
+                        if (state.stream != null) {
+                            state.stream.end();
+                        }
+                        if (state.autoDestroy) {
+                            Log.d(LOG_TAG, "Autodestroying recorder...");
+                            destroyNow(recorderId);
+                        }
+                        callback.invoke();
+                    } catch (Exception e) {
+                        callback.invoke(errObj(AudioErrors.STOP_FAIL, e.toString()));
+                    }
+                    return;
+                }
+
+                MediaRecorder recorder = state.recorder;
+
+                try {
+                    stopMetering(recorderId);
+                    long started = SystemClock.uptimeMillis();
+                    recorder.stop();
+                    metrics.record(AudioMetrics.RECORDER_STOP, SystemClock.uptimeMillis() - started);
+                    if (state.autoDestroy) {
+                        Log.d(LOG_TAG, "Autodestroying recorder...");
+                        destroyNow(recorderId);
+                    }
+                    callback.invoke();
+                } catch (Exception e) {
+                    callback.invoke(errObj(AudioErrors.STOP_FAIL, e.toString()));
+                }
             }
-            callback.invoke();
-        } catch (Exception e) {
-            callback.invoke(errObj("stopfail", e.toString()));
-        }
+        });
     }
 
     @ReactMethod
-    public void pause(Integer recorderId, Callback callback) {
-        if (android.os.Build.VERSION.SDK_INT < 24) {
-            callback.invoke(errObj("notsupported", "Android version doesn't support pause"));
-            return;
-        }
-        pause24(recorderId,callback);
+    public void pause(final Integer recorderId, final Callback callback) {
+        mediaExecutor.execute("recorder:" + recorderId, callback, new Runnable() {
+            @Override
+            public void run() {
+                RecorderRegistry.RecorderState state = AudioRecorderModule.this.recorders.get(recorderId);
+                PcmRecorder pcmRecorder = state != null ? state.pcmRecorder : null;
+                if (pcmRecorder != null) {
+                    // AudioRecord can be paused on every API level
+                    stopMetering(recorderId);
+                    pcmRecorder.pause();
+                    callback.invoke();
+                    return;
+                }
+
+                if (android.os.Build.VERSION.SDK_INT < 24) {
+                    callback.invoke(errObj(AudioErrors.NOT_SUPPORTED, "Android version doesn't support pause"));
+                    return;
+                }
+                pause24(recorderId,callback);
+            }
+        });
     }
 
     @TargetApi(24)
     private void pause24(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
-        if (recorder == null) {
-            callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
+        RecorderRegistry.RecorderState state = this.recorders.get(recorderId);
+        if (state == null || state.recorder == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "recorderId " + recorderId + "not found."));
             return;
         }
 
         try {
-            if (recorderId == meteringRecorderId) {
-                stopMeteringTimer();
-            }
-            recorder.pause();
-            if (this.recorderAutoDestroy.get(recorderId)) {
+            stopMetering(recorderId);
+            state.recorder.pause();
+            if (state.autoDestroy) {
                 Log.d(LOG_TAG, "Autodestroying recorder...");
-                destroy(recorderId);
+                destroyNow(recorderId);
             }
             callback.invoke();
         } catch (Exception e) {
-            callback.invoke(errObj("stopfail", e.toString()));
+            callback.invoke(errObj(AudioErrors.STOP_FAIL, e.toString()));
         }
     }
 
-    // Find recorderId matching recorder from recorderPool
+    // Find recorderId matching recorder from the registry
     private Integer getRecorderId(MediaRecorder recorder) {
-        for (Entry<Integer, MediaRecorder> entry : recorderPool.entrySet()) {
-            if (Objects.equals(recorder, entry.getValue())) {
-                return entry.getKey();
-            }
-        }
-
-        return null;
+        return recorders.idOf(recorder);
     }
 
     @Override
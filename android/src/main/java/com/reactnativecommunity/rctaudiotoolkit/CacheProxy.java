@@ -0,0 +1,362 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loopback HTTP server that sits between MediaPlayer and remote media. Requests are answered from
+ * the MediaCache when the file is cached, otherwise from the cache's download as it progresses.
+ * Range requests for seeks far ahead of the download are passed through to the origin so that
+ * seeking never waits for the whole file.
+ *
+ * Other apps can connect to the loopback port as well, so only URLs handed out by uriFor() are
+ * served: each one is addressed by a random token, any other request is refused.
+ */
+class CacheProxy {
+    private static final String LOG_TAG = "CacheProxy";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // Seeks up to this far beyond the downloaded bytes wait for the download instead of passing through
+    private static final long MAX_WAIT_AHEAD = 512 * 1024;
+
+    private final MediaCache cache;
+    private final SecureRandom random = new SecureRandom();
+    // Proxied URLs by token and the other way around
+    private final ConcurrentHashMap<String, String> urls = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> tokens = new ConcurrentHashMap<>();
+    // Both created by start() and shut down by stop()
+    private ExecutorService clientExecutor;
+    private ServerSocket serverSocket;
+
+    CacheProxy(MediaCache cache) {
+        this.cache = cache;
+    }
+
+    MediaCache getCache() {
+        return cache;
+    }
+
+    // Returns the loopback URI playing `url` through the cache, or the plain URI if it can't be
+    Uri uriFor(String url) {
+        String proxied = urlFor(url);
+        return Uri.parse(proxied != null ? proxied : url);
+    }
+
+    // Returns the loopback URL playing `url` through the cache, or null for URLs that are not
+    // cached or when the proxy is down
+    synchronized String urlFor(String url) {
+        if (!MediaCache.isCacheable(url)) {
+            return null;
+        }
+
+        try {
+            start();
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Could not start cache proxy: " + e.toString());
+            return null;
+        }
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/" + tokenFor(url);
+    }
+
+    private String tokenFor(String url) {
+        String token = tokens.get(url);
+        if (token != null) {
+            return token;
+        }
+
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        token = hex.toString();
+        urls.put(token, url);
+        tokens.put(url, token);
+        return token;
+    }
+
+    private void start() throws IOException {
+        if (serverSocket != null && !serverSocket.isClosed()) {
+            return;
+        }
+
+        final ServerSocket socket = new ServerSocket(0, 8, InetAddress.getByName("127.0.0.1"));
+        final ExecutorService clientExecutor = Executors.newCachedThreadPool();
+        serverSocket = socket;
+        this.clientExecutor = clientExecutor;
+
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!socket.isClosed()) {
+                    try {
+                        final Socket client = socket.accept();
+                        clientExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(client);
+                            }
+                        });
+                    } catch (IOException e) {
+                        if (!socket.isClosed()) {
+                            Log.w(LOG_TAG, "Accepting connection failed: " + e.toString());
+                        }
+                    }
+                }
+            }
+        }, "CacheProxy");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    // Stops the accept thread, the clients being served and the downloads. uriFor() starts it again.
+    synchronized void stop() {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            serverSocket = null;
+        }
+        if (clientExecutor != null) {
+            // Clients waiting for the download are interrupted
+            clientExecutor.shutdownNow();
+            clientExecutor = null;
+        }
+        cache.stopDownloads();
+    }
+
+    private void serve(Socket client) {
+        try {
+            InputStream in = client.getInputStream();
+            OutputStream out = client.getOutputStream();
+
+            String[] request = readRequestHead(in);
+            if (request == null) {
+                return;
+            }
+
+            String url = urls.get(request[0]);
+            if (url == null) {
+                out.write("HTTP/1.1 404 Not Found\r\nConnection: close\r\n\r\n".getBytes("ISO-8859-1"));
+                return;
+            }
+
+            long rangeStart = 0;
+            long rangeEnd = -1;
+            boolean isRange = false;
+            if (request[1] != null && request[1].startsWith("bytes=")) {
+                String[] range = request[1].substring(6).split("-", -1);
+                try {
+                    rangeStart = Long.parseLong(range[0].trim());
+                    if (range.length > 1 && !range[1].trim().isEmpty()) {
+                        rangeEnd = Long.parseLong(range[1].trim());
+                    }
+                    isRange = true;
+                } catch (NumberFormatException e) {
+                    // Suffix and multi ranges are not used by MediaPlayer, serve the whole file
+                }
+            }
+
+            File complete = cache.getComplete(url);
+            if (complete != null) {
+                long sent = serveFile(out, complete, rangeStart, rangeEnd, isRange, complete.length(), null);
+                cache.recordHit(sent);
+                return;
+            }
+
+            cache.recordMiss();
+            MediaCache.Download download = cache.download(url);
+            long length = download.awaitContentLength();
+            if (rangeStart > download.downloaded() + MAX_WAIT_AHEAD || (length < 0 && rangeStart > 0)) {
+                passThrough(out, url, request[1]);
+                return;
+            }
+
+            File file = download.partFile;
+            try {
+                serveFile(out, file, rangeStart, rangeEnd, isRange, length, download);
+            } catch (FileNotFoundException e) {
+                // The download completed and was moved into the cache in the meantime
+                complete = cache.getComplete(url);
+                if (complete != null) {
+                    serveFile(out, complete, rangeStart, rangeEnd, isRange, complete.length(), null);
+                }
+            }
+        } catch (IOException e) {
+            // MediaPlayer drops connections whenever it seeks, nothing to report
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    // Returns {token, range header} or null for anything but a GET
+    private static String[] readRequestHead(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null) {
+            return null;
+        }
+
+        String[] parts = requestLine.split(" ");
+        if (parts.length < 2 || !"GET".equals(parts[0]) || parts[1].length() < 2) {
+            return null;
+        }
+
+        String range = null;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Range")) {
+                range = line.substring(colon + 1).trim();
+            }
+        }
+
+        return new String[]{parts[1].substring(1), range};
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        if (c == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString("ISO-8859-1");
+    }
+
+    // Sends `file` or the requested range of it. When a download is given, the file is still being
+    // written and reads wait for it. Returns the number of body bytes sent.
+    private long serveFile(OutputStream out, File file, long start, long end, boolean isRange, long length,
+                           MediaCache.Download download)
+            throws IOException, InterruptedException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            StringBuilder head = new StringBuilder();
+            String contentType = download != null ? download.contentType() : null;
+
+            if (length >= 0) {
+                if (end < 0 || end >= length) {
+                    end = length - 1;
+                }
+                if (isRange && start >= length) {
+                    out.write(("HTTP/1.1 416 Range Not Satisfiable\r\nContent-Range: bytes */" + length
+                            + "\r\nConnection: close\r\n\r\n").getBytes("ISO-8859-1"));
+                    return 0;
+                }
+                head.append(isRange ? "HTTP/1.1 206 Partial Content\r\n" : "HTTP/1.1 200 OK\r\n");
+                head.append("Content-Length: ").append(end - start + 1).append("\r\n");
+                if (isRange) {
+                    head.append("Content-Range: bytes ").append(start).append('-').append(end)
+                            .append('/').append(length).append("\r\n");
+                }
+            } else {
+                // Unknown length, only ever served from the start
+                head.append("HTTP/1.1 200 OK\r\n");
+            }
+            head.append("Accept-Ranges: bytes\r\n");
+            if (contentType != null) {
+                head.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            head.append("Connection: close\r\n\r\n");
+            out.write(head.toString().getBytes("ISO-8859-1"));
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = start;
+            long sent = 0;
+            while (end < 0 || position <= end) {
+                long available = download != null ? download.awaitAvailable(position) : input.length();
+                if (available <= position) {
+                    break;
+                }
+
+                long wanted = available - position;
+                if (end >= 0) {
+                    wanted = Math.min(wanted, end - position + 1);
+                }
+                input.seek(position);
+                int read = input.read(buffer, 0, (int) Math.min(buffer.length, wanted));
+                if (read <= 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                position += read;
+                sent += read;
+            }
+            out.flush();
+            return sent;
+        } finally {
+            input.close();
+        }
+    }
+
+    // Forwards a range request to the origin without caching the response
+    private void passThrough(OutputStream out, String url, String range) throws IOException {
+        HttpURLConnection connection = MediaCache.openConnection(url);
+        try {
+            if (range != null) {
+                connection.setRequestProperty("Range", range);
+            }
+
+            int status = connection.getResponseCode();
+            StringBuilder head = new StringBuilder();
+            head.append("HTTP/1.1 ").append(status).append(' ').append(connection.getResponseMessage()).append("\r\n");
+            String[] headers = {"Content-Type", "Content-Length", "Content-Range", "Accept-Ranges"};
+            for (String header : headers) {
+                String value = connection.getHeaderField(header);
+                if (value != null) {
+                    head.append(header).append(": ").append(value).append("\r\n");
+                }
+            }
+            head.append("Connection: close\r\n\r\n");
+            out.write(head.toString().getBytes("ISO-8859-1"));
+
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (in == null) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    cache.recordNetworkBytes(read);
+                }
+                out.flush();
+            } finally {
+                in.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
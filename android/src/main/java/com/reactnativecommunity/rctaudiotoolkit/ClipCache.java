@@ -0,0 +1,235 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.media.MediaDataSource;
+import android.net.Uri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size capped LRU cache of small clips held in memory, so that preparing the same UI sound again
+ * does not open and read its file or resource again. Resources in the APK are memory mapped,
+ * anything else is copied into a direct buffer, since a mapped file that is truncated while a
+ * player reads it faults the process. Local files are keyed by their size and modification time,
+ * so a file written again is loaded again. Any number of players can read one clip at the same
+ * time through their own BufferDataSource, without copying it.
+ */
+class ClipCache {
+    static final long DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+    static final long DEFAULT_MAX_CLIP_SIZE = 1024 * 1024;
+
+    private final Context context;
+
+    // Clips by URI in access order, guarded by `this`
+    private final LinkedHashMap<String, ByteBuffer> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private long maxBytes = DEFAULT_MAX_SIZE;
+    private long maxClipBytes = DEFAULT_MAX_CLIP_SIZE;
+    private long hits = 0;
+    private long misses = 0;
+
+    ClipCache(Context context) {
+        this.context = context;
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    synchronized void setMaxClipBytes(long maxClipBytes) {
+        this.maxClipBytes = maxClipBytes;
+    }
+
+    synchronized void clear() {
+        clips.clear();
+        totalBytes = 0;
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", (double) totalBytes);
+        stats.put("maxSize", (double) maxBytes);
+        stats.put("maxClipSize", (double) maxClipBytes);
+        stats.put("clips", clips.size());
+        stats.put("hits", (double) hits);
+        stats.put("misses", (double) misses);
+        return stats;
+    }
+
+    // Returns the clip at `uri`, loading it on a miss. Returns null when the clip is too big for
+    // the cache or cannot be opened, callers then let MediaPlayer open the URI itself.
+    ByteBuffer get(Uri uri) {
+        String key = keyFor(uri);
+        synchronized (this) {
+            ByteBuffer clip = clips.get(key);
+            if (clip != null) {
+                hits++;
+                return clip;
+            }
+            misses++;
+        }
+
+        // Loaded outside the lock, two players missing the same clip at once both load it
+        ByteBuffer clip;
+        try {
+            clip = load(uri);
+        } catch (IOException e) {
+            return null;
+        }
+        if (clip == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            ByteBuffer existing = clips.put(key, clip);
+            if (existing != null) {
+                totalBytes -= existing.capacity();
+            }
+            totalBytes += clip.capacity();
+            trim();
+        }
+        return clip;
+    }
+
+    // Stale versions of a file are not looked up again and age out of the LRU order
+    private static String keyFor(Uri uri) {
+        if ("file".equals(uri.getScheme()) && uri.getPath() != null) {
+            File source = new File(uri.getPath());
+            return uri + "#" + source.length() + "#" + source.lastModified();
+        }
+        return uri.toString();
+    }
+
+    private ByteBuffer load(Uri uri) throws IOException {
+        long limit;
+        synchronized (this) {
+            limit = Math.min(maxClipBytes, maxBytes);
+        }
+
+        AssetFileDescriptor descriptor = null;
+        try {
+            descriptor = this.context.getContentResolver().openAssetFileDescriptor(uri, "r");
+        } catch (FileNotFoundException e) {
+            // Compressed resources and some providers have no descriptor, read them as a stream
+        }
+
+        if (descriptor != null) {
+            try {
+                long length = descriptor.getLength();
+                if (length != AssetFileDescriptor.UNKNOWN_LENGTH) {
+                    if (length > limit) {
+                        return null;
+                    }
+
+                    FileInputStream input = new FileInputStream(descriptor.getFileDescriptor());
+                    try {
+                        FileChannel channel = input.getChannel();
+                        if (ContentResolver.SCHEME_ANDROID_RESOURCE.equals(uri.getScheme())) {
+                            return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), length);
+                        }
+                        return copy(channel, descriptor.getStartOffset(), (int) length);
+                    } finally {
+                        // The mapping stays valid after the channel is closed
+                        input.close();
+                    }
+                }
+            } finally {
+                descriptor.close();
+            }
+        }
+
+        InputStream input = this.context.getContentResolver().openInputStream(uri);
+        if (input == null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                bytes.write(chunk, 0, read);
+                if (bytes.size() > limit) {
+                    return null;
+                }
+            }
+
+            ByteBuffer clip = ByteBuffer.allocateDirect(bytes.size());
+            clip.put(bytes.toByteArray());
+            clip.flip();
+            return clip.asReadOnlyBuffer();
+        } finally {
+            input.close();
+        }
+    }
+
+    private static ByteBuffer copy(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer clip = ByteBuffer.allocateDirect(length);
+        while (clip.hasRemaining()) {
+            if (channel.read(clip, offset + clip.position()) < 0) {
+                // Truncated since its length was read, keep what is there
+                break;
+            }
+        }
+        clip.flip();
+        return clip.slice().asReadOnlyBuffer();
+    }
+
+    // Must be called while holding the lock. Evicted clips stay alive while players still read them.
+    private void trim() {
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = clips.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().capacity();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Feeds MediaPlayer from a shared clip. Every source reads through its own view of the
+     * buffer, so sources of the same clip do not interfere and nothing is copied up front.
+     */
+    @TargetApi(23)
+    static class BufferDataSource extends MediaDataSource {
+        private final ByteBuffer view;
+
+        BufferDataSource(ByteBuffer clip) {
+            this.view = clip.duplicate();
+        }
+
+        @Override
+        public synchronized int readAt(long position, byte[] buffer, int offset, int size) {
+            if (position >= view.capacity()) {
+                return -1;
+            }
+
+            int length = (int) Math.min(size, view.capacity() - position);
+            view.position((int) position);
+            view.get(buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public long getSize() {
+            return view.capacity();
+        }
+
+        @Override
+        public void close() {
+            // The clip belongs to the cache
+        }
+    }
+}
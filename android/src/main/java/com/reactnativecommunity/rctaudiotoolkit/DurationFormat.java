@@ -0,0 +1,34 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+/**
+ * Formats the readable times of playback info. Builds the string by hand instead of through
+ * String.format, which parses its pattern and allocates a Formatter on every call, because it
+ * runs for every info map of a player with `readableTimes`.
+ *
+ * Has no Android dependencies, so it can be driven from plain JVM code.
+ */
+final class DurationFormat {
+    private DurationFormat() {
+    }
+
+    // Formats milliseconds as HH:MM:SS, negative values as 00:00:00
+    static String format(int millis) {
+        int totalSeconds = Math.max(0, millis) / 1000;
+        int hours = totalSeconds / 3600;
+        int minutes = (totalSeconds / 60) % 60;
+        int seconds = totalSeconds % 60;
+
+        StringBuilder readable = new StringBuilder(8);
+        appendTwoDigits(readable, hours).append(':');
+        appendTwoDigits(readable, minutes).append(':');
+        appendTwoDigits(readable, seconds);
+        return readable.toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        if (value < 10) {
+            builder.append('0');
+        }
+        return builder.append(value);
+    }
+}
@@ -0,0 +1,73 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+/**
+ * Accumulates peak and RMS levels of 16 bit samples between two snapshots. Works on primitive
+ * fields only, so metering does not allocate per capture block or per published frame.
+ */
+class LevelMeter {
+    static final float SILENCE_DB = -160.0f;
+    private static final float FULL_SCALE = 32768.0f;
+
+    // Accumulated since the previous snapshot, guarded by `this`
+    private int peak = 0;
+    private double sumSquares = 0;
+    private int sampleCount = 0;
+
+    // Result of the latest snapshot, only read by the thread calling snapshot()
+    float peakLevel = 0.0f;
+    float rmsLevel = 0.0f;
+    int rawPeak = 0;
+
+    void process(short[] samples, int length) {
+        int blockPeak = 0;
+        long blockSum = 0;
+        for (int i = 0; i < length; i++) {
+            int sample = samples[i];
+            int magnitude = sample < 0 ? -sample : sample;
+            if (magnitude > blockPeak) {
+                blockPeak = magnitude;
+            }
+            blockSum += sample * sample;
+        }
+
+        synchronized (this) {
+            if (blockPeak > peak) {
+                peak = blockPeak;
+            }
+            sumSquares += blockSum;
+            sampleCount += length;
+        }
+    }
+
+    // Publishes the levels accumulated since the last call. Returns false if no samples arrived.
+    synchronized boolean snapshot() {
+        if (sampleCount == 0) {
+            return false;
+        }
+
+        rawPeak = peak;
+        peakLevel = Math.min(1.0f, peak / FULL_SCALE);
+        rmsLevel = Math.min(1.0f, (float) (Math.sqrt(sumSquares / sampleCount) / FULL_SCALE));
+
+        peak = 0;
+        sumSquares = 0;
+        sampleCount = 0;
+        return true;
+    }
+
+    // Feeds a single peak value, for sources that don't expose samples (MediaRecorder)
+    synchronized void processPeak(int amplitude) {
+        if (amplitude > peak) {
+            peak = amplitude;
+        }
+        sumSquares += (double) amplitude * amplitude;
+        sampleCount++;
+    }
+
+    static float toDb(float level) {
+        if (level <= 0.0f) {
+            return SILENCE_DB;
+        }
+        return Math.max(SILENCE_DB, (float) (20 * Math.log10(level)));
+    }
+}
@@ -0,0 +1,336 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded LRU disk cache for remote media files. A file is downloaded once, in the
+ * background, into a ".part" file that readers can follow while it grows. Once complete it is
+ * renamed into place and evicted in least recently used order when the cache grows too big.
+ */
+class MediaCache {
+    private static final String LOG_TAG = "MediaCache";
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final File directory;
+    // Created by the first download after construction or stopDownloads(), guarded by `this`
+    private ExecutorService downloadExecutor;
+
+    // Cached files by key in access order with their size, guarded by `this`
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Download> downloads = new HashMap<>();
+    private long totalBytes = 0;
+    private long maxBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesFromCache = new AtomicLong();
+    private final AtomicLong bytesFromNetwork = new AtomicLong();
+
+    MediaCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        directory.mkdirs();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        // Restore the LRU order from the modification times, which are bumped on every hit
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (file.getName().endsWith(PART_SUFFIX)) {
+                // Left over from an interrupted download
+                file.delete();
+                continue;
+            }
+            entries.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+    }
+
+    // Only http(s) URLs are downloaded into the cache, everything else is played directly
+    static boolean isCacheable(String url) {
+        return url != null && (url.startsWith("http://") || url.startsWith("https://"));
+    }
+
+    static HttpURLConnection openConnection(String url) throws IOException {
+        if (!isCacheable(url)) {
+            throw new IOException("Only http(s) URLs can be cached: " + url);
+        }
+        URLConnection connection = new URL(url).openConnection();
+        if (!(connection instanceof HttpURLConnection)) {
+            throw new IOException("Not an HTTP connection: " + url);
+        }
+        return (HttpURLConnection) connection;
+    }
+
+    static String keyFor(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder();
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    // Returns the completely cached file for url, or null
+    synchronized File getComplete(String url) {
+        String key = keyFor(url);
+        if (entries.get(key) == null) {
+            return null;
+        }
+
+        File file = new File(directory, key);
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    // Returns the running download of url, starting one if needed
+    synchronized Download download(String url) {
+        String key = keyFor(url);
+        Download download = downloads.get(key);
+        if (download == null) {
+            download = new Download(url, key);
+            downloads.put(key, download);
+            if (downloadExecutor == null) {
+                downloadExecutor = Executors.newCachedThreadPool();
+            }
+            downloadExecutor.execute(download);
+        }
+        return download;
+    }
+
+    // Interrupts the running downloads, they are started again when next requested
+    synchronized void stopDownloads() {
+        if (downloadExecutor != null) {
+            downloadExecutor.shutdownNow();
+            downloadExecutor = null;
+        }
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    synchronized void clear() {
+        for (String key : entries.keySet()) {
+            new File(directory, key).delete();
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    void recordHit(long bytes) {
+        hits.incrementAndGet();
+        bytesFromCache.addAndGet(bytes);
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    void recordNetworkBytes(long bytes) {
+        bytesFromNetwork.addAndGet(bytes);
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long requestCount = hitCount + misses.get();
+
+        stats.put("hits", (double) hitCount);
+        stats.put("misses", (double) misses.get());
+        stats.put("hitRatio", requestCount > 0 ? (double) hitCount / requestCount : 0.0);
+        stats.put("bytesSaved", (double) bytesFromCache.get());
+        stats.put("bytesDownloaded", (double) bytesFromNetwork.get());
+        stats.put("size", (double) totalBytes);
+        stats.put("maxSize", (double) maxBytes);
+        stats.put("entries", entries.size());
+        stats.put("downloads", downloads.size());
+        return stats;
+    }
+
+    private synchronized void commit(Download download) {
+        downloads.remove(download.key);
+
+        File file = new File(directory, download.key);
+        if (!download.partFile.renameTo(file)) {
+            download.partFile.delete();
+            return;
+        }
+
+        Long oldSize = entries.put(download.key, file.length());
+        totalBytes += file.length() - (oldSize != null ? oldSize : 0);
+        trim();
+    }
+
+    private synchronized void abort(Download download) {
+        downloads.remove(download.key);
+        download.partFile.delete();
+    }
+
+    // Must be called while holding the lock. Files still being read stay readable until closed.
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            new File(directory, entry.getKey()).delete();
+            totalBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Downloads a whole file into the cache. Readers wait on it for bytes that have not arrived
+     * yet.
+     */
+    class Download implements Runnable {
+        final String url;
+        final String key;
+        final File partFile;
+
+        // Guarded by `this`
+        private boolean started = false;
+        private boolean done = false;
+        private long downloaded = 0;
+        private long contentLength = -1;
+        private String contentType;
+        private IOException error;
+
+        Download(String url, String key) {
+            this.url = url;
+            this.key = key;
+            this.partFile = new File(directory, key + PART_SUFFIX);
+        }
+
+        @Override
+        public void run() {
+            HttpURLConnection connection = null;
+            try {
+                connection = openConnection(url);
+                int status = connection.getResponseCode();
+                if (status != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected HTTP status " + status + " for " + url);
+                }
+
+                // Create the file before readers are let in, they open it right away
+                InputStream in = connection.getInputStream();
+                FileOutputStream out = new FileOutputStream(partFile);
+                synchronized (this) {
+                    contentLength = connection.getContentLength();
+                    contentType = connection.getContentType();
+                    started = true;
+                    notifyAll();
+                }
+
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        if (Thread.interrupted()) {
+                            throw new InterruptedIOException("Download of " + url + " was stopped");
+                        }
+                        out.write(buffer, 0, read);
+                        out.flush();
+                        recordNetworkBytes(read);
+                        synchronized (this) {
+                            downloaded += read;
+                            notifyAll();
+                        }
+                    }
+                } finally {
+                    out.close();
+                    in.close();
+                }
+
+                synchronized (this) {
+                    // A connection dropped in the middle of the body must not become a cache hit
+                    if (contentLength >= 0 && downloaded != contentLength) {
+                        throw new IOException("Received " + downloaded + " of " + contentLength + " bytes of " + url);
+                    }
+                    if (contentLength < 0) {
+                        contentLength = downloaded;
+                    }
+                    done = true;
+                    notifyAll();
+                }
+                commit(this);
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Caching " + url + " failed: " + e.toString());
+                synchronized (this) {
+                    error = e;
+                    notifyAll();
+                }
+                abort(this);
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+
+        // Blocks until the response headers arrived, returns the content length or -1
+        synchronized long awaitContentLength() throws IOException, InterruptedException {
+            while (!started && error == null) {
+                wait();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return contentLength;
+        }
+
+        synchronized String contentType() {
+            return contentType;
+        }
+
+        synchronized long downloaded() {
+            return downloaded;
+        }
+
+        // Blocks until the byte at `position` was written, returns how many bytes are available.
+        // Returns `position` when the download finished before reaching it.
+        synchronized long awaitAvailable(long position) throws IOException, InterruptedException {
+            while (!done && error == null && downloaded <= position) {
+                wait();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return Math.max(position, downloaded);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Callback;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking media control calls (setDataSource, prepare, release, stop...) off the native
+ * modules thread. Tasks are grouped in lanes by player or recorder id: tasks of one lane run one
+ * after another in submission order, different lanes run in parallel on a small shared pool.
+ *
+ * The control pool has only THREADS threads, so tasks that can block on the network for long
+ * (setDataSource of a remote URL) are submitted with executeNetwork() and run on a pool of their
+ * own. They still keep their place in the lane. At most THREADS remote sources are set up at once,
+ * further ones wait.
+ *
+ * A task that throws completes the callback it was submitted with with an error, so that no JS
+ * callback is left waiting for an exception nobody sees.
+ */
+class MediaExecutor {
+    private static final String LOG_TAG = "MediaExecutor";
+    private static final int THREADS = 4;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor pool;
+    private final ThreadPoolExecutor networkPool;
+    private final AudioErrors errors;
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    MediaExecutor(AudioErrors errors) {
+        this.errors = errors;
+        this.pool = createPool("AudioMediaControl-");
+        this.networkPool = createPool("AudioMediaNetwork-");
+    }
+
+    private static ThreadPoolExecutor createPool(final String namePrefix) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // For tasks without a JS callback, failures are only logged
+    void execute(String laneId, Runnable task) {
+        submit(laneId, new Task(task, null, false));
+    }
+
+    void execute(String laneId, Callback callback, Runnable task) {
+        submit(laneId, new Task(task, callback, false));
+    }
+
+    void executeNetwork(String laneId, Callback callback, Runnable task) {
+        submit(laneId, new Task(task, callback, true));
+    }
+
+    private void submit(String laneId, Task task) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(laneId);
+            if (lane == null) {
+                lane = new Lane(laneId);
+                lanes.put(laneId, lane);
+            }
+
+            lane.tasks.add(task);
+            if (!lane.scheduled) {
+                lane.scheduled = true;
+                schedule(lane, task);
+            }
+        }
+    }
+
+    // Called with `lanes` held
+    private void schedule(Lane lane, Task next) {
+        (next.network ? networkPool : pool).execute(lane);
+    }
+
+    private void fail(String laneId, Task task, Throwable e) {
+        Log.e(LOG_TAG, "Media control task on lane " + laneId + " failed: " + e.toString());
+        if (task.callback == null) {
+            return;
+        }
+
+        try {
+            task.callback.invoke(errors.create(LOG_TAG, AudioErrors.UNEXPECTED, e.toString(), false));
+        } catch (RuntimeException invokeFailure) {
+            // The task completed its callback before it failed
+            Log.w(LOG_TAG, "Could not report the failure on lane " + laneId + ": " + invokeFailure.toString());
+        }
+    }
+
+    private static class Task {
+        final Runnable runnable;
+        final Callback callback;
+        final boolean network;
+
+        Task(Runnable runnable, Callback callback, boolean network) {
+            this.runnable = runnable;
+            this.callback = callback;
+            this.network = network;
+        }
+    }
+
+    // Runs one task per turn on the pool so that a busy lane doesn't starve the others
+    private class Lane implements Runnable {
+        final String id;
+        final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        boolean scheduled = false;
+
+        Lane(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            Task task;
+            synchronized (lanes) {
+                task = tasks.poll();
+            }
+
+            try {
+                task.runnable.run();
+            } catch (Throwable e) {
+                fail(id, task, e);
+            }
+
+            synchronized (lanes) {
+                Task next = tasks.peek();
+                if (next == null) {
+                    scheduled = false;
+                    lanes.remove(id);
+                } else {
+                    schedule(this, next);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Software mixer behind the Mixer module. Mixes a fixed number of voices, each playing a decoded
+ * sample with its own gain, pan and rate, into an interleaved stereo float buffer.
+ *
+ * Has no Android dependencies, so it can be driven from plain JVM code. mix() runs on the audio
+ * thread and never allocates or locks: voice slots are claimed and released through an atomic
+ * state per slot, and parameter changes are published through volatile fields that are read once
+ * per block. Gain changes are ramped over a block so that they do not click.
+ */
+class MixerCore {
+    /**
+     * Decoded PCM, interleaved, with one or two channels, either in a float array or off heap in
+     * a direct buffer. Never changed after decoding, so any number of voices can play it at the
+     * same time.
+     */
+    static class Sample {
+        final float[] data;
+        final FloatBuffer buffer;
+        final int channels;
+        final int sampleRate;
+        final int frames;
+
+        Sample(float[] data, int channels, int sampleRate) {
+            this.data = data;
+            this.buffer = null;
+            this.channels = channels;
+            this.sampleRate = sampleRate;
+            this.frames = data.length / channels;
+        }
+
+        // The buffer is only read with absolute gets, so voices can share it
+        Sample(FloatBuffer buffer, int channels, int sampleRate) {
+            this.data = null;
+            this.buffer = buffer;
+            this.channels = channels;
+            this.sampleRate = sampleRate;
+            this.frames = buffer.capacity() / channels;
+        }
+
+        long durationMillis() {
+            return frames * 1000L / sampleRate;
+        }
+
+        long bytes() {
+            return (long) frames * channels * 4;
+        }
+    }
+
+    static final float MIN_RATE = 0.25f;
+    static final float MAX_RATE = 4.0f;
+
+    // Slot states. Only the control side moves a slot out of IDLE, only the mixer moves it back.
+    private static final int IDLE = 0;
+    private static final int CLAIMED = 1;
+    private static final int PLAYING = 2;
+
+    private static class Voice {
+        // Written by the control side before the slot is published as PLAYING
+        Sample sample;
+        int id;
+
+        // Written by the control side at any time, read once per block by the mixer
+        volatile float gain;
+        volatile float pan;
+        volatile float rate;
+        volatile boolean looping;
+        volatile boolean stopRequested;
+
+        // Only touched by the mixer once the slot is PLAYING
+        double position;
+        float left;
+        float right;
+        boolean started;
+    }
+
+    private final int outputRate;
+    private final Voice[] voices;
+    private final AtomicIntegerArray states;
+
+    private volatile float masterGain = 1.0f;
+    private volatile int activeVoices = 0;
+
+    // Guarded by `this`, control side only
+    private int nextVoiceId = 1;
+    private long rejectedVoices = 0;
+
+    MixerCore(int maxVoices, int outputRate) {
+        this.outputRate = outputRate;
+        this.voices = new Voice[maxVoices];
+        this.states = new AtomicIntegerArray(maxVoices);
+        for (int i = 0; i < maxVoices; i++) {
+            voices[i] = new Voice();
+        }
+    }
+
+    int getOutputRate() {
+        return outputRate;
+    }
+
+    int getMaxVoices() {
+        return voices.length;
+    }
+
+    int getActiveVoices() {
+        return activeVoices;
+    }
+
+    float getMasterGain() {
+        return masterGain;
+    }
+
+    void setMasterGain(float masterGain) {
+        this.masterGain = Math.max(0.0f, masterGain);
+    }
+
+    synchronized long getRejectedVoices() {
+        return rejectedVoices;
+    }
+
+    boolean hasActiveVoices() {
+        for (int i = 0; i < voices.length; i++) {
+            if (states.get(i) == PLAYING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Starts a voice and returns its id, or 0 when all voices are busy
+    synchronized int play(Sample sample, float gain, float pan, float rate, boolean looping) {
+        for (int i = 0; i < voices.length; i++) {
+            if (!states.compareAndSet(i, IDLE, CLAIMED)) {
+                continue;
+            }
+
+            Voice voice = voices[i];
+            voice.sample = sample;
+            voice.id = nextVoiceId++;
+            if (nextVoiceId <= 0) {
+                nextVoiceId = 1;
+            }
+            voice.gain = Math.max(0.0f, gain);
+            voice.pan = clamp(pan, -1.0f, 1.0f);
+            voice.rate = clamp(rate, MIN_RATE, MAX_RATE);
+            voice.looping = looping;
+            voice.stopRequested = false;
+            voice.position = 0;
+            voice.started = false;
+
+            states.set(i, PLAYING);
+            return voice.id;
+        }
+
+        rejectedVoices++;
+        return 0;
+    }
+
+    // Changes a playing voice. NaN leaves a value unchanged. Returns false if the voice is gone.
+    synchronized boolean setVoice(int voiceId, float gain, float pan, float rate) {
+        Voice voice = find(voiceId);
+        if (voice == null) {
+            return false;
+        }
+
+        if (!Float.isNaN(gain)) {
+            voice.gain = Math.max(0.0f, gain);
+        }
+        if (!Float.isNaN(pan)) {
+            voice.pan = clamp(pan, -1.0f, 1.0f);
+        }
+        if (!Float.isNaN(rate)) {
+            voice.rate = clamp(rate, MIN_RATE, MAX_RATE);
+        }
+        return true;
+    }
+
+    synchronized boolean setLooping(int voiceId, boolean looping) {
+        Voice voice = find(voiceId);
+        if (voice == null) {
+            return false;
+        }
+
+        voice.looping = looping;
+        return true;
+    }
+
+    // The voice fades out over the next block and is then released by the mixer
+    synchronized boolean stop(int voiceId) {
+        Voice voice = find(voiceId);
+        if (voice == null) {
+            return false;
+        }
+
+        voice.stopRequested = true;
+        return true;
+    }
+
+    synchronized void stopSample(Sample sample) {
+        for (int i = 0; i < voices.length; i++) {
+            if (states.get(i) == PLAYING && voices[i].sample == sample) {
+                voices[i].stopRequested = true;
+            }
+        }
+    }
+
+    synchronized void stopAll() {
+        for (int i = 0; i < voices.length; i++) {
+            if (states.get(i) == PLAYING) {
+                voices[i].stopRequested = true;
+            }
+        }
+    }
+
+    private Voice find(int voiceId) {
+        for (int i = 0; i < voices.length; i++) {
+            if (states.get(i) == PLAYING && voices[i].id == voiceId) {
+                return voices[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mixes the next `frames` frames of all voices into `out` as interleaved stereo, overwriting
+     * its contents. Returns the number of voices still playing afterwards. Audio thread only.
+     */
+    int mix(float[] out, int frames) {
+        Arrays.fill(out, 0, frames * 2, 0.0f);
+
+        int active = 0;
+        for (int i = 0; i < voices.length; i++) {
+            if (states.get(i) != PLAYING) {
+                continue;
+            }
+
+            Voice voice = voices[i];
+            if (render(voice, out, frames)) {
+                voice.sample = null;
+                states.set(i, IDLE);
+            } else {
+                active++;
+            }
+        }
+
+        activeVoices = active;
+        return active;
+    }
+
+    // Adds one block of a voice to `out`. Returns true once the voice has finished.
+    private boolean render(Voice voice, float[] out, int frames) {
+        Sample sample = voice.sample;
+        boolean stopping = voice.stopRequested;
+        boolean looping = voice.looping && !stopping;
+        float gain = voice.gain;
+        float pan = voice.pan;
+
+        // Same balance law as SoundPool, so both engines place a voice alike
+        float targetLeft = stopping ? 0.0f : gain * Math.min(1.0f, 1.0f - pan);
+        float targetRight = stopping ? 0.0f : gain * Math.min(1.0f, 1.0f + pan);
+        if (!voice.started) {
+            voice.left = targetLeft;
+            voice.right = targetRight;
+            voice.started = true;
+        }
+
+        float left = voice.left;
+        float right = voice.right;
+        float leftStep = (targetLeft - left) / frames;
+        float rightStep = (targetRight - right) / frames;
+
+        int length = sample.frames;
+        // Mono samples read the same value for both sides
+        int rightOffset = sample.channels - 1;
+        double step = (double) voice.rate * sample.sampleRate / outputRate;
+        double position = voice.position;
+        boolean finished = false;
+
+        float[] data = sample.data;
+        FloatBuffer buffer = sample.buffer;
+        int o = 0;
+        for (int f = 0; f < frames; f++) {
+            if (position >= length) {
+                if (!looping) {
+                    finished = true;
+                    break;
+                }
+                position %= length;
+            }
+
+            int index = (int) position;
+            int next = index + 1 < length ? index + 1 : (looping ? 0 : index);
+            float fraction = (float) (position - index);
+            int i = index * sample.channels;
+            int n = next * sample.channels;
+
+            float l;
+            float r;
+            if (data != null) {
+                l = data[i] + (data[n] - data[i]) * fraction;
+                r = data[i + rightOffset] + (data[n + rightOffset] - data[i + rightOffset]) * fraction;
+            } else {
+                float li = buffer.get(i);
+                float ri = buffer.get(i + rightOffset);
+                l = li + (buffer.get(n) - li) * fraction;
+                r = ri + (buffer.get(n + rightOffset) - ri) * fraction;
+            }
+
+            out[o++] += l * left;
+            out[o++] += r * right;
+            left += leftStep;
+            right += rightStep;
+            position += step;
+        }
+
+        voice.position = position;
+        voice.left = targetLeft;
+        voice.right = targetRight;
+        return finished || stopping;
+    }
+
+    /**
+     * Converts `count` mixed samples to 16 bit PCM, applying the master gain and clipping.
+     */
+    static void toPcm16(float[] in, short[] out, int count, float gain) {
+        float scale = gain * 32767.0f;
+        for (int i = 0; i < count; i++) {
+            float s = in[i] * scale;
+            if (s > 32767.0f) {
+                s = 32767.0f;
+            } else if (s < -32768.0f) {
+                s = -32768.0f;
+            }
+            out[i] = (short) s;
+        }
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
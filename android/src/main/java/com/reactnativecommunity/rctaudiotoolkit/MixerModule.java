@@ -0,0 +1,326 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.AudioManager;
+import android.net.Uri;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plays many short sounds at once through a software mixer. Clips are decoded to PCM once when
+ * loaded, and every play() starts a voice on a single shared output track instead of a
+ * MediaPlayer and hardware decoder of its own. Decoded clips come from the shared PcmCache, so
+ * loading a clip again after unloading it is cheap while it is still cached.
+ */
+public class MixerModule extends ReactContextBaseJavaModule implements LifecycleEventListener {
+    private static final String LOG_TAG = "MixerModule";
+    private static final int DEFAULT_MAX_VOICES = 32;
+    private static final int DEFAULT_SAMPLE_RATE = 44100;
+    private static final int DEFAULT_FRAMES_PER_BLOCK = 256;
+    private static final int MIN_FRAMES_PER_BLOCK = 64;
+    // 16 MB of float samples, about 45 seconds of stereo at 44.1 kHz
+    private static final int MAX_CLIP_SAMPLES = 4 * 1024 * 1024;
+
+    // Cache entries acquired by sampleId, released on unload
+    final ConcurrentHashMap<String, PcmCache.Entry> samples = new ConcurrentHashMap<>();
+
+    private ReactApplicationContext context;
+    private final PathResolver pathResolver;
+    private final PcmCache pcmCache;
+    private final MediaExecutor mediaExecutor;
+    private final AudioErrors errors;
+
+    // Guarded by `this`
+    private MixerCore core;
+    private MixerOutput output;
+    private int maxVoices = DEFAULT_MAX_VOICES;
+    private float masterVolume = 1.0f;
+
+    public MixerModule(ReactApplicationContext reactContext, PathResolver pathResolver, PcmCache pcmCache,
+                       MediaExecutor mediaExecutor, AudioErrors errors) {
+        super(reactContext);
+        this.context = reactContext;
+        this.pathResolver = pathResolver;
+        this.pcmCache = pcmCache;
+        this.mediaExecutor = mediaExecutor;
+        this.errors = errors;
+        reactContext.addLifecycleEventListener(this);
+    }
+
+    @Override
+    public String getName() {
+        return "RCTAudioMixer";
+    }
+
+    @Override
+    public void onHostResume() {
+        // Activity `onResume`
+    }
+
+    @Override
+    public void onHostPause() {
+
+    }
+
+    @Override
+    public synchronized void onHostDestroy() {
+        // Activity `onDestroy`
+        releaseOutput();
+        for (PcmCache.Entry entry : samples.values()) {
+            pcmCache.release(entry);
+        }
+        samples.clear();
+    }
+
+    private WritableMap errObj(final String code, final String message) {
+        return this.errors.create(LOG_TAG, code, message, true);
+    }
+
+    // Must be called while holding the lock
+    private MixerCore getCore() {
+        if (core == null) {
+            AudioManager audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+            int sampleRate = parseProperty(audioManager.getProperty(AudioManager.PROPERTY_OUTPUT_SAMPLE_RATE),
+                    DEFAULT_SAMPLE_RATE);
+            int framesPerBlock = parseProperty(audioManager.getProperty(AudioManager.PROPERTY_OUTPUT_FRAMES_PER_BUFFER),
+                    DEFAULT_FRAMES_PER_BLOCK);
+
+            // Mixing at the device's native rate and burst size keeps the track on the fast path
+            core = new MixerCore(maxVoices, sampleRate);
+            core.setMasterGain(masterVolume);
+            output = new MixerOutput(core, Math.max(MIN_FRAMES_PER_BLOCK, framesPerBlock));
+        }
+        return core;
+    }
+
+    private static int parseProperty(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    // Must be called while holding the lock
+    private void releaseOutput() {
+        if (output != null) {
+            output.stop();
+            output = null;
+        }
+        core = null;
+    }
+
+    @ReactMethod
+    public synchronized void setup(ReadableMap options, Callback callback) {
+        if (options.hasKey("maxVoices") && !options.isNull("maxVoices")) {
+            int maxVoices = options.getInt("maxVoices");
+            if (maxVoices <= 0) {
+                callback.invoke(errObj(AudioErrors.INVALID_OPTION, "maxVoices must be greater than 0"));
+                return;
+            }
+
+            if (maxVoices != this.maxVoices) {
+                // The voice table is allocated up front, so playing voices are cut off
+                releaseOutput();
+                this.maxVoices = maxVoices;
+            }
+        }
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            this.masterVolume = (float) options.getDouble("volume");
+            if (core != null) {
+                core.setMasterGain(this.masterVolume);
+            }
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void load(final String sampleId, final String path, final ReadableMap options, final Callback callback) {
+        if (path == null || path.isEmpty()) {
+            callback.invoke(errObj(AudioErrors.NO_PATH, "Provided path was empty"));
+            return;
+        }
+
+        mediaExecutor.execute("mixer:" + sampleId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PcmCache.Entry entry = samples.get(sampleId);
+                if (entry == null) {
+                    Uri uri = pathResolver.uriFromPath(path);
+                    try {
+                        entry = pcmCache.acquire(uri, MAX_CLIP_SAMPLES);
+                    } catch (IOException e) {
+                        callback.invoke(errObj(AudioErrors.PREPARE_FAIL, e.toString()));
+                        return;
+                    }
+                    samples.put(sampleId, entry);
+                }
+
+                MixerCore.Sample sample = entry.sample;
+
+                WritableMap info = Arguments.createMap();
+                info.putDouble("duration", sample.durationMillis());
+                info.putInt("channels", sample.channels);
+                info.putInt("sampleRate", sample.sampleRate);
+                callback.invoke(null, info);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void unload(final String sampleId, final Callback callback) {
+        mediaExecutor.execute("mixer:" + sampleId, callback, new Runnable() {
+            @Override
+            public void run() {
+                PcmCache.Entry entry = samples.remove(sampleId);
+                if (entry != null) {
+                    synchronized (MixerModule.this) {
+                        if (core != null) {
+                            core.stopSample(entry.sample);
+                        }
+                    }
+                    // Stopped voices still finish their last block, the sample stays valid for them
+                    pcmCache.release(entry);
+                }
+
+                if (callback != null) {
+                    callback.invoke();
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public synchronized void play(final String sampleId, ReadableMap options, Callback callback) {
+        PcmCache.Entry entry = samples.get(sampleId);
+        if (entry == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "sampleId " + sampleId + " not found or not loaded."));
+            return;
+        }
+
+        float volume = 1.0f;
+        float pan = 0.0f;
+        float rate = 1.0f;
+        boolean looping = false;
+
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            volume = (float) options.getDouble("volume");
+        }
+        if (options.hasKey("pan") && !options.isNull("pan")) {
+            pan = (float) options.getDouble("pan");
+        }
+        if (options.hasKey("speed") && !options.isNull("speed")) {
+            rate = (float) options.getDouble("speed");
+        }
+        if (options.hasKey("looping") && !options.isNull("looping")) {
+            looping = options.getBoolean("looping");
+        }
+
+        int voiceId = getCore().play(entry.sample, volume, pan, rate, looping);
+        if (voiceId == 0) {
+            callback.invoke(errObj(AudioErrors.START_FAIL, "No free voice for sampleId " + sampleId));
+            return;
+        }
+
+        output.start();
+        output.wake();
+
+        WritableMap info = Arguments.createMap();
+        info.putInt("voiceId", voiceId);
+        callback.invoke(null, info);
+    }
+
+    @ReactMethod
+    public synchronized void setVoice(Integer voiceId, ReadableMap options, Callback callback) {
+        float volume = Float.NaN;
+        float pan = Float.NaN;
+        float rate = Float.NaN;
+
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            volume = (float) options.getDouble("volume");
+        }
+        if (options.hasKey("pan") && !options.isNull("pan")) {
+            pan = (float) options.getDouble("pan");
+        }
+        if (options.hasKey("speed") && !options.isNull("speed")) {
+            rate = (float) options.getDouble("speed");
+        }
+
+        boolean found = core != null && core.setVoice(voiceId, volume, pan, rate);
+        if (found && options.hasKey("looping") && !options.isNull("looping")) {
+            found = core.setLooping(voiceId, options.getBoolean("looping"));
+        }
+        if (!found) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "voiceId " + voiceId + " not found."));
+            return;
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void stopVoice(Integer voiceId, Callback callback) {
+        // Voices that already ended are not an error
+        if (core != null) {
+            core.stop(voiceId);
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void stopAll(Callback callback) {
+        if (core != null) {
+            core.stopAll();
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void getStats(Callback callback) {
+        WritableMap stats = Arguments.createMap();
+        stats.putInt("samples", samples.size());
+        stats.putInt("maxVoices", core != null ? core.getMaxVoices() : maxVoices);
+        stats.putInt("activeVoices", core != null ? core.getActiveVoices() : 0);
+        stats.putDouble("rejectedVoices", core != null ? core.getRejectedVoices() : 0);
+        stats.putInt("sampleRate", core != null ? core.getOutputRate() : 0);
+        stats.putDouble("blocks", output != null ? output.getBlocks() : 0);
+        callback.invoke(null, stats);
+    }
+
+    @ReactMethod
+    public void setCacheOptions(ReadableMap options, Callback callback) {
+        if (options.hasKey("maxSize") && !options.isNull("maxSize")) {
+            this.pcmCache.setMaxBytes((long) options.getDouble("maxSize"));
+        }
+        if (options.hasKey("offHeap") && !options.isNull("offHeap")) {
+            this.pcmCache.setOffHeap(options.getBoolean("offHeap"));
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void getCacheStats(Callback callback) {
+        callback.invoke(null, Arguments.makeNativeMap(this.pcmCache.stats()));
+    }
+
+    @ReactMethod
+    public void clearCache(Callback callback) {
+        this.pcmCache.clear();
+        callback.invoke();
+    }
+}
@@ -0,0 +1,175 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Feeds a MixerCore into one stereo AudioTrack from a dedicated audio priority thread. On API 26+
+ * the track is opened in low latency performance mode. The thread mixes one block at a time into
+ * buffers allocated up front, and parks itself while nothing has played for about a second.
+ */
+class MixerOutput implements Runnable {
+    private static final String LOG_TAG = "MixerOutput";
+    private static final long IDLE_AFTER_MS = 1000;
+
+    private final MixerCore core;
+    private final int framesPerBlock;
+    private final float[] mixBuffer;
+    private final short[] pcmBuffer;
+    private final Object idleLock = new Object();
+
+    private volatile boolean running = false;
+    private volatile long blocks = 0;
+
+    // Guarded by `this`
+    private Thread thread;
+
+    MixerOutput(MixerCore core, int framesPerBlock) {
+        this.core = core;
+        this.framesPerBlock = framesPerBlock;
+        this.mixBuffer = new float[framesPerBlock * 2];
+        this.pcmBuffer = new short[framesPerBlock * 2];
+    }
+
+    long getBlocks() {
+        return blocks;
+    }
+
+    synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+
+        running = true;
+        thread = new Thread(this, "AudioMixer");
+        thread.start();
+    }
+
+    // Must be called after starting a voice, so that an idle output thread picks it up
+    void wake() {
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
+    }
+
+    synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        running = false;
+        wake();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+        AudioTrack track = createTrack();
+        if (track == null || track.getState() != AudioTrack.STATE_INITIALIZED) {
+            Log.e(LOG_TAG, "Could not open an output track for the mixer");
+            if (track != null) {
+                track.release();
+            }
+            synchronized (this) {
+                thread = null;
+            }
+            return;
+        }
+
+        int sampleCount = framesPerBlock * 2;
+        long idleBlocks = Math.max(1, IDLE_AFTER_MS * core.getOutputRate() / 1000 / framesPerBlock);
+        long silentBlocks = 0;
+
+        try {
+            track.play();
+            while (running) {
+                Trace.beginSection("AudioMixer.mix");
+                int active;
+                try {
+                    active = core.mix(mixBuffer, framesPerBlock);
+                    MixerCore.toPcm16(mixBuffer, pcmBuffer, sampleCount, core.getMasterGain());
+                } finally {
+                    Trace.endSection();
+                }
+
+                // Blocks while the track's buffer is full, which paces the loop
+                track.write(pcmBuffer, 0, sampleCount);
+                blocks++;
+
+                silentBlocks = active > 0 ? 0 : silentBlocks + 1;
+                if (silentBlocks >= idleBlocks) {
+                    track.pause();
+                    track.flush();
+                    synchronized (idleLock) {
+                        while (running && !core.hasActiveVoices()) {
+                            idleLock.wait();
+                        }
+                    }
+                    silentBlocks = 0;
+                    if (running) {
+                        track.play();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            track.stop();
+            track.release();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private AudioTrack createTrack() {
+        int sampleRate = core.getOutputRate();
+        int minBufferBytes = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_STEREO,
+                AudioFormat.ENCODING_PCM_16BIT);
+        // Two blocks of 16 bit stereo, so that one can be mixed while the other plays
+        int bufferBytes = Math.max(minBufferBytes, framesPerBlock * 4 * 2);
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                return createLowLatencyTrack(sampleRate, bufferBytes);
+            }
+            return new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, AudioFormat.CHANNEL_OUT_STEREO,
+                    AudioFormat.ENCODING_PCM_16BIT, bufferBytes, AudioTrack.MODE_STREAM);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            Log.e(LOG_TAG, e.toString());
+            return null;
+        }
+    }
+
+    @TargetApi(26)
+    private static AudioTrack createLowLatencyTrack(int sampleRate, int bufferBytes) {
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        AudioFormat format = new AudioFormat.Builder()
+                .setSampleRate(sampleRate)
+                .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                .build();
+        return new AudioTrack.Builder()
+                .setAudioAttributes(attributes)
+                .setAudioFormat(format)
+                .setBufferSizeInBytes(bufferBytes)
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY)
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the paths passed in from JS into something Android media APIs can open. Shared by all
+ * playback modules so that every engine accepts the same kinds of paths.
+ *
+ * Resolutions are memoized by path. Raw resources and plain URIs cannot change while the app
+ * runs and are kept until the cache is cleared, paths that were looked up on the file system
+ * expire after `fileTtl` milliseconds so that files created or deleted later are noticed.
+ */
+class PathResolver {
+    static final String SOURCE_FILES = "files";
+    static final String SOURCE_EXTERNAL = "external";
+    static final String SOURCE_ABSOLUTE = "absolute";
+    static final String SOURCE_RAW = "raw";
+    static final String SOURCE_URI = "uri";
+
+    static final long DEFAULT_FILE_TTL = 5000;
+
+    static class Resolution {
+        final Uri uri;
+        final String source;
+        final long expiresAt; // Long.MAX_VALUE for entries that never expire
+
+        Resolution(Uri uri, String source, long expiresAt) {
+            this.uri = uri;
+            this.source = source;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Context context;
+    private final ConcurrentHashMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    // Raw resource ids by name, read once from the app's R class. Null if that failed.
+    private volatile Map<String, Integer> rawResources;
+    private volatile boolean rawResourcesLoaded = false;
+    private volatile long fileTtl = DEFAULT_FILE_TTL;
+    private File filesDir;
+    // Remote URLs are played through this proxy when caching is enabled
+    private volatile CacheProxy cacheProxy;
+
+    PathResolver(Context context) {
+        this.context = context;
+    }
+
+    void setCacheProxy(CacheProxy cacheProxy) {
+        this.cacheProxy = cacheProxy;
+    }
+
+    // 0 disables caching of file system lookups, a negative value keeps them forever
+    void setFileTtl(long fileTtl) {
+        this.fileTtl = fileTtl;
+        clear();
+    }
+
+    void clear() {
+        resolutions.clear();
+    }
+
+    // Reads the raw resource table ahead of the first lookup
+    void preload() {
+        rawResourceTable();
+        getFilesDir();
+    }
+
+    Uri uriFromPath(String path) {
+        Uri uri = resolve(path).uri;
+
+        CacheProxy proxy = this.cacheProxy;
+        if (proxy != null && ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+            return proxy.uriFor(path);
+        }
+        return uri;
+    }
+
+    Resolution resolve(String path) {
+        Resolution resolution = resolutions.get(path);
+        if (resolution != null && resolution.expiresAt > SystemClock.uptimeMillis()) {
+            return resolution;
+        }
+
+        Trace.beginSection("PathResolver.lookup");
+        try {
+            resolution = lookup(path);
+        } finally {
+            Trace.endSection();
+        }
+        if (resolution.expiresAt > 0) {
+            resolutions.put(path, resolution);
+        } else {
+            resolutions.remove(path);
+        }
+        return resolution;
+    }
+
+    private Resolution lookup(String path) {
+        File file = null;
+        String fileNameWithoutExt;
+
+        long ttl = this.fileTtl;
+        long fileExpiresAt = ttl < 0 ? Long.MAX_VALUE : (ttl == 0 ? 0 : SystemClock.uptimeMillis() + ttl);
+
+        // Try finding file in app data directory
+        file = new File(getFilesDir(), path);
+        if (file.exists()) {
+            return new Resolution(Uri.fromFile(file), SOURCE_FILES, fileExpiresAt);
+        }
+
+        // Try finding file on sdcard
+        file = new File(Environment.getExternalStorageDirectory(), path);
+        if (file.exists()) {
+            return new Resolution(Uri.fromFile(file), SOURCE_EXTERNAL, fileExpiresAt);
+        }
+
+        // Try finding file by full path
+        file = new File(path);
+        if (file.exists()) {
+            return new Resolution(Uri.fromFile(file), SOURCE_ABSOLUTE, fileExpiresAt);
+        }
+
+        // Try finding file in Android "raw" resources. URIs and paths can't name one.
+        if (path.indexOf(':') < 0 && path.indexOf('/') < 0) {
+            if (path.lastIndexOf('.') != -1) {
+                fileNameWithoutExt = path.substring(0, path.lastIndexOf('.'));
+            } else {
+                fileNameWithoutExt = path;
+            }
+
+            int resId = rawResourceId(fileNameWithoutExt);
+            if (resId != 0) {
+                Uri uri = Uri.parse("android.resource://" + this.context.getPackageName() + "/" + resId);
+                return new Resolution(uri, SOURCE_RAW, Long.MAX_VALUE);
+            }
+        }
+
+        // Otherwise pass whole path string as URI and hope for the best. Only URIs with a scheme
+        // are kept, anything else may still turn out to be a file later. Inline data URIs are
+        // never kept, they would only pin large strings.
+        Uri uri = Uri.parse(path);
+        String scheme = uri.getScheme();
+        if (scheme == null) {
+            return new Resolution(uri, SOURCE_URI, fileExpiresAt);
+        }
+        return new Resolution(uri, SOURCE_URI, "data".equals(scheme) ? 0 : Long.MAX_VALUE);
+    }
+
+    private synchronized File getFilesDir() {
+        if (filesDir == null) {
+            filesDir = this.context.getFilesDir();
+        }
+        return filesDir;
+    }
+
+    private int rawResourceId(String name) {
+        Map<String, Integer> table = rawResourceTable();
+        if (table != null) {
+            Integer resId = table.get(name);
+            if (resId != null) {
+                return resId;
+            }
+        }
+
+        // Not in the R class, which R8 may have shrunk, or the class could not be read, e.g.
+        // because the app's namespace differs from its package name. Fall back to the slow lookup
+        // and remember the ids it finds. Misses are not kept, the resolution cache covers them.
+        int resId = this.context.getResources().getIdentifier(name, "raw", this.context.getPackageName());
+        if (table != null && resId != 0) {
+            table.put(name, resId);
+        }
+        return resId;
+    }
+
+    // Reads all raw resource ids from the app's R.raw class once, instead of one reflective
+    // Resources.getIdentifier call per lookup
+    private Map<String, Integer> rawResourceTable() {
+        if (rawResourcesLoaded) {
+            return rawResources;
+        }
+
+        synchronized (this) {
+            if (!rawResourcesLoaded) {
+                rawResources = loadRawResources();
+                rawResourcesLoaded = true;
+            }
+            return rawResources;
+        }
+    }
+
+    private Map<String, Integer> loadRawResources() {
+        try {
+            Class<?> rawClass = Class.forName(this.context.getPackageName() + ".R$raw");
+            // Ids found by lookups that miss the R class are added, from any thread
+            Map<String, Integer> table = new ConcurrentHashMap<>();
+            for (Field field : rawClass.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                    table.put(field.getName(), field.getInt(null));
+                }
+            }
+            return table;
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    // Returns the raw resource id of an "android.resource://" URI created by uriFromPath, or 0
+    static int resourceIdFromUri(Uri uri) {
+        if (!"android.resource".equals(uri.getScheme())) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(uri.getLastPathSegment());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Byte budgeted LRU cache of decoded PCM, shared by the engines that play decoded samples, so that
+ * loading the same file again does not decode it again. Entries are reference counted: an entry
+ * that is still acquired is never evicted, even when that keeps the cache over its budget, and is
+ * only dropped once it was released and is the least recently used.
+ */
+class PcmCache {
+    static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+    // Part of every key, a different decoded format must not share entries
+    private static final String FORMAT = "f32";
+
+    static class Entry {
+        final String key;
+        final MixerCore.Sample sample;
+
+        // Guarded by the cache
+        private int refCount = 0;
+
+        Entry(String key, MixerCore.Sample sample) {
+            this.key = key;
+            this.sample = sample;
+        }
+    }
+
+    private final Context context;
+
+    // Entries by key in access order, guarded by `this`
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes = 0;
+    private long maxBytes = DEFAULT_MAX_SIZE;
+    private boolean offHeap = false;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    PcmCache(Context context) {
+        this.context = context;
+    }
+
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    // Only applies to samples decoded from now on
+    synchronized void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    // Drops all entries that are not in use
+    synchronized void clear() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.refCount == 0) {
+                residentBytes -= entry.sample.bytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized Map<String, Object> stats() {
+        long pinnedBytes = 0;
+        int pinned = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.refCount > 0) {
+                pinnedBytes += entry.sample.bytes();
+                pinned++;
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        long requests = hits + misses;
+        stats.put("hits", (double) hits);
+        stats.put("misses", (double) misses);
+        stats.put("hitRatio", requests > 0 ? (double) hits / requests : 0.0);
+        stats.put("evictions", (double) evictions);
+        stats.put("residentBytes", (double) residentBytes);
+        stats.put("pinnedBytes", (double) pinnedBytes);
+        stats.put("maxSize", (double) maxBytes);
+        stats.put("entries", entries.size());
+        stats.put("pinned", pinned);
+        stats.put("offHeap", offHeap);
+        return stats;
+    }
+
+    /**
+     * Returns the decoded clip at `uri`, decoding it on a miss. Every acquired entry must be
+     * released again once it is no longer played.
+     */
+    Entry acquire(Uri uri, int maxSamples) throws IOException {
+        String key = FORMAT + ":" + uri.toString();
+        boolean offHeap;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                entry.refCount++;
+                return entry;
+            }
+            misses++;
+            offHeap = this.offHeap;
+        }
+
+        // Decoded outside the lock, two loads missing the same clip at once both decode it
+        MixerCore.Sample sample = PcmDecoder.decode(this.context, uri, maxSamples, offHeap);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, sample);
+                entries.put(key, entry);
+                residentBytes += sample.bytes();
+            }
+            entry.refCount++;
+            trim();
+            return entry;
+        }
+    }
+
+    synchronized void release(Entry entry) {
+        if (entry.refCount > 0) {
+            entry.refCount--;
+        }
+        trim();
+    }
+
+    // Must be called while holding the lock. Entries in use are skipped.
+    private void trim() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (residentBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.refCount > 0) {
+                continue;
+            }
+            residentBytes -= entry.sample.bytes();
+            evictions++;
+            iterator.remove();
+        }
+    }
+}
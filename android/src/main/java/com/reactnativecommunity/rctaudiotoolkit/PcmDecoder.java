@@ -0,0 +1,224 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Decodes audio files into float PCM with MediaExtractor and MediaCodec, either whole, so that it
+ * can be played any number of times by the mixer without decoding it again, or streamed through a
+ * Sink one codec buffer at a time. Sources with more than two channels are reduced to their front
+ * left and right channels. Off heap, whole samples are kept in a direct buffer instead of a float
+ * array.
+ */
+class PcmDecoder {
+    private static final long TIMEOUT_US = 10000;
+
+    private PcmDecoder() {
+    }
+
+    /**
+     * Receives decoded audio while it is decoded. Throwing an IOException from a callback stops
+     * decoding and is rethrown by decode().
+     */
+    interface Sink {
+        // Called before the first frames, and again whenever the output format changes. The
+        // duration is that of the source track, or -1 when it is not known.
+        void onFormat(int channels, int sampleRate, long durationUs) throws IOException;
+
+        // `samples` holds `frames` interleaved frames, it is only valid during the call
+        void onFrames(float[] samples, int frames) throws IOException;
+    }
+
+    // Collects a whole clip into one growing array
+    private static class Collector implements Sink {
+        private final int maxSamples;
+        float[] samples = new float[16 * 1024];
+        int count = 0;
+        int channels = 0;
+        int sampleRate = 0;
+
+        Collector(int maxSamples) {
+            this.maxSamples = maxSamples;
+        }
+
+        @Override
+        public void onFormat(int channels, int sampleRate, long durationUs) {
+            this.channels = channels;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public void onFrames(float[] frameSamples, int frames) throws IOException {
+            int length = frames * channels;
+            if (count + length > maxSamples) {
+                throw new IOException("Clip is too long to be decoded into memory");
+            }
+            if (count + length > samples.length) {
+                samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + length));
+            }
+            System.arraycopy(frameSamples, 0, samples, count, length);
+            count += length;
+        }
+    }
+
+    // Fails with an IOException if the decoded clip would hold more than `maxSamples` samples
+    static MixerCore.Sample decode(Context context, Uri uri, int maxSamples, boolean offHeap) throws IOException {
+        Collector collector = new Collector(maxSamples);
+        decode(context, uri, collector);
+
+        int channels = collector.channels;
+        int count = collector.count;
+        if (channels == 0 || count < channels) {
+            throw new IOException("Decoded clip is empty");
+        }
+        if (offHeap) {
+            FloatBuffer buffer = ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            buffer.put(collector.samples, 0, count);
+            return new MixerCore.Sample(buffer, channels, collector.sampleRate);
+        }
+        return new MixerCore.Sample(Arrays.copyOf(collector.samples, count), channels, collector.sampleRate);
+    }
+
+    // Streams the first audio track of `uri` through `sink`, on the calling thread
+    static void decode(Context context, Uri uri, Sink sink) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(context, uri, null);
+
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat trackFormat = extractor.getTrackFormat(i);
+                String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    format = trackFormat;
+                    break;
+                }
+            }
+            if (format == null) {
+                throw new IOException("No audio track in " + uri);
+            }
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            drain(extractor, codec, format, sink);
+        } catch (IllegalStateException e) {
+            throw new IOException("Decoding " + uri + " failed: " + e.toString());
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException e) {
+                    // Never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void drain(MediaExtractor extractor, MediaCodec codec, MediaFormat format, Sink sink)
+            throws IOException {
+        int sourceChannels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+        int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+        long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : -1;
+        boolean floatPcm = false;
+        sink.onFormat(Math.min(sourceChannels, 2), sampleRate, durationUs);
+
+        ByteBuffer[] inputBuffers = codec.getInputBuffers();
+        ByteBuffer[] outputBuffers = codec.getOutputBuffers();
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+
+        // Converted output of one codec buffer, grown when a bigger buffer comes along
+        float[] samples = new float[8 * 1024];
+        boolean inputDone = false;
+
+        while (true) {
+            if (!inputDone) {
+                int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                if (inputIndex >= 0) {
+                    ByteBuffer input = inputBuffers[inputIndex];
+                    input.clear();
+                    int size = extractor.readSampleData(input, 0);
+                    if (size < 0) {
+                        codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                        inputDone = true;
+                    } else {
+                        codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                        extractor.advance();
+                    }
+                }
+            }
+
+            int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+            if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                MediaFormat outputFormat = codec.getOutputFormat();
+                sourceChannels = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                floatPcm = outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                        && outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT;
+                sink.onFormat(Math.min(sourceChannels, 2), sampleRate, durationUs);
+                continue;
+            }
+            if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                outputBuffers = codec.getOutputBuffers();
+                continue;
+            }
+            if (outputIndex < 0) {
+                continue;
+            }
+
+            ByteBuffer output = outputBuffers[outputIndex];
+            output.position(info.offset);
+            output.limit(info.offset + info.size);
+            output.order(ByteOrder.nativeOrder());
+
+            int channels = Math.min(sourceChannels, 2);
+            int frames = info.size / ((floatPcm ? 4 : 2) * sourceChannels);
+            if (frames * channels > samples.length) {
+                samples = new float[frames * channels];
+            }
+
+            int count = 0;
+            if (floatPcm) {
+                FloatBuffer pcm = output.asFloatBuffer();
+                for (int f = 0; f < frames; f++) {
+                    for (int c = 0; c < channels; c++) {
+                        samples[count++] = pcm.get(f * sourceChannels + c);
+                    }
+                }
+            } else {
+                ShortBuffer pcm = output.asShortBuffer();
+                for (int f = 0; f < frames; f++) {
+                    for (int c = 0; c < channels; c++) {
+                        samples[count++] = pcm.get(f * sourceChannels + c) / 32768.0f;
+                    }
+                }
+            }
+            codec.releaseOutputBuffer(outputIndex, false);
+
+            if (frames > 0) {
+                sink.onFrames(samples, frames);
+            }
+
+            if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Records 16 bit PCM with AudioRecord. A dedicated capture thread reads blocks into preallocated
+ * buffers and pushes them into a ring buffer, from which chunks are delivered to the listener at a
+ * fixed cadence on a separate thread. The delivery thread also writes the optional WAV file, so
+ * that disk I/O never blocks the capture thread.
+ *
+ * Blocks and chunks always hold whole frames, a 16 bit sample is never split between two chunks.
+ */
+class PcmRecorder {
+    private static final String LOG_TAG = "PcmRecorder";
+    private static final int WAV_HEADER_SIZE = 44;
+    private static final int RING_SECONDS = 4;
+
+    interface Listener {
+        // `data` is reused for the next chunk and must not be kept
+        void onChunk(byte[] data, int length, long sequence);
+
+        void onError(String message);
+    }
+
+    private final int sampleRate;
+    private final int channels;
+    private final int chunkInterval;
+    private final String filePath;
+    private final Listener listener;
+
+    private AudioRecord audioRecord;
+    private RandomAccessFile file;
+    private long fileDataBytes = 0;
+
+    private PcmRingBuffer ring;
+    private short[] captureSamples;
+    private byte[] captureBytes;
+    private byte[] chunk;
+    private long sequence = 0;
+
+    private Thread captureThread;
+    private HandlerThread deliveryThread;
+    private Handler deliveryHandler;
+    private volatile boolean capturing = false;
+
+    final LevelMeter meter = new LevelMeter();
+    volatile boolean metering = false;
+
+    PcmRecorder(int sampleRate, int channels, int chunkInterval, String filePath, Listener listener) {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.chunkInterval = chunkInterval;
+        this.filePath = filePath;
+        this.listener = listener;
+    }
+
+    void prepare() throws IOException {
+        int channelConfig = channels == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+        int minBufferSize = AudioRecord.getMinBufferSize(sampleRate, channelConfig, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferSize <= 0) {
+            throw new IOException("Unsupported PCM configuration (sampleRate: " + sampleRate
+                    + ", channels: " + channels + ")");
+        }
+
+        audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, channelConfig,
+                AudioFormat.ENCODING_PCM_16BIT, minBufferSize * 2);
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            audioRecord.release();
+            audioRecord = null;
+            throw new IOException("AudioRecord could not be initialized");
+        }
+
+        int frameBytes = channels * 2;
+        int bytesPerSecond = sampleRate * frameBytes;
+        int blockBytes = Math.max(frameBytes, minBufferSize / 2 / frameBytes * frameBytes);
+        int chunkBytes = Math.max(blockBytes, bytesPerSecond * chunkInterval / 1000 / frameBytes * frameBytes);
+        ring = new PcmRingBuffer(Math.max(bytesPerSecond * RING_SECONDS, chunkBytes * 2));
+        captureSamples = new short[blockBytes / 2];
+        captureBytes = new byte[blockBytes];
+        chunk = new byte[chunkBytes];
+
+        if (filePath != null) {
+            file = new RandomAccessFile(filePath, "rw");
+            file.setLength(0);
+            file.write(new byte[WAV_HEADER_SIZE]);
+        }
+
+        deliveryThread = new HandlerThread("PcmRecorderDelivery");
+        deliveryThread.start();
+        deliveryHandler = new Handler(deliveryThread.getLooper());
+    }
+
+    void start() {
+        if (capturing) {
+            return;
+        }
+
+        capturing = true;
+        audioRecord.startRecording();
+        captureThread = new Thread(capture, "PcmRecorderCapture");
+        captureThread.start();
+        deliveryHandler.postDelayed(deliver, chunkInterval);
+    }
+
+    // Stops capturing but keeps the recorder prepared, start() continues the same recording
+    void pause() {
+        if (!capturing) {
+            return;
+        }
+
+        capturing = false;
+        try {
+            captureThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        audioRecord.stop();
+        deliveryHandler.removeCallbacks(deliver);
+        deliveryHandler.post(drain);
+    }
+
+    void stop() throws IOException {
+        pause();
+
+        // Wait for the last chunk to be delivered before finishing the file
+        final Object lock = new Object();
+        synchronized (lock) {
+            deliveryHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (lock) {
+                        lock.notify();
+                    }
+                }
+            });
+            try {
+                lock.wait(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        finishFile();
+    }
+
+    void release() {
+        capturing = false;
+        if (captureThread != null) {
+            try {
+                captureThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (deliveryThread != null) {
+            // The file is finished below, the delivery thread must be done writing it
+            deliveryThread.quit();
+            try {
+                deliveryThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (audioRecord != null) {
+            audioRecord.release();
+            audioRecord = null;
+        }
+        try {
+            finishFile();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to finish PCM file: " + e.toString());
+        }
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    int getChannels() {
+        return channels;
+    }
+
+    // Upper bound of the chunk length passed to the listener, known once prepared
+    int getChunkBytes() {
+        return chunk.length;
+    }
+
+    long getOverrunBytes() {
+        return ring.overrunBytes();
+    }
+
+    private final Runnable capture = new Runnable() {
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+            while (capturing) {
+                int samples = audioRecord.read(captureSamples, 0, captureSamples.length);
+                if (samples < 0) {
+                    capturing = false;
+                    listener.onError("AudioRecord read failed with code " + samples);
+                    break;
+                }
+
+                if (metering) {
+                    meter.process(captureSamples, samples);
+                }
+
+                // 16 bit little endian, the layout of WAV files
+                int bytes = samples * 2;
+                for (int i = 0; i < samples; i++) {
+                    short sample = captureSamples[i];
+                    captureBytes[i * 2] = (byte) sample;
+                    captureBytes[i * 2 + 1] = (byte) (sample >> 8);
+                }
+
+                ring.write(captureBytes, 0, bytes);
+            }
+        }
+    };
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            while (ring.available() > 0) {
+                int length = ring.read(chunk, 0, chunk.length);
+                writeFile(chunk, length);
+                listener.onChunk(chunk, length, sequence++);
+            }
+        }
+    };
+
+    private final Runnable deliver = new Runnable() {
+        @Override
+        public void run() {
+            drain.run();
+            if (capturing) {
+                deliveryHandler.postDelayed(this, chunkInterval);
+            }
+        }
+    };
+
+    // Delivery thread only, until finishFile() runs once delivery is done
+    private void writeFile(byte[] data, int length) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            file.write(data, 0, length);
+            fileDataBytes += length;
+        } catch (IOException e) {
+            capturing = false;
+            try {
+                file.close();
+            } catch (IOException closeError) {
+                // Already failing
+            }
+            file = null;
+            listener.onError("Failed to write PCM file: " + e.toString());
+        }
+    }
+
+    private void finishFile() throws IOException {
+        if (file == null) {
+            return;
+        }
+
+        int byteRate = sampleRate * channels * 2;
+        byte[] header = new byte[WAV_HEADER_SIZE];
+        writeString(header, 0, "RIFF");
+        writeInt(header, 4, (int) (fileDataBytes + WAV_HEADER_SIZE - 8));
+        writeString(header, 8, "WAVE");
+        writeString(header, 12, "fmt ");
+        writeInt(header, 16, 16);
+        writeShort(header, 20, (short) 1); // PCM
+        writeShort(header, 22, (short) channels);
+        writeInt(header, 24, sampleRate);
+        writeInt(header, 28, byteRate);
+        writeShort(header, 32, (short) (channels * 2));
+        writeShort(header, 34, (short) 16);
+        writeString(header, 36, "data");
+        writeInt(header, 40, (int) fileDataBytes);
+
+        file.seek(0);
+        file.write(header);
+        file.close();
+        file = null;
+    }
+
+    private static void writeString(byte[] dst, int offset, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            dst[offset + i] = (byte) value.charAt(i);
+        }
+    }
+
+    private static void writeInt(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) value;
+        dst[offset + 1] = (byte) (value >> 8);
+        dst[offset + 2] = (byte) (value >> 16);
+        dst[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static void writeShort(byte[] dst, int offset, short value) {
+        dst[offset] = (byte) value;
+        dst[offset + 1] = (byte) (value >> 8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+/**
+ * Single producer, single consumer byte ring buffer between the capture thread and the thread
+ * delivering chunks. Storage is allocated once; when the consumer falls behind, new data is
+ * dropped and counted instead of blocking the capture thread.
+ */
+class PcmRingBuffer {
+    private final byte[] buffer;
+    private volatile long writePosition = 0;
+    private volatile long readPosition = 0;
+    private volatile long overrunBytes = 0;
+
+    PcmRingBuffer(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    int available() {
+        return (int) (writePosition - readPosition);
+    }
+
+    long overrunBytes() {
+        return overrunBytes;
+    }
+
+    // Producer side
+    int write(byte[] src, int offset, int length) {
+        int free = buffer.length - available();
+        int count = Math.min(free, length);
+        if (count < length) {
+            overrunBytes += length - count;
+        }
+
+        int start = (int) (writePosition % buffer.length);
+        int first = Math.min(count, buffer.length - start);
+        System.arraycopy(src, offset, buffer, start, first);
+        System.arraycopy(src, offset + first, buffer, 0, count - first);
+        writePosition += count;
+
+        return count;
+    }
+
+    // Consumer side
+    int read(byte[] dst, int offset, int length) {
+        int count = Math.min(available(), length);
+
+        int start = (int) (readPosition % buffer.length);
+        int first = Math.min(count, buffer.length - start);
+        System.arraycopy(buffer, start, dst, offset, first);
+        System.arraycopy(buffer, 0, dst, offset + first, count - first);
+        readPosition += count;
+
+        return count;
+    }
+
+    void clear() {
+        readPosition = writePosition;
+    }
+}
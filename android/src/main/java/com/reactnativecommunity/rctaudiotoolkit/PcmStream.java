@@ -0,0 +1,203 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands the chunks of a streaming PCM recorder to native consumers through one direct ByteBuffer,
+ * instead of base64 encoding them into bridge events. The buffer is a ring of fixed size slots,
+ * one chunk per slot, addressed by a sequence number that counts up from 0. The delivery thread
+ * copies each chunk from the capture ring into its slot; from there consumers read it in place and
+ * release it once done with it, and JSI bindings can wrap the buffer's memory as an ArrayBuffer.
+ *
+ * While every slot holds an unreleased chunk the stream is full, and new chunks are dropped and
+ * counted instead of blocking the recorder.
+ *
+ * Layout, in native byte order: a header of HEADER_SIZE bytes with the write sequence (long at
+ * 0), the read sequence (long at 8) and the dropped chunk count (long at 16), then the slots. Each
+ * slot starts with the chunk's sequence (long) and length in bytes (int) in SLOT_HEADER_SIZE bytes,
+ * followed by the 16 bit PCM data. Slots are getSlotSize() bytes apart, a multiple of 8, so that
+ * every slot header is aligned for 8 byte reads. The header is updated after the slot it announces was written.
+ * Java consumers should use the getters, which are safely published.
+ */
+public class PcmStream {
+    public static final int HEADER_SIZE = 32;
+    public static final int SLOT_HEADER_SIZE = 16;
+
+    private static final int WRITE_SEQUENCE_OFFSET = 0;
+    private static final int READ_SEQUENCE_OFFSET = 8;
+    private static final int DROPPED_OFFSET = 16;
+
+    public interface Consumer {
+        // Called on the recorder's delivery thread right after a chunk was published. Should only
+        // hand the sequence over to another thread, the next chunk waits for this call.
+        void onChunk(PcmStream stream, long sequence);
+
+        // No chunks follow once the recorder was stopped or destroyed
+        void onEnd(PcmStream stream);
+    }
+
+    private final ByteBuffer buffer;
+    // Shares the memory but has its own position, only used by the delivery thread
+    private final ByteBuffer producer;
+    private final int slots;
+    private final int chunkBytes;
+    private final int slotSize;
+    private final int sampleRate;
+    private final int channels;
+
+    private volatile long writeSequence = 0;
+    private volatile long readSequence = 0;
+    private volatile long dropped = 0;
+    private volatile boolean ended = false;
+    private volatile Consumer consumer;
+
+    // Back-pressure last reported to JS, delivery thread only
+    boolean signalledFull = false;
+
+    PcmStream(int slots, int chunkBytes, int sampleRate, int channels) {
+        this.slots = slots;
+        this.chunkBytes = chunkBytes;
+        this.slotSize = (SLOT_HEADER_SIZE + chunkBytes + 7) & ~7;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.buffer = ByteBuffer.allocateDirect(HEADER_SIZE + slots * slotSize).order(ByteOrder.nativeOrder());
+        this.producer = buffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    // A view of the whole stream memory with its own position, see the class comment for the layout
+    public ByteBuffer getBuffer() {
+        return buffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    public int getSlotCount() {
+        return slots;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    // Distance between the starts of two slots, at least SLOT_HEADER_SIZE + getChunkBytes()
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    // Sequence of the next chunk to be published, every sequence below it was published
+    public long getWriteSequence() {
+        return writeSequence;
+    }
+
+    // Sequence of the oldest chunk not released yet
+    public long getReadSequence() {
+        return readSequence;
+    }
+
+    public long getDroppedChunks() {
+        return dropped;
+    }
+
+    public boolean isFull() {
+        return writeSequence - readSequence >= slots;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public void setConsumer(Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    // Buffer offset of the PCM data of a published chunk that was not released yet
+    public int offsetOf(long sequence) {
+        return slotOffset(sequence) + SLOT_HEADER_SIZE;
+    }
+
+    public int lengthOf(long sequence) {
+        return buffer.getInt(slotOffset(sequence) + 8);
+    }
+
+    /**
+     * Releases every chunk up to and including `sequence`, so that their slots can be written
+     * again. Releasing chunks that were already released does nothing.
+     */
+    public synchronized void release(long sequence) {
+        long next = Math.min(sequence + 1, writeSequence);
+        if (next > readSequence) {
+            readSequence = next;
+            buffer.putLong(READ_SEQUENCE_OFFSET, next);
+        }
+    }
+
+    Map<String, Object> stats() {
+        long write = writeSequence;
+        long read = readSequence;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("slots", slots);
+        stats.put("chunkBytes", chunkBytes);
+        stats.put("writeSequence", (double) write);
+        stats.put("readSequence", (double) read);
+        stats.put("pending", (double) (write - read));
+        stats.put("dropped", (double) dropped);
+        stats.put("full", write - read >= slots);
+        stats.put("ended", ended);
+        return stats;
+    }
+
+    // Delivery thread only. Returns false when the chunk was dropped because the stream is full.
+    boolean publish(byte[] data, int length) {
+        if (ended) {
+            return false;
+        }
+        long sequence = writeSequence;
+        if (sequence - readSequence >= slots) {
+            dropped++;
+            producer.putLong(DROPPED_OFFSET, dropped);
+            return false;
+        }
+
+        int slot = slotOffset(sequence);
+        int count = Math.min(length, chunkBytes);
+        producer.position(slot + SLOT_HEADER_SIZE);
+        producer.put(data, 0, count);
+        producer.putLong(slot, sequence);
+        producer.putInt(slot + 8, count);
+
+        writeSequence = sequence + 1;
+        producer.putLong(WRITE_SEQUENCE_OFFSET, sequence + 1);
+
+        Consumer consumer = this.consumer;
+        if (consumer != null) {
+            consumer.onChunk(this, sequence);
+        }
+        return true;
+    }
+
+    void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+
+        Consumer consumer = this.consumer;
+        if (consumer != null) {
+            consumer.onEnd(this);
+        }
+    }
+
+    private int slotOffset(long sequence) {
+        return HEADER_SIZE + (int) (sequence % slots) * slotSize;
+    }
+}
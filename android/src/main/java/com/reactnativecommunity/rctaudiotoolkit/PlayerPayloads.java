@@ -0,0 +1,44 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+/**
+ * Builds the maps that player events and playback info are sent to JS in. They are built for
+ * every event and every info poll, so they are kept apart from the module, where the benchmarks
+ * can build them without a MediaPlayer.
+ */
+final class PlayerPayloads {
+    private PlayerPayloads() {
+    }
+
+    // Playback info from values read off the player, `state` is null for players not registered
+    static WritableMap info(PlayerRegistry.PlayerState state, int duration, int position, int audioSessionId) {
+        WritableMap info = Arguments.createMap();
+        info.putDouble("duration", duration);
+        info.putDouble("position", position);
+        info.putDouble("audioSessionId", audioSessionId);
+
+        if (state != null && state.loopEnd >= 0) {
+            info.putDouble("loopStart", state.loopStart);
+            info.putDouble("loopEnd", state.loopEnd);
+            info.putDouble("regionLoops", state.regionLoops);
+        }
+
+        if (state != null && state.readableTimes) {
+            info.putString("durationReadable", DurationFormat.format(duration));
+            info.putString("positionReadable", DurationFormat.format(duration - position));
+        }
+
+        return info;
+    }
+
+    static WritableMap event(String playerId, String event, WritableMap data) {
+        WritableMap payload = new WritableNativeMap();
+        payload.putString("playerId", playerId);
+        payload.putString("event", event);
+        payload.putMap("data", data);
+        return payload;
+    }
+}
@@ -0,0 +1,463 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of media items that are played back to back without gaps. The items after the current
+ * one are prepared ahead of time and chained with MediaPlayer.setNextMediaPlayer, so the platform
+ * starts the next item the moment the current one completes instead of waiting for JS.
+ *
+ * At most `preload` items are prepared ahead of the current one and players are released as soon
+ * as their item is done, so a queue never holds more than preload + 1 native players. A looping
+ * queue holds at most one player per item, except that a single looping item is prepared twice so
+ * that it can be chained to itself.
+ *
+ * All methods are synchronized: they are called from the queue's media control lane and from the
+ * MediaPlayer listeners on the main looper.
+ */
+class PlayerQueue {
+    static final int MAX_PRELOAD = 4;
+
+    interface Listener {
+        void onQueueEvent(String queueId, String event, WritableMap data);
+    }
+
+    private static class Item {
+        final String path;
+        int duration = -1;
+        boolean failed = false;
+
+        Item(String path) {
+            this.path = path;
+        }
+    }
+
+    // A prepared or preparing player for one item, in playback order
+    private static class Slot {
+        final int index;
+        final MediaPlayer player;
+        boolean prepared = false;
+        boolean chained = false;
+
+        Slot(int index, MediaPlayer player) {
+            this.index = index;
+            this.player = player;
+        }
+    }
+
+    private final String queueId;
+    private final Context context;
+    private final PathResolver pathResolver;
+    private final Listener listener;
+    private final List<Item> items = new ArrayList<>();
+    private final List<Slot> slots = new ArrayList<>();
+
+    private int preload;
+    private boolean looping;
+    private float volume = 1.0f;
+    private boolean playing = false;
+    private boolean released = false;
+    private int loops = 0;
+    private Callback readyCallback;
+
+    PlayerQueue(String queueId, Context context, PathResolver pathResolver, List<String> paths,
+                int preload, boolean looping, Listener listener) {
+        this.queueId = queueId;
+        this.context = context;
+        this.pathResolver = pathResolver;
+        this.listener = listener;
+        this.preload = clampPreload(preload);
+        this.looping = looping;
+
+        for (String path : paths) {
+            items.add(new Item(path));
+        }
+    }
+
+    static int clampPreload(int preload) {
+        return Math.max(1, Math.min(MAX_PRELOAD, preload));
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    // Prepares the item at `index` and the ones after it, calls back once the first one is ready
+    synchronized void start(int index, Callback callback) {
+        this.readyCallback = callback;
+        jumpTo(index);
+    }
+
+    synchronized void play() {
+        playing = true;
+
+        if (slots.isEmpty()) {
+            // Queue has ended, play it again from the start
+            loops = 0;
+            jumpTo(0);
+            return;
+        }
+
+        Slot current = slots.get(0);
+        if (current.prepared) {
+            current.player.start();
+        }
+    }
+
+    synchronized void pause() {
+        playing = false;
+
+        if (!slots.isEmpty() && slots.get(0).prepared) {
+            slots.get(0).player.pause();
+        }
+    }
+
+    synchronized void skip(int index) {
+        int previousIndex = slots.isEmpty() ? -1 : slots.get(0).index;
+        jumpTo(index);
+        if (!slots.isEmpty()) {
+            emitItemChange(slots.get(0).index, previousIndex);
+        }
+    }
+
+    synchronized void setVolume(float volume) {
+        this.volume = volume;
+        for (Slot slot : slots) {
+            slot.player.setVolume(volume, volume);
+        }
+    }
+
+    // Both change which items come next, so everything after the current item is prepared again
+    synchronized void setLooping(boolean looping) {
+        this.looping = looping;
+        dropUpcoming();
+        fill();
+    }
+
+    synchronized void setPreload(int preload) {
+        this.preload = clampPreload(preload);
+        dropUpcoming();
+        fill();
+    }
+
+    synchronized WritableMap getInfo() {
+        WritableMap info = new WritableNativeMap();
+        int index = -1;
+        int position = 0;
+        int duration = -1;
+
+        if (!slots.isEmpty()) {
+            Slot current = slots.get(0);
+            index = current.index;
+            duration = items.get(index).duration;
+            if (current.prepared) {
+                position = current.player.getCurrentPosition();
+            }
+        }
+
+        // Position across the whole queue, only counting items whose duration is known
+        long queuePosition = position;
+        long queueDuration = 0;
+        boolean durationKnown = true;
+        for (int i = 0; i < items.size(); i++) {
+            int itemDuration = items.get(i).duration;
+            if (itemDuration < 0) {
+                if (!items.get(i).failed) {
+                    durationKnown = false;
+                }
+                continue;
+            }
+            queueDuration += itemDuration;
+            if (i < index) {
+                queuePosition += itemDuration;
+            }
+        }
+
+        info.putInt("index", index);
+        info.putInt("count", items.size());
+        info.putDouble("position", position);
+        info.putDouble("duration", duration);
+        info.putDouble("queuePosition", queuePosition);
+        info.putDouble("queueDuration", queueDuration);
+        info.putBoolean("queueDurationKnown", durationKnown);
+        info.putInt("loops", loops);
+        info.putInt("preloaded", Math.max(0, slots.size() - 1));
+        info.putBoolean("playing", playing);
+        return info;
+    }
+
+    synchronized void release() {
+        released = true;
+        playing = false;
+        for (Slot slot : slots) {
+            slot.player.release();
+        }
+        slots.clear();
+    }
+
+    private void jumpTo(int index) {
+        for (Slot slot : slots) {
+            slot.player.release();
+        }
+        slots.clear();
+
+        int first = playableIndex(index);
+        while (first >= 0 && !addSlot(first)) {
+            first = playableIndex(first);
+        }
+        if (first < 0) {
+            failReady("No playable item in queue");
+            return;
+        }
+
+        fill();
+    }
+
+    // Prepares upcoming items until `preload` of them are in flight
+    private void fill() {
+        int maxSlots = Math.min(preload + 1, Math.max(items.size(), 2));
+        while (!released && !slots.isEmpty() && slots.size() < maxSlots) {
+            // Items that fail to load are marked, so the next round moves past them
+            int next = nextIndex(slots.get(slots.size() - 1).index);
+            if (next < 0) {
+                return;
+            }
+            addSlot(next);
+        }
+    }
+
+    private void dropUpcoming() {
+        while (slots.size() > 1) {
+            Slot slot = slots.remove(slots.size() - 1);
+            slot.player.release();
+        }
+        if (!slots.isEmpty() && slots.get(0).chained) {
+            slots.get(0).player.setNextMediaPlayer(null);
+            slots.get(0).chained = false;
+        }
+    }
+
+    private int nextIndex(int index) {
+        int next = index + 1;
+        if (next >= items.size()) {
+            if (!looping) {
+                return -1;
+            }
+            next = 0;
+        }
+        return playableIndex(next);
+    }
+
+    // First item at or after `index` that did not fail to load, wrapping around when looping
+    private int playableIndex(int index) {
+        for (int i = 0; i < items.size(); i++) {
+            int candidate = index + i;
+            if (candidate >= items.size()) {
+                if (!looping) {
+                    return -1;
+                }
+                candidate -= items.size();
+            }
+            if (candidate >= 0 && !items.get(candidate).failed) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private boolean addSlot(final int index) {
+        final MediaPlayer player = new MediaPlayer();
+        final Slot slot = new Slot(index, player);
+
+        try {
+            player.setDataSource(context, pathResolver.uriFromPath(items.get(index).path));
+        } catch (IOException e) {
+            player.release();
+            items.get(index).failed = true;
+            emitError(index, AudioErrors.INVALID_PATH, e.toString());
+            return false;
+        }
+
+        player.setVolume(volume, volume);
+        player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+            @Override
+            public void onPrepared(MediaPlayer mp) {
+                onSlotPrepared(slot);
+            }
+        });
+        player.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
+            @Override
+            public void onCompletion(MediaPlayer mp) {
+                onSlotCompleted(slot);
+            }
+        });
+        player.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+            @Override
+            public boolean onError(MediaPlayer mp, int what, int extra) {
+                onSlotError(slot, what, extra);
+                return true; // don't call onCompletion listener afterwards
+            }
+        });
+
+        slots.add(slot);
+        try {
+            player.prepareAsync();
+        } catch (IllegalStateException e) {
+            slots.remove(slot);
+            player.release();
+            items.get(index).failed = true;
+            emitError(index, AudioErrors.PREPARE, e.toString());
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized void onSlotPrepared(Slot slot) {
+        if (released || !slots.contains(slot)) {
+            return;
+        }
+
+        slot.prepared = true;
+        items.get(slot.index).duration = slot.player.getDuration();
+        chain();
+
+        if (slot == slots.get(0)) {
+            if (readyCallback != null) {
+                readyCallback.invoke(null, getInfo());
+                readyCallback = null;
+            }
+            if (playing) {
+                slot.player.start();
+            }
+        }
+    }
+
+    // Hands every prepared player over to the prepared player after it
+    private void chain() {
+        for (int i = 0; i + 1 < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            Slot next = slots.get(i + 1);
+            if (!slot.chained && slot.prepared && next.prepared) {
+                slot.player.setNextMediaPlayer(next.player);
+                slot.chained = true;
+            }
+        }
+    }
+
+    private synchronized void onSlotCompleted(Slot slot) {
+        if (released || slots.isEmpty() || slots.get(0) != slot) {
+            return;
+        }
+
+        // A chained next player has already been started by the platform
+        slots.remove(0);
+        slot.player.release();
+        advanceFrom(slot.index);
+    }
+
+    private synchronized void onSlotError(Slot slot, int what, int extra) {
+        int position = slots.indexOf(slot);
+        if (released || position < 0) {
+            return;
+        }
+
+        WritableMap err = new WritableNativeMap();
+        err.putInt("what", what);
+        err.putInt("extra", extra);
+        WritableMap data = new WritableNativeMap();
+        data.putInt("index", slot.index);
+        data.putMap("err", err);
+        data.putString("message", "Android MediaPlayer error");
+        listener.onQueueEvent(queueId, "error", data);
+
+        items.get(slot.index).failed = true;
+        if (position > 0 && slots.get(position - 1).chained) {
+            slots.get(position - 1).player.setNextMediaPlayer(null);
+            slots.get(position - 1).chained = false;
+        }
+        slots.remove(position);
+        slot.player.release();
+
+        if (position == 0) {
+            advanceFrom(slot.index);
+        } else {
+            // Drop what came after the failed item too, the items that follow it have changed
+            dropUpcoming();
+            fill();
+        }
+    }
+
+    private void advanceFrom(int previousIndex) {
+        if (slots.isEmpty()) {
+            // Nothing was preloaded, either the queue ended or every following item failed
+            int next = nextIndex(previousIndex);
+            while (next >= 0 && !addSlot(next)) {
+                next = nextIndex(next);
+            }
+        }
+
+        if (slots.isEmpty()) {
+            playing = false;
+            if (readyCallback != null) {
+                // Every item failed before the first one was ready
+                failReady("No playable item in queue");
+                return;
+            }
+            WritableMap data = new WritableNativeMap();
+            data.putString("message", "Queue playback completed");
+            listener.onQueueEvent(queueId, "ended", data);
+            return;
+        }
+
+        Slot current = slots.get(0);
+        if (current.index <= previousIndex) {
+            loops++;
+            WritableMap data = new WritableNativeMap();
+            data.putInt("loops", loops);
+            data.putString("message", "Queue playback looped");
+            listener.onQueueEvent(queueId, "looped", data);
+        }
+        emitItemChange(current.index, previousIndex);
+
+        // A current player that was not chained yet starts in onSlotPrepared
+        if (current.prepared && playing && !current.player.isPlaying()) {
+            current.player.start();
+        }
+        fill();
+    }
+
+    private void emitItemChange(int index, int previousIndex) {
+        WritableMap data = new WritableNativeMap();
+        data.putInt("index", index);
+        data.putInt("previousIndex", previousIndex);
+        data.putString("message", "Queue moved to another item");
+        listener.onQueueEvent(queueId, "itemchange", data);
+    }
+
+    private void emitError(int index, String code, String message) {
+        WritableMap data = new WritableNativeMap();
+        data.putInt("index", index);
+        data.putString("err", code);
+        data.putString("message", message);
+        listener.onQueueEvent(queueId, "error", data);
+    }
+
+    private void failReady(String message) {
+        if (readyCallback != null) {
+            WritableMap err = new WritableNativeMap();
+            err.putString("err", AudioErrors.NO_ITEMS);
+            err.putString("message", message);
+            readyCallback.invoke(err);
+            readyCallback = null;
+        }
+    }
+}
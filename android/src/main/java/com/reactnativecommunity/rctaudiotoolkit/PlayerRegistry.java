@@ -0,0 +1,308 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaPlayer;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-player state by playerId, safe to use from the media control lanes and the MediaPlayer
+ * listeners at the same time. There is no registry-wide lock: lookups go through a concurrent map
+ * and changes to a single player lock only that player's state.
+ *
+ * When a maximum size is set, prepared players are evicted in least recently used order (never
+ * playing ones). Their state and position are kept, so they can be prepared again where they left
+ * off when needed.
+ */
+class PlayerRegistry {
+    interface EvictionListener {
+        void onEvicted(PlayerState state, MediaPlayer player);
+    }
+
+    static class PlayerState {
+        final String playerId;
+        final AtomicReference<Callback> seekCallback = new AtomicReference<>();
+        volatile boolean looping = false;
+        // Cached after prepare, getDuration() does not change for a prepared source
+        volatile int duration = -1;
+        volatile boolean readableTimes = false;
+        // A-B loop region in ms, -1 when not set. Enforced by the loop monitor.
+        volatile int loopStart = -1;
+        volatile int loopEnd = -1;
+        // Set while a seek of the module's own runs (loop wrap, restoring an evicted player), its
+        // completion is not reported
+        volatile boolean quietSeek = false;
+        volatile long regionLoops = 0;
+        // Start times for the metrics, 0 when nothing is pending
+        volatile long seekStarted = 0;
+        volatile long stallStarted = 0;
+        // Playback rate and pitch as last set. While paused they are only applied by the next
+        // play(), setting them on a paused MediaPlayer would start it.
+        volatile float speed = 1.0f;
+        volatile float pitch = 1.0f;
+        volatile boolean paramsPending = false;
+        volatile float volume = 1.0f;
+        volatile boolean wakeLock = false;
+        // Plays in place of the MediaPlayer while speed or pitch are changed before API 23
+        volatile StretchPlayer stretch;
+        volatile long lastAccess;
+
+        // Guarded by `this`
+        MediaPlayer player;
+        String path;
+        ReadableMap options;
+        boolean evicted = false;
+        // Set once remove() took the state out of the registry, it must not be counted or evicted
+        boolean removed = false;
+        // Position of an evicted player, restored when it is prepared again
+        int evictedPosition = 0;
+
+        // Seek coalescing while scrubbing, guarded by `this`. While a seek is in flight only the
+        // newest target is kept, the callbacks of all coalesced seeks complete together.
+        boolean scrubbing = false;
+        boolean fastSeek = false;
+        boolean seekInFlight = false;
+        int pendingSeek = -1;
+        int lastSeekTarget = -1;
+        boolean lastSeekFast = false;
+        List<Callback> seekWaiters = new ArrayList<>();
+        long droppedSeeks = 0;
+
+        PlayerState(String playerId) {
+            this.playerId = playerId;
+        }
+    }
+
+    static class Source {
+        final String path;
+        final ReadableMap options;
+        final int position;
+
+        Source(String path, ReadableMap options, int position) {
+            this.path = path;
+            this.options = options;
+            this.position = position;
+        }
+    }
+
+    private final ConcurrentHashMap<String, PlayerState> states = new ConcurrentHashMap<>();
+    private final EvictionListener evictionListener;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger preparedCount = new AtomicInteger();
+
+    private volatile int maxSize = 0; // 0 means unbounded
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong reprepares = new AtomicLong();
+
+    PlayerRegistry(EvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    PlayerState state(String playerId) {
+        return states.get(playerId);
+    }
+
+    Collection<PlayerState> states() {
+        return states.values();
+    }
+
+    // Looks up a player for reuse and counts the lookup as hit or miss
+    MediaPlayer get(String playerId) {
+        MediaPlayer player = peek(playerId);
+        if (player != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return player;
+    }
+
+    MediaPlayer peek(String playerId) {
+        PlayerState state = states.get(playerId);
+        if (state == null) {
+            return null;
+        }
+
+        state.lastAccess = clock.incrementAndGet();
+        synchronized (state) {
+            return state.player;
+        }
+    }
+
+    // Starts the player under its lock, so it cannot be evicted in between. Returns null when the
+    // player is no longer prepared.
+    MediaPlayer start(String playerId) {
+        PlayerState state = states.get(playerId);
+        if (state == null) {
+            return null;
+        }
+
+        state.lastAccess = clock.incrementAndGet();
+        synchronized (state) {
+            if (state.player != null) {
+                state.player.start();
+            }
+            return state.player;
+        }
+    }
+
+    // Returns the source of a player that was evicted, counting it as a re-prepare
+    Source takeEvicted(String playerId) {
+        PlayerState state = states.get(playerId);
+        if (state == null) {
+            return null;
+        }
+
+        synchronized (state) {
+            if (!state.evicted) {
+                return null;
+            }
+            state.evicted = false;
+            reprepares.incrementAndGet();
+            return new Source(state.path, state.options, state.evictedPosition);
+        }
+    }
+
+    void put(String playerId, MediaPlayer player, String path, ReadableMap options) {
+        while (!tryPut(playerId, player, path, options)) {
+            // The state was removed in between, the next round puts the player into a new one
+        }
+        trim(playerId);
+    }
+
+    private boolean tryPut(String playerId, MediaPlayer player, String path, ReadableMap options) {
+        PlayerState state = states.get(playerId);
+        if (state == null) {
+            PlayerState created = new PlayerState(playerId);
+            state = states.putIfAbsent(playerId, created);
+            if (state == null) {
+                state = created;
+            }
+        }
+
+        state.lastAccess = clock.incrementAndGet();
+        synchronized (state) {
+            if (state.removed) {
+                return false;
+            }
+            if (state.player == null) {
+                preparedCount.incrementAndGet();
+            }
+            state.player = player;
+            state.path = path;
+            state.options = options;
+            state.evicted = false;
+        }
+        return true;
+    }
+
+    // Forgets the player entirely, returns its state so the caller can release it
+    PlayerState remove(String playerId) {
+        PlayerState state = states.remove(playerId);
+        if (state != null) {
+            synchronized (state) {
+                state.removed = true;
+                if (state.player != null) {
+                    preparedCount.decrementAndGet();
+                }
+            }
+        }
+        return state;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        trim(null);
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        int evictedCount = 0;
+        for (PlayerState state : states.values()) {
+            synchronized (state) {
+                if (state.evicted) {
+                    evictedCount++;
+                }
+            }
+        }
+
+        stats.put("size", preparedCount.get());
+        stats.put("maxSize", maxSize);
+        stats.put("evictedCount", evictedCount);
+        stats.put("hits", (double) hits.get());
+        stats.put("misses", (double) misses.get());
+        stats.put("evictions", (double) evictions.get());
+        stats.put("reprepares", (double) reprepares.get());
+        return stats;
+    }
+
+    // Evicts the least recently used idle players until the registry fits again. Candidates are
+    // found by scanning without a lock and re-checked under their own lock before eviction.
+    private void trim(String keepId) {
+        while (maxSize > 0 && preparedCount.get() > maxSize) {
+            PlayerState candidate = null;
+            for (PlayerState state : states.values()) {
+                if (state.playerId.equals(keepId)) {
+                    continue;
+                }
+                if (candidate == null || state.lastAccess < candidate.lastAccess) {
+                    synchronized (state) {
+                        // A player handed over to time stretching keeps its paused MediaPlayer
+                        if (state.player != null && !state.removed && !isPlaying(state.player)
+                                && state.stretch == null) {
+                            candidate = state;
+                        }
+                    }
+                }
+            }
+
+            if (candidate == null) {
+                return;
+            }
+
+            MediaPlayer evictedPlayer;
+            synchronized (candidate) {
+                evictedPlayer = candidate.player;
+                if (evictedPlayer == null || candidate.removed || isPlaying(evictedPlayer)
+                        || candidate.stretch != null) {
+                    continue;
+                }
+                candidate.evictedPosition = position(evictedPlayer);
+                candidate.player = null;
+                candidate.evicted = true;
+                preparedCount.decrementAndGet();
+            }
+
+            evictions.incrementAndGet();
+            evictionListener.onEvicted(candidate, evictedPlayer);
+        }
+    }
+
+    private static int position(MediaPlayer player) {
+        try {
+            return player.getCurrentPosition();
+        } catch (IllegalStateException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isPlaying(MediaPlayer player) {
+        try {
+            return player.isPlaying();
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+}
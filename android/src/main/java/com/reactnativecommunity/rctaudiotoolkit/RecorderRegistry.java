@@ -0,0 +1,59 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaRecorder;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-recorder state by recorderId, safe to use from the media control lanes and the
+ * MediaRecorder listeners at the same time.
+ */
+class RecorderRegistry {
+    static class RecorderState {
+        final Integer recorderId;
+        final MediaRecorder recorder; // null for PCM recorders
+        final PcmRecorder pcmRecorder; // null for MediaRecorder recorders
+        final PcmStream stream; // null unless the PCM recorder streams through shared memory
+        final boolean autoDestroy;
+
+        RecorderState(Integer recorderId, MediaRecorder recorder, PcmRecorder pcmRecorder, boolean autoDestroy) {
+            this(recorderId, recorder, pcmRecorder, null, autoDestroy);
+        }
+
+        RecorderState(Integer recorderId, MediaRecorder recorder, PcmRecorder pcmRecorder, PcmStream stream,
+                      boolean autoDestroy) {
+            this.recorderId = recorderId;
+            this.recorder = recorder;
+            this.pcmRecorder = pcmRecorder;
+            this.stream = stream;
+            this.autoDestroy = autoDestroy;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, RecorderState> states = new ConcurrentHashMap<>();
+    // Reverse lookup for the MediaRecorder listeners, which only get the recorder instance
+    private final ConcurrentHashMap<MediaRecorder, Integer> recorderIds = new ConcurrentHashMap<>();
+
+    RecorderState get(Integer recorderId) {
+        return states.get(recorderId);
+    }
+
+    void put(RecorderState state) {
+        if (state.recorder != null) {
+            recorderIds.put(state.recorder, state.recorderId);
+        }
+        states.put(state.recorderId, state);
+    }
+
+    RecorderState remove(Integer recorderId) {
+        RecorderState state = states.remove(recorderId);
+        if (state != null && state.recorder != null) {
+            recorderIds.remove(state.recorder);
+        }
+        return state;
+    }
+
+    Integer idOf(MediaRecorder recorder) {
+        return recorderIds.get(recorder);
+    }
+}
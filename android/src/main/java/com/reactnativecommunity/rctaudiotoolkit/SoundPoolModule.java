@@ -0,0 +1,344 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.SoundPool;
+import android.net.Uri;
+import android.os.Build;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Low latency playback of short sound effects. Clips are decoded once into a SoundPool when
+ * prepared, after which every play() starts a new, possibly overlapping, stream almost instantly.
+ */
+public class SoundPoolModule extends ReactContextBaseJavaModule implements
+        LifecycleEventListener, SoundPool.OnLoadCompleteListener {
+    private static final String LOG_TAG = "SoundPoolModule";
+    private static final int DEFAULT_MAX_STREAMS = 8;
+
+    // Sample ids by playerId, and the other way around for onLoadComplete
+    Map<String, Integer> sampleIds = new HashMap<>();
+    Map<Integer, String> samplePlayerIds = new HashMap<>();
+    Map<Integer, Callback> loadCallbacks = new HashMap<>();
+    // Most recent stream ids of every sample, so they can be stopped together
+    Map<String, int[]> sampleStreams = new HashMap<>();
+
+    private ReactApplicationContext context;
+    private final PathResolver pathResolver;
+    private final AudioErrors errors;
+    private SoundPool soundPool;
+    private int maxStreams = DEFAULT_MAX_STREAMS;
+
+    public SoundPoolModule(ReactApplicationContext reactContext, PathResolver pathResolver, AudioErrors errors) {
+        super(reactContext);
+        this.context = reactContext;
+        this.pathResolver = pathResolver;
+        this.errors = errors;
+        reactContext.addLifecycleEventListener(this);
+    }
+
+    @Override
+    public String getName() {
+        return "RCTAudioSoundPool";
+    }
+
+    @Override
+    public void onHostResume() {
+        // Activity `onResume`
+    }
+
+    @Override
+    public void onHostPause() {
+
+    }
+
+    @Override
+    public synchronized void onHostDestroy() {
+        // Activity `onDestroy`
+        releasePool();
+    }
+
+    private WritableMap errObj(final String code, final String message) {
+        return this.errors.create(LOG_TAG, code, message, true);
+    }
+
+    private SoundPool getSoundPool() {
+        if (soundPool == null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                AudioAttributes attributes = new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_GAME)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build();
+                soundPool = new SoundPool.Builder()
+                        .setMaxStreams(maxStreams)
+                        .setAudioAttributes(attributes)
+                        .build();
+            } else {
+                soundPool = new SoundPool(maxStreams, AudioManager.STREAM_MUSIC, 0);
+            }
+            soundPool.setOnLoadCompleteListener(this);
+        }
+
+        return soundPool;
+    }
+
+    private void releasePool() {
+        if (soundPool != null) {
+            soundPool.release();
+            soundPool = null;
+        }
+
+        for (Callback callback : loadCallbacks.values()) {
+            callback.invoke(errObj(AudioErrors.PREPARE_FAIL, "Sound pool was released before loading finished"));
+        }
+
+        sampleIds.clear();
+        samplePlayerIds.clear();
+        loadCallbacks.clear();
+        sampleStreams.clear();
+    }
+
+    @ReactMethod
+    public synchronized void setup(ReadableMap options, Callback callback) {
+        if (options.hasKey("maxStreams") && !options.isNull("maxStreams")) {
+            int maxStreams = options.getInt("maxStreams");
+            if (maxStreams <= 0) {
+                callback.invoke(errObj(AudioErrors.INVALID_OPTION, "maxStreams must be greater than 0"));
+                return;
+            }
+
+            if (maxStreams != this.maxStreams) {
+                // The stream count is fixed at construction, so previously loaded sounds are dropped
+                releasePool();
+                this.maxStreams = maxStreams;
+            }
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void prepare(final String playerId, String path, ReadableMap options, Callback callback) {
+        if (path == null || path.isEmpty()) {
+            callback.invoke(errObj(AudioErrors.NO_PATH, "Provided path was empty"));
+            return;
+        }
+
+        if (sampleIds.containsKey(playerId)) {
+            if (loadCallbacks.containsKey(sampleIds.get(playerId))) {
+                callback.invoke(errObj(AudioErrors.PREPARE_FAIL, "playerId " + playerId + " is still loading"));
+            } else {
+                callback.invoke();
+            }
+            return;
+        }
+
+        Uri uri = pathResolver.uriFromPath(path);
+        SoundPool pool = getSoundPool();
+        int sampleId;
+
+        try {
+            int resId = PathResolver.resourceIdFromUri(uri);
+            if (resId != 0) {
+                sampleId = pool.load(this.context, resId, 1);
+            } else if ("file".equals(uri.getScheme())) {
+                sampleId = pool.load(uri.getPath(), 1);
+            } else if ("content".equals(uri.getScheme())) {
+                AssetFileDescriptor afd = this.context.getContentResolver().openAssetFileDescriptor(uri, "r");
+                if (afd == null) {
+                    // The provider crashed or has nothing to hand out
+                    callback.invoke(errObj(AudioErrors.INVALID_PATH, "Could not open " + path));
+                    return;
+                }
+                try {
+                    // SoundPool keeps a duplicate of the descriptor
+                    sampleId = pool.load(afd, 1);
+                } finally {
+                    afd.close();
+                }
+            } else {
+                callback.invoke(errObj(AudioErrors.INVALID_PATH, "Only local files and resources can be used as sound effects"));
+                return;
+            }
+        } catch (IOException e) {
+            callback.invoke(errObj(AudioErrors.INVALID_PATH, e.toString()));
+            return;
+        }
+
+        if (sampleId == 0) {
+            callback.invoke(errObj(AudioErrors.PREPARE_FAIL, "Could not load " + path));
+            return;
+        }
+
+        sampleIds.put(playerId, sampleId);
+        samplePlayerIds.put(sampleId, playerId);
+        loadCallbacks.put(sampleId, callback);
+        sampleStreams.put(playerId, new int[maxStreams]);
+    }
+
+    @Override
+    public synchronized void onLoadComplete(SoundPool pool, int sampleId, int status) {
+        Callback callback = loadCallbacks.remove(sampleId);
+        if (callback == null) {
+            return;
+        }
+
+        if (status == 0) {
+            callback.invoke();
+        } else {
+            String playerId = samplePlayerIds.remove(sampleId);
+            sampleIds.remove(playerId);
+            sampleStreams.remove(playerId);
+            callback.invoke(errObj(AudioErrors.PREPARE_FAIL, "Sound pool failed to decode sample (status " + status + ")"));
+        }
+    }
+
+    @ReactMethod
+    public synchronized void play(final String playerId, ReadableMap options, Callback callback) {
+        Integer sampleId = sampleIds.get(playerId);
+        if (sampleId == null || loadCallbacks.containsKey(sampleId)) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found or not prepared."));
+            return;
+        }
+
+        float volume = 1.0f;
+        float pan = 0.0f;
+        float rate = 1.0f;
+        int loop = 0;
+        int priority = 1;
+
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            volume = (float) options.getDouble("volume");
+        }
+        if (options.hasKey("pan") && !options.isNull("pan")) {
+            pan = (float) options.getDouble("pan");
+        }
+        if (options.hasKey("speed") && !options.isNull("speed")) {
+            rate = (float) options.getDouble("speed");
+        }
+        if (options.hasKey("looping") && !options.isNull("looping")) {
+            loop = options.getBoolean("looping") ? -1 : 0;
+        }
+        if (options.hasKey("priority") && !options.isNull("priority")) {
+            priority = options.getInt("priority");
+        }
+
+        float left = volume * Math.min(1.0f, 1.0f - pan);
+        float right = volume * Math.min(1.0f, 1.0f + pan);
+        int streamId = soundPool.play(sampleId, left, right, priority, loop, rate);
+        if (streamId == 0) {
+            callback.invoke(errObj(AudioErrors.START_FAIL, "No free stream for playerId " + playerId));
+            return;
+        }
+
+        // Remember the stream in the slot of the oldest one; the pool can't have more active anyway
+        int[] streams = sampleStreams.get(playerId);
+        System.arraycopy(streams, 0, streams, 1, streams.length - 1);
+        streams[0] = streamId;
+
+        WritableMap info = Arguments.createMap();
+        info.putInt("streamId", streamId);
+        callback.invoke(null, info);
+    }
+
+    @ReactMethod
+    public synchronized void stop(final String playerId, Callback callback) {
+        int[] streams = sampleStreams.get(playerId);
+        if (streams == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "playerId " + playerId + " not found."));
+            return;
+        }
+
+        for (int i = 0; i < streams.length; i++) {
+            if (streams[i] != 0) {
+                soundPool.stop(streams[i]);
+                streams[i] = 0;
+            }
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void stopStream(Integer streamId, Callback callback) {
+        if (soundPool != null) {
+            soundPool.stop(streamId);
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void pauseStream(Integer streamId, Callback callback) {
+        if (soundPool != null) {
+            soundPool.pause(streamId);
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void resumeStream(Integer streamId, Callback callback) {
+        if (soundPool != null) {
+            soundPool.resume(streamId);
+        }
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void setStream(Integer streamId, ReadableMap options, Callback callback) {
+        if (soundPool == null) {
+            callback.invoke(errObj(AudioErrors.NOT_FOUND, "streamId " + streamId + " not found."));
+            return;
+        }
+
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            float volume = (float) options.getDouble("volume");
+            soundPool.setVolume(streamId, volume, volume);
+        }
+        if (options.hasKey("speed") && !options.isNull("speed")) {
+            soundPool.setRate(streamId, (float) options.getDouble("speed"));
+        }
+        if (options.hasKey("looping") && !options.isNull("looping")) {
+            soundPool.setLoop(streamId, options.getBoolean("looping") ? -1 : 0);
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public synchronized void destroy(final String playerId, Callback callback) {
+        Integer sampleId = sampleIds.remove(playerId);
+
+        if (sampleId != null) {
+            int[] streams = sampleStreams.remove(playerId);
+            for (int streamId : streams) {
+                if (streamId != 0) {
+                    soundPool.stop(streamId);
+                }
+            }
+            soundPool.unload(sampleId);
+            samplePlayerIds.remove(sampleId);
+
+            Callback loadCallback = loadCallbacks.remove(sampleId);
+            if (loadCallback != null) {
+                loadCallback.invoke(errObj(AudioErrors.PREPARE_FAIL, "playerId " + playerId + " was destroyed while loading"));
+            }
+        }
+
+        if (callback != null) {
+            callback.invoke();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Process;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Plays a decoded sample through a TimeStretch into an AudioTrack, standing in for a MediaPlayer
+ * whose speed or pitch was changed on devices without PlaybackParams. Rendering runs on an audio
+ * priority thread that parks itself while paused. Positions are those of the stretch, so they run
+ * ahead of what is audible by the track's buffer.
+ */
+class StretchPlayer implements Runnable {
+    private static final String LOG_TAG = "StretchPlayer";
+    private static final int FRAMES_PER_BLOCK = 1024;
+
+    interface Listener {
+        // Called on the render thread when the end of a non looping sample was played
+        void onCompletion(StretchPlayer player);
+    }
+
+    private final TimeStretch stretch;
+    private final AudioTrack track;
+    private final Listener listener;
+    private final float[] renderBuffer;
+    private final short[] pcmBuffer;
+    private final Thread thread;
+
+    private volatile boolean playing = false;
+    private volatile boolean released = false;
+    private volatile boolean looping = false;
+    private volatile float volume = 1.0f;
+    // Bumped by every seek, so that a block rendered for the old position is not written
+    private volatile int seeks = 0;
+
+    StretchPlayer(MixerCore.Sample sample, Listener listener) {
+        this.stretch = new TimeStretch(sample);
+        this.listener = listener;
+        this.renderBuffer = new float[FRAMES_PER_BLOCK * sample.channels];
+        this.pcmBuffer = new short[FRAMES_PER_BLOCK * sample.channels];
+        this.track = createTrack(sample.sampleRate, sample.channels);
+        if (track.getState() != AudioTrack.STATE_INITIALIZED) {
+            track.release();
+            throw new IllegalStateException("Could not open an output track for time stretching");
+        }
+        this.thread = new Thread(this, "AudioStretch");
+        this.thread.start();
+    }
+
+    void setParams(float speed, float pitch) {
+        synchronized (stretch) {
+            stretch.setParams(speed, pitch);
+        }
+    }
+
+    void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    void setVolume(float volume) {
+        this.volume = volume;
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    int getDuration() {
+        return (int) stretch.durationMillis();
+    }
+
+    int getCurrentPosition() {
+        synchronized (stretch) {
+            return (int) stretch.positionMillis();
+        }
+    }
+
+    synchronized void play() {
+        if (released || playing) {
+            return;
+        }
+        synchronized (stretch) {
+            if (stretch.isEnded()) {
+                stretch.seek(0);
+            }
+        }
+        playing = true;
+        track.play();
+        notifyAll();
+    }
+
+    synchronized void pause() {
+        if (released || !playing) {
+            return;
+        }
+        playing = false;
+        track.pause();
+    }
+
+    synchronized void seekTo(int millis) {
+        if (released) {
+            return;
+        }
+        synchronized (stretch) {
+            stretch.seek(millis);
+            seeks++;
+        }
+        // Drop what was already rendered for the old position
+        track.pause();
+        track.flush();
+        if (playing) {
+            track.play();
+        }
+    }
+
+    void release() {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            released = true;
+            playing = false;
+            notifyAll();
+        }
+        // Unblocks a write into the full buffer of the paused track
+        track.pause();
+        track.flush();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        track.release();
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+
+        int channels = stretch.getChannels();
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (!playing && !released) {
+                        wait();
+                    }
+                    if (released) {
+                        break;
+                    }
+                }
+
+                int frames;
+                boolean ended;
+                int generation;
+                Trace.beginSection("AudioStretch.render");
+                try {
+                    synchronized (stretch) {
+                        generation = seeks;
+                        frames = stretch.render(renderBuffer, FRAMES_PER_BLOCK);
+                        ended = stretch.isEnded();
+                        if (ended && looping) {
+                            stretch.seek(0);
+                            ended = false;
+                        }
+                    }
+                    MixerCore.toPcm16(renderBuffer, pcmBuffer, frames * channels, volume);
+                } finally {
+                    Trace.endSection();
+                }
+
+                // Blocks while the track's buffer is full, which paces the loop
+                if (frames > 0 && generation == seeks) {
+                    track.write(pcmBuffer, 0, frames * channels);
+                }
+
+                if (ended) {
+                    synchronized (this) {
+                        playing = false;
+                        track.stop();
+                    }
+                    listener.onCompletion(this);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            Log.e(LOG_TAG, e.toString());
+        } finally {
+            track.stop();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static AudioTrack createTrack(int sampleRate, int channels) {
+        int channelMask = channels == 1 ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO;
+        int minBufferBytes = AudioTrack.getMinBufferSize(sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT);
+        // Two blocks, so that one can be rendered while the other plays
+        int bufferBytes = Math.max(minBufferBytes, FRAMES_PER_BLOCK * channels * 2 * 2);
+        return new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT,
+                bufferBytes, AudioTrack.MODE_STREAM);
+    }
+}
@@ -0,0 +1,262 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+/**
+ * WSOLA time stretching of a decoded sample, used to change the playback speed and pitch of a
+ * player independently on devices without PlaybackParams.
+ *
+ * The source is cut into overlapping segments, and each segment is moved by up to a seek window
+ * so that its start matches the natural continuation of the previous segment best before the two
+ * are cross faded. Stepping through the source faster or slower than the segments are written
+ * changes the tempo without changing the pitch. Pitch is changed on top of that by stretching to
+ * speed / pitch and resampling the result by pitch.
+ *
+ * Has no Android dependencies, so it can be driven from plain JVM code. render() never allocates:
+ * the only buffer is allocated up front for one segment. Not thread safe, callers serialize
+ * render(), seek() and positionMillis().
+ */
+class TimeStretch {
+    static final float MIN_SPEED = 0.25f;
+    static final float MAX_SPEED = 4.0f;
+    static final float MIN_PITCH = 0.5f;
+    static final float MAX_PITCH = 2.0f;
+
+    // Segment layout in milliseconds, tuned for both speech and music
+    private static final int SEQUENCE_MS = 40;
+    private static final int OVERLAP_MS = 8;
+    private static final int SEEK_WINDOW_MS = 15;
+    // The seek window is first searched in steps of this many frames, then refined around the best
+    private static final int COARSE_STEP = 4;
+
+    private final float[] source;
+    private final int channels;
+    private final int frames;
+    private final int sampleRate;
+    private final int sequence;
+    private final int overlap;
+    private final int seekWindow;
+
+    // Stretched output of the current segment, read by the resampler
+    private final float[] segment;
+    private int segmentFrames = 0;
+    private double segmentRead = 0;
+    private double segmentStart = 0;
+    private double segmentTempo = 1;
+
+    // Source frame the next segment is nominally taken from
+    private double nominal = 0;
+    // Source frame continuing the previous segment, or -1 after a seek
+    private int tail = -1;
+    private boolean sourceDone = false;
+
+    private float speed = 1.0f;
+    private float pitch = 1.0f;
+
+    TimeStretch(MixerCore.Sample sample) {
+        if (sample.data == null) {
+            throw new IllegalArgumentException("Time stretching needs a sample decoded on heap");
+        }
+        this.source = sample.data;
+        this.channels = sample.channels;
+        this.frames = sample.frames;
+        this.sampleRate = sample.sampleRate;
+        this.sequence = Math.max(16, sampleRate * SEQUENCE_MS / 1000);
+        this.overlap = Math.max(4, sampleRate * OVERLAP_MS / 1000);
+        this.seekWindow = Math.max(COARSE_STEP, sampleRate * SEEK_WINDOW_MS / 1000);
+        this.segment = new float[sequence * channels];
+    }
+
+    int getChannels() {
+        return channels;
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    long durationMillis() {
+        return frames * 1000L / sampleRate;
+    }
+
+    // Takes effect with the next segment, the current one is played out at the old tempo
+    void setParams(float speed, float pitch) {
+        this.speed = clamp(speed, MIN_SPEED, MAX_SPEED);
+        this.pitch = clamp(pitch, MIN_PITCH, MAX_PITCH);
+    }
+
+    float getSpeed() {
+        return speed;
+    }
+
+    float getPitch() {
+        return pitch;
+    }
+
+    void seek(long millis) {
+        long frame = millis * sampleRate / 1000;
+        nominal = Math.max(0, Math.min(frames, frame));
+        tail = -1;
+        segmentFrames = 0;
+        segmentRead = 0;
+        segmentStart = nominal;
+        sourceDone = nominal >= frames;
+    }
+
+    // Source position of the next frame render() writes
+    long positionMillis() {
+        double position = segmentRead < segmentFrames ? segmentStart + segmentRead * segmentTempo : nominal;
+        return (long) (Math.min(position, frames) * 1000 / sampleRate);
+    }
+
+    boolean isEnded() {
+        return sourceDone && segmentRead >= segmentFrames;
+    }
+
+    /**
+     * Writes up to `count` interleaved frames into `out` and returns how many were written, fewer
+     * than requested only at the end of the source.
+     */
+    int render(float[] out, int count) {
+        int written = 0;
+        while (written < count) {
+            if (segmentRead >= segmentFrames) {
+                if (sourceDone) {
+                    break;
+                }
+                if (speed == 1.0f && pitch == 1.0f) {
+                    written += copyDirect(out, written, count - written);
+                    continue;
+                }
+                segmentRead -= segmentFrames;
+                nextSegment(speed / pitch);
+                continue;
+            }
+
+            // Linear interpolation within the segment, the last frame is held
+            int index = (int) segmentRead;
+            int next = Math.min(index + 1, segmentFrames - 1);
+            float frac = (float) (segmentRead - index);
+            int a = index * channels;
+            int b = next * channels;
+            int o = written * channels;
+            for (int c = 0; c < channels; c++) {
+                float s = segment[a + c];
+                out[o + c] = s + (segment[b + c] - s) * frac;
+            }
+            written++;
+            segmentRead += pitch;
+        }
+        return written;
+    }
+
+    // Unchanged playback copies the source, and keeps it continuous for the next stretched segment
+    private int copyDirect(float[] out, int offset, int count) {
+        int start = tail >= 0 ? tail : (int) nominal;
+        int n = Math.max(0, Math.min(count, frames - start));
+        System.arraycopy(source, start * channels, out, offset * channels, n * channels);
+        nominal = start + n;
+        tail = (int) nominal;
+        segmentFrames = 0;
+        segmentRead = 0;
+        segmentStart = nominal;
+        sourceDone = nominal >= frames;
+        return n;
+    }
+
+    private void nextSegment(double tempo) {
+        int start = (int) nominal;
+        int position = tail >= 0 ? start + bestOffset(start, tail) : start;
+        if (position >= frames) {
+            segmentFrames = 0;
+            segmentRead = 0;
+            sourceDone = true;
+            return;
+        }
+
+        int written = 0;
+        int fade = tail >= 0 ? Math.min(overlap, Math.min(frames - position, frames - tail)) : 0;
+        for (int i = 0; i < fade; i++) {
+            float w = (float) i / fade;
+            int from = (tail + i) * channels;
+            int to = (position + i) * channels;
+            for (int c = 0; c < channels; c++) {
+                segment[written * channels + c] = source[from + c] * (1.0f - w) + source[to + c] * w;
+            }
+            written++;
+        }
+
+        int copyEnd = Math.min(position + sequence - overlap, frames);
+        int copyFrames = copyEnd - (position + fade);
+        if (copyFrames > 0) {
+            System.arraycopy(source, (position + fade) * channels, segment, written * channels, copyFrames * channels);
+            written += copyFrames;
+        }
+
+        segmentFrames = written;
+        segmentStart = nominal;
+        segmentTempo = tempo;
+        tail = copyEnd;
+        sourceDone = copyEnd >= frames;
+        nominal += (sequence - overlap) * tempo;
+    }
+
+    // Offset into the seek window after `start` that continues the audio at `tail` best
+    private int bestOffset(int start, int tail) {
+        int limit = Math.min(seekWindow, frames - overlap - start);
+        if (limit <= 0 || tail + overlap > frames) {
+            return 0;
+        }
+
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int offset = 0; offset < limit; offset += COARSE_STEP) {
+            double score = similarity(tail, start + offset);
+            if (score > bestScore) {
+                bestScore = score;
+                best = offset;
+            }
+        }
+
+        int coarse = best;
+        int from = Math.max(0, coarse - COARSE_STEP + 1);
+        int to = Math.min(limit - 1, coarse + COARSE_STEP - 1);
+        for (int offset = from; offset <= to; offset++) {
+            if (offset == coarse) {
+                continue;
+            }
+            double score = similarity(tail, start + offset);
+            if (score > bestScore) {
+                bestScore = score;
+                best = offset;
+            }
+        }
+        return best;
+    }
+
+    // Normalized cross correlation over the overlap, of every other frame mixed down to mono
+    private double similarity(int reference, int candidate) {
+        double product = 0;
+        double energy = 0;
+        if (channels == 1) {
+            for (int i = 0; i < overlap; i += 2) {
+                float x = source[reference + i];
+                float y = source[candidate + i];
+                product += x * y;
+                energy += y * y;
+            }
+        } else {
+            for (int i = 0; i < overlap; i += 2) {
+                int r = (reference + i) * 2;
+                int c = (candidate + i) * 2;
+                float x = source[r] + source[r + 1];
+                float y = source[c] + source[c + 1];
+                product += x * y;
+                energy += y * y;
+            }
+        }
+        return product / Math.sqrt(energy + 1e-9);
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
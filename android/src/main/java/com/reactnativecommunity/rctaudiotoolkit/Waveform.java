@@ -0,0 +1,175 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Min, max and RMS level per bucket of a file, with the buckets spread evenly over its duration.
+ * Filled one block of decoded samples at a time by add(), buckets before `completed` are final.
+ *
+ * Has no Android dependencies, so it can be driven from plain JVM code. Stored in a compact sidecar
+ * file with three 16 bit values per bucket, so a waveform is only computed once per file.
+ */
+class Waveform {
+    // "RATW"
+    private static final int MAGIC = 0x52415457;
+    private static final int VERSION = 1;
+
+    final int buckets;
+    final long durationMillis;
+    final float[] min;
+    final float[] max;
+    final float[] rms;
+
+    private double framesPerBucket;
+    // Bucket position reached before the last sample rate change, and frames added since
+    private double rateStart = 0;
+    private long frame = 0;
+    private int completed = 0;
+    private int bucket = 0;
+    private double sumSquares = 0;
+    private long bucketFrames = 0;
+
+    Waveform(int buckets, long durationMillis, int sampleRate) {
+        this.buckets = buckets;
+        this.durationMillis = durationMillis;
+        this.min = new float[buckets];
+        this.max = new float[buckets];
+        this.rms = new float[buckets];
+        this.framesPerBucket = framesPerBucket(sampleRate);
+    }
+
+    int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Frames added from now on are at `sampleRate`. A decoder's output rate can differ from the
+     * rate its container announced, e.g. HE-AAC decodes at twice the rate of its core stream.
+     */
+    void setSampleRate(int sampleRate) {
+        rateStart += frame / framesPerBucket;
+        frame = 0;
+        framesPerBucket = framesPerBucket(sampleRate);
+    }
+
+    private double framesPerBucket(int sampleRate) {
+        return Math.max(1.0, (double) durationMillis * sampleRate / 1000 / buckets);
+    }
+
+    /**
+     * Adds interleaved frames, mixed down to mono. Frames past the expected duration fall into
+     * the last bucket, the duration of compressed files is not always exact.
+     */
+    void add(float[] samples, int frames, int channels) {
+        for (int f = 0; f < frames; f++) {
+            float value;
+            if (channels == 1) {
+                value = samples[f];
+            } else {
+                value = (samples[f * 2] + samples[f * 2 + 1]) * 0.5f;
+            }
+
+            int target = (int) Math.min(buckets - 1, (long) (rateStart + frame / framesPerBucket));
+            while (bucket < target) {
+                closeBucket();
+                bucket++;
+            }
+
+            if (bucketFrames == 0) {
+                min[bucket] = value;
+                max[bucket] = value;
+            } else if (value < min[bucket]) {
+                min[bucket] = value;
+            } else if (value > max[bucket]) {
+                max[bucket] = value;
+            }
+            sumSquares += value * value;
+            bucketFrames++;
+            frame++;
+        }
+    }
+
+    // Closes the remaining buckets once the whole file was added
+    void finish() {
+        while (bucket < buckets) {
+            closeBucket();
+            bucket++;
+        }
+    }
+
+    private void closeBucket() {
+        rms[bucket] = bucketFrames > 0 ? (float) Math.sqrt(sumSquares / bucketFrames) : 0.0f;
+        sumSquares = 0;
+        bucketFrames = 0;
+        completed = bucket + 1;
+    }
+
+    void write(File file) throws IOException {
+        File part = new File(file.getPath() + ".part");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(part)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(buckets);
+            out.writeLong(durationMillis);
+            for (int i = 0; i < buckets; i++) {
+                out.writeShort(toShort(min[i]));
+                out.writeShort(toShort(max[i]));
+                out.writeShort(toShort(rms[i]));
+            }
+        } finally {
+            out.close();
+        }
+        if (!part.renameTo(file)) {
+            part.delete();
+            throw new IOException("Could not store waveform in " + file);
+        }
+    }
+
+    // Returns null if there is no valid sidecar file with `buckets` buckets
+    static Waveform read(File file, int buckets) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readByte() != VERSION || in.readInt() != buckets) {
+                return null;
+            }
+
+            // Complete already, the sample rate only matters while adding samples
+            Waveform waveform = new Waveform(buckets, in.readLong(), 1000);
+            for (int i = 0; i < buckets; i++) {
+                waveform.min[i] = in.readShort() / 32767.0f;
+                waveform.max[i] = in.readShort() / 32767.0f;
+                waveform.rms[i] = in.readShort() / 32767.0f;
+            }
+            waveform.completed = buckets;
+            waveform.bucket = buckets;
+            return waveform;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Nothing left to do
+                }
+            }
+        }
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.round(Math.max(-1.0f, Math.min(1.0f, value)) * 32767.0f);
+    }
+}
@@ -0,0 +1,287 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Plays files through the proxy from a stand-in origin server on the loopback interface.
+ */
+public class CacheProxyTest {
+    private static final int BODY_SIZE = 200 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] body = new byte[BODY_SIZE];
+    private Origin origin;
+    private MediaCache cache;
+    private CacheProxy proxy;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random(1).nextBytes(body);
+        origin = new Origin(body);
+        cache = new MediaCache(folder.newFolder("cache"), 10 * 1024 * 1024);
+        proxy = new CacheProxy(cache);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        proxy.stop();
+        origin.close();
+    }
+
+    @Test
+    public void repeatPlaysAreServedWithoutNetwork() throws Exception {
+        String url = proxy.urlFor(origin.url());
+
+        assertArrayEquals(body, get(url, null).body);
+        awaitEntries(1);
+        assertArrayEquals(body, get(url, null).body);
+
+        assertEquals(1, origin.requests.get());
+        // The proxy counts the hit once it sent the last byte, the client may be done before that
+        awaitStat("hits", 1.0);
+        assertEquals(1.0, cache.stats().get("misses"));
+        assertEquals((double) BODY_SIZE, cache.stats().get("bytesSaved"));
+        assertEquals((double) BODY_SIZE, cache.stats().get("bytesDownloaded"));
+    }
+
+    @Test
+    public void servesRangeRequestsForSeeks() throws Exception {
+        String url = proxy.urlFor(origin.url());
+        get(url, null);
+        awaitEntries(1);
+
+        Response response = get(url, "bytes=1000-1999");
+        assertEquals(206, response.status);
+        assertEquals("bytes 1000-1999/" + BODY_SIZE, response.contentRange);
+        assertArrayEquals(Arrays.copyOfRange(body, 1000, 2000), response.body);
+
+        assertEquals(416, get(url, "bytes=" + BODY_SIZE + "-").status);
+    }
+
+    @Test
+    public void servesRangesWhileTheDownloadIsRunning() throws Exception {
+        origin.bytesPerSecond = 400 * 1024;
+        String url = proxy.urlFor(origin.url());
+
+        Response response = get(url, "bytes=150000-");
+        assertEquals(206, response.status);
+        assertArrayEquals(Arrays.copyOfRange(body, 150000, BODY_SIZE), response.body);
+        awaitEntries(1);
+        assertEquals(1, origin.requests.get());
+    }
+
+    @Test
+    public void refusesUrlsItDidNotHandOut() throws Exception {
+        String url = proxy.urlFor(origin.url());
+        String base = url.substring(0, url.lastIndexOf('/') + 1);
+
+        assertEquals(404, get(base + "0123456789abcdef0123456789abcdef", null).status);
+        assertEquals(404, get(base + origin.url(), null).status);
+        assertEquals(0, origin.requests.get());
+    }
+
+    @Test
+    public void truncatedDownloadsAreNotCached() throws Exception {
+        origin.truncateAt = BODY_SIZE / 2;
+        String url = proxy.urlFor(origin.url());
+
+        try {
+            get(url, null);
+        } catch (IOException e) {
+            // The proxy passes the dropped connection on
+        }
+        awaitStat("downloads", 0);
+        assertEquals(0, cache.stats().get("entries"));
+
+        // The client may have retried the request on its own, only count the downloads from here on
+        int requests = origin.requests.get();
+        origin.truncateAt = -1;
+        assertArrayEquals(body, get(url, null).body);
+        awaitEntries(1);
+        assertEquals(requests + 1, origin.requests.get());
+    }
+
+    @Test
+    public void onlyHttpUrlsAreProxied() {
+        assertNull(proxy.urlFor("file:///sdcard/audio.mp3"));
+        assertNull(proxy.urlFor("content://media/external/audio/1"));
+        assertNull(proxy.urlFor("ftp://example.com/audio.mp3"));
+        assertNotNull(proxy.urlFor(origin.url()));
+    }
+
+    @Test
+    public void stopClosesThePortAndUrlForStartsItAgain() throws Exception {
+        String url = proxy.urlFor(origin.url());
+        proxy.stop();
+
+        try {
+            get(url, null);
+            fail("Proxy still accepts connections after stop()");
+        } catch (IOException e) {
+            // Expected, nothing listens on the port anymore
+        }
+
+        assertArrayEquals(body, get(proxy.urlFor(origin.url()), null).body);
+    }
+
+    // Downloads are committed in the background after the last byte was served
+    private void awaitEntries(int entries) throws InterruptedException {
+        awaitStat("entries", entries);
+    }
+
+    private void awaitStat(String name, Object value) throws InterruptedException {
+        for (int i = 0; i < 500 && !value.equals(cache.stats().get(name)); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(value, cache.stats().get(name));
+    }
+
+    private static class Response {
+        int status;
+        String contentRange;
+        byte[] body;
+    }
+
+    private static Response get(String url, String range) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setReadTimeout(5000);
+            if (range != null) {
+                connection.setRequestProperty("Range", range);
+            }
+
+            Response response = new Response();
+            response.status = connection.getResponseCode();
+            response.contentRange = connection.getHeaderField("Content-Range");
+            if (response.status < 400) {
+                response.body = readAll(connection.getInputStream());
+            }
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Minimal origin server: answers every GET with the whole body and its length, optionally
+     * throttled or dropping the connection part way through.
+     */
+    private static class Origin implements Runnable {
+        final AtomicInteger requests = new AtomicInteger();
+        volatile int truncateAt = -1;
+        volatile int bytesPerSecond = 0;
+
+        private final byte[] body;
+        private final ServerSocket socket;
+
+        Origin(byte[] body) throws IOException {
+            this.body = body;
+            this.socket = new ServerSocket(0, 8, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this, "Origin");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/audio.mp3";
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public void run() {
+            while (!socket.isClosed()) {
+                try {
+                    final Socket client = socket.accept();
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            serve(client);
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try {
+                InputStream in = client.getInputStream();
+                // Skip the request head, every request gets the whole file
+                int state = 0;
+                int c;
+                while (state < 4 && (c = in.read()) != -1) {
+                    state = (c == '\r' && state % 2 == 0) || (c == '\n' && state % 2 == 1) ? state + 1 : 0;
+                }
+                requests.incrementAndGet();
+
+                OutputStream out = client.getOutputStream();
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: audio/mpeg\r\nContent-Length: " + body.length
+                        + "\r\nConnection: close\r\n\r\n").getBytes("ISO-8859-1"));
+                int end = truncateAt >= 0 ? truncateAt : body.length;
+                int chunk = 8192;
+                for (int position = 0; position < end; position += chunk) {
+                    out.write(body, position, Math.min(chunk, end - position));
+                    out.flush();
+                    if (bytesPerSecond > 0) {
+                        Thread.sleep(chunk * 1000L / bytesPerSecond);
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+}
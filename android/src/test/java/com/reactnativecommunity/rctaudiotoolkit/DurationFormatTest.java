@@ -0,0 +1,24 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DurationFormatTest {
+    @Test
+    public void formatsHoursMinutesAndSeconds() {
+        assertEquals("00:00:00", DurationFormat.format(0));
+        assertEquals("00:00:00", DurationFormat.format(999));
+        assertEquals("00:00:01", DurationFormat.format(1000));
+        assertEquals("00:01:05", DurationFormat.format(65 * 1000 + 500));
+        assertEquals("01:00:00", DurationFormat.format(60 * 60 * 1000));
+        assertEquals("10:59:59", DurationFormat.format((11 * 3600 - 1) * 1000));
+        assertEquals("120:00:00", DurationFormat.format(120 * 60 * 60 * 1000));
+    }
+
+    // A position read just past the duration gives a small negative remaining time
+    @Test
+    public void negativeTimesAreZero() {
+        assertEquals("00:00:00", DurationFormat.format(-250));
+    }
+}
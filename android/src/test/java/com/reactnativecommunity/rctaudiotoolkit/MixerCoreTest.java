@@ -0,0 +1,220 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MixerCoreTest {
+    private static final float DELTA = 1e-5f;
+    private static final int RATE = 48000;
+
+    @Test
+    public void appliesGainAndPan() {
+        MixerCore mixer = new MixerCore(4, RATE);
+        mixer.play(constant(1000, 0.5f), 0.5f, 0.0f, 1.0f, false);
+        float[] out = mix(mixer, 8);
+        assertFrame(out, 3, 0.25f, 0.25f);
+
+        // Panning right keeps the right side and attenuates the left one
+        mixer = new MixerCore(4, RATE);
+        mixer.play(constant(1000, 0.5f), 1.0f, 0.5f, 1.0f, false);
+        out = mix(mixer, 8);
+        assertFrame(out, 3, 0.25f, 0.5f);
+
+        mixer = new MixerCore(4, RATE);
+        mixer.play(constant(1000, 0.5f), 1.0f, -1.0f, 1.0f, false);
+        out = mix(mixer, 8);
+        assertFrame(out, 3, 0.5f, 0.0f);
+    }
+
+    @Test
+    public void rampsGainChangesOverOneBlock() {
+        MixerCore mixer = new MixerCore(4, RATE);
+        int voice = mixer.play(constant(1000, 1.0f), 1.0f, 0.0f, 1.0f, false);
+        mix(mixer, 4);
+
+        assertTrue(mixer.setVoice(voice, 0.0f, Float.NaN, Float.NaN));
+        float[] out = mix(mixer, 4);
+        assertFrame(out, 0, 1.0f, 1.0f);
+        assertFrame(out, 1, 0.75f, 0.75f);
+        assertFrame(out, 2, 0.5f, 0.5f);
+        assertFrame(out, 3, 0.25f, 0.25f);
+
+        // The next block starts at the new gain
+        out = mix(mixer, 4);
+        assertFrame(out, 0, 0.0f, 0.0f);
+    }
+
+    @Test
+    public void stoppedVoicesFadeOutAndAreReleased() {
+        MixerCore mixer = new MixerCore(1, RATE);
+        int voice = mixer.play(constant(1000, 1.0f), 1.0f, 0.0f, 1.0f, true);
+        mix(mixer, 4);
+
+        assertTrue(mixer.stop(voice));
+        float[] out = new float[8];
+        assertEquals(0, mixer.mix(out, 4));
+        assertFrame(out, 0, 1.0f, 1.0f);
+        assertFrame(out, 3, 0.25f, 0.25f);
+
+        assertFalse(mixer.hasActiveVoices());
+        assertFalse(mixer.setVoice(voice, 1.0f, Float.NaN, Float.NaN));
+        // The slot is free again
+        assertTrue(mixer.play(constant(10, 1.0f), 1.0f, 0.0f, 1.0f, false) != 0);
+    }
+
+    @Test
+    public void rateChangesHowFastTheSampleIsRead() {
+        // A ramp makes the read position visible in the output
+        MixerCore.Sample ramp = ramp(100);
+
+        MixerCore mixer = new MixerCore(1, RATE);
+        mixer.play(ramp, 1.0f, 0.0f, 2.0f, false);
+        float[] out = mix(mixer, 10);
+        for (int f = 0; f < 10; f++) {
+            assertEquals(2 * f, out[f * 2], DELTA);
+        }
+
+        // Half speed interpolates between the source frames
+        mixer = new MixerCore(1, RATE);
+        mixer.play(ramp, 1.0f, 0.0f, 0.5f, false);
+        out = mix(mixer, 10);
+        for (int f = 0; f < 10; f++) {
+            assertEquals(f * 0.5f, out[f * 2], DELTA);
+        }
+
+        // Out of range rates are clamped
+        mixer = new MixerCore(1, RATE);
+        mixer.play(ramp, 1.0f, 0.0f, 100.0f, false);
+        out = mix(mixer, 4);
+        assertEquals(3 * MixerCore.MAX_RATE, out[6], DELTA);
+    }
+
+    @Test
+    public void resamplesToTheOutputRate() {
+        MixerCore.Sample ramp = new MixerCore.Sample(rampData(100), 1, RATE / 2);
+        MixerCore mixer = new MixerCore(1, RATE);
+        mixer.play(ramp, 1.0f, 0.0f, 1.0f, false);
+
+        float[] out = mix(mixer, 6);
+        for (int f = 0; f < 6; f++) {
+            assertEquals(f * 0.5f, out[f * 2], DELTA);
+        }
+    }
+
+    @Test
+    public void oneShotVoicesEndAndLoopingVoicesWrap() {
+        MixerCore mixer = new MixerCore(2, RATE);
+        mixer.play(ramp(4), 1.0f, 0.0f, 1.0f, false);
+        mixer.play(ramp(4), 1.0f, 0.0f, 1.0f, true);
+
+        float[] out = new float[20];
+        assertEquals(1, mixer.mix(out, 10));
+        // Both voices for the first four frames, then only the looping one
+        float[] left = new float[10];
+        for (int f = 0; f < 10; f++) {
+            left[f] = out[f * 2];
+        }
+        assertArrayEquals(new float[] {0, 2, 4, 6, 0, 1, 2, 3, 0, 1}, left, DELTA);
+        assertEquals(1, mixer.getActiveVoices());
+    }
+
+    @Test
+    public void stereoSamplesKeepTheirChannels() {
+        float[] data = new float[20];
+        for (int f = 0; f < 10; f++) {
+            data[f * 2] = 0.25f;
+            data[f * 2 + 1] = -0.5f;
+        }
+        MixerCore mixer = new MixerCore(1, RATE);
+        mixer.play(new MixerCore.Sample(data, 2, RATE), 1.0f, 0.0f, 1.0f, false);
+
+        assertFrame(mix(mixer, 4), 2, 0.25f, -0.5f);
+    }
+
+    @Test
+    public void offHeapSamplesMixLikeArrays() {
+        float[] data = rampData(64);
+        FloatBuffer buffer = ByteBuffer.allocateDirect(data.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(data);
+
+        MixerCore onHeap = new MixerCore(1, RATE);
+        onHeap.play(new MixerCore.Sample(data, 1, RATE), 0.8f, 0.3f, 1.3f, true);
+        MixerCore offHeap = new MixerCore(1, RATE);
+        offHeap.play(new MixerCore.Sample(buffer, 1, RATE), 0.8f, 0.3f, 1.3f, true);
+
+        for (int block = 0; block < 4; block++) {
+            assertArrayEquals(mix(onHeap, 32), mix(offHeap, 32), DELTA);
+        }
+    }
+
+    @Test
+    public void voicesAreSummedAndTheLimitIsEnforced() {
+        MixerCore mixer = new MixerCore(3, RATE);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(mixer.play(constant(100, 0.5f), 1.0f, 0.0f, 1.0f, false) != 0);
+        }
+        assertEquals(0, mixer.play(constant(100, 0.5f), 1.0f, 0.0f, 1.0f, false));
+        assertEquals(1, mixer.getRejectedVoices());
+
+        // Summed past full scale, clipping only happens in the conversion to PCM
+        float[] out = mix(mixer, 4);
+        assertFrame(out, 0, 1.5f, 1.5f);
+        assertEquals(3, mixer.getActiveVoices());
+    }
+
+    @Test
+    public void toPcm16AppliesMasterGainAndClips() {
+        float[] in = {0.0f, 0.5f, -0.5f, 1.5f, -1.5f, 1.0f, -1.0f};
+        short[] out = new short[in.length];
+
+        MixerCore.toPcm16(in, out, in.length, 1.0f);
+        assertArrayEquals(new short[] {0, 16383, -16383, 32767, -32768, 32767, -32767}, out);
+
+        MixerCore.toPcm16(in, out, in.length, 0.5f);
+        assertArrayEquals(new short[] {0, 8191, -8191, 24575, -24575, 16383, -16383}, out);
+
+        // Only `count` samples are converted
+        short[] partial = new short[in.length];
+        MixerCore.toPcm16(in, partial, 2, 1.0f);
+        assertEquals(0, partial[2]);
+    }
+
+    private static float[] mix(MixerCore mixer, int frames) {
+        float[] out = new float[frames * 2];
+        mixer.mix(out, frames);
+        return out;
+    }
+
+    private static void assertFrame(float[] out, int frame, float left, float right) {
+        assertEquals("left of frame " + frame, left, out[frame * 2], DELTA);
+        assertEquals("right of frame " + frame, right, out[frame * 2 + 1], DELTA);
+    }
+
+    private static MixerCore.Sample constant(int frames, float value) {
+        float[] data = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            data[i] = value;
+        }
+        return new MixerCore.Sample(data, 1, RATE);
+    }
+
+    private static MixerCore.Sample ramp(int frames) {
+        return new MixerCore.Sample(rampData(frames), 1, RATE);
+    }
+
+    private static float[] rampData(int frames) {
+        float[] data = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            data[i] = i;
+        }
+        return data;
+    }
+}
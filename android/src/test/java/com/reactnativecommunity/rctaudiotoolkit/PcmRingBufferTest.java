@@ -0,0 +1,73 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PcmRingBufferTest {
+    @Test
+    public void readsBackWhatWasWrittenAcrossTheEnd() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        byte[] out = new byte[5];
+
+        // Each round starts at a different offset, so writes and reads split at every position
+        for (int round = 0; round < 16; round++) {
+            byte[] in = bytes(round, 5);
+            assertEquals(5, ring.write(in, 0, 5));
+            assertEquals(5, ring.available());
+            assertEquals(5, ring.read(out, 0, 5));
+            assertArrayEquals(in, out);
+            assertEquals(0, ring.available());
+        }
+        assertEquals(0, ring.overrunBytes());
+    }
+
+    @Test
+    public void dropsAndCountsWhatDoesNotFit() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        assertEquals(6, ring.write(bytes(1, 6), 0, 6));
+        assertEquals(2, ring.write(bytes(2, 5), 0, 5));
+        assertEquals(3, ring.overrunBytes());
+        assertEquals(0, ring.write(bytes(3, 4), 0, 4));
+        assertEquals(7, ring.overrunBytes());
+
+        // The oldest data survives, the overrun cut the newest write short
+        byte[] out = new byte[8];
+        assertEquals(8, ring.read(out, 0, 8));
+        byte[] expected = new byte[8];
+        System.arraycopy(bytes(1, 6), 0, expected, 0, 6);
+        System.arraycopy(bytes(2, 5), 0, expected, 6, 2);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void readsNoMoreThanIsAvailable() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(bytes(1, 3), 0, 3);
+        byte[] out = new byte[8];
+        assertEquals(3, ring.read(out, 2, 8 - 2));
+        assertEquals(0, ring.read(out, 0, 8));
+    }
+
+    @Test
+    public void clearDropsPendingData() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(bytes(1, 7), 0, 7);
+        ring.clear();
+        assertEquals(0, ring.available());
+        assertEquals(8, ring.write(bytes(2, 8), 0, 8));
+
+        byte[] out = new byte[8];
+        ring.read(out, 0, 8);
+        assertArrayEquals(bytes(2, 8), out);
+    }
+
+    private static byte[] bytes(int seed, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (seed * 17 + i);
+        }
+        return bytes;
+    }
+}
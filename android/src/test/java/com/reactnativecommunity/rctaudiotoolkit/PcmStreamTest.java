@@ -0,0 +1,108 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PcmStreamTest {
+    @Test
+    public void slotsAreAlignedForEightByteReads() {
+        // 16 kHz mono in 20 ms chunks is 640 bytes, odd sizes are rounded up too
+        for (int chunkBytes : new int[] {640, 642, 1, 4095}) {
+            PcmStream stream = new PcmStream(3, chunkBytes, 16000, 1);
+            assertEquals(0, stream.getSlotSize() % 8);
+            assertTrue(stream.getSlotSize() >= PcmStream.SLOT_HEADER_SIZE + chunkBytes);
+            for (long sequence = 0; sequence < 3; sequence++) {
+                assertEquals(0, (stream.offsetOf(sequence) - PcmStream.SLOT_HEADER_SIZE) % 8);
+            }
+        }
+    }
+
+    @Test
+    public void consumersReadChunksInPlaceAcrossWraparound() {
+        PcmStream stream = new PcmStream(3, 6, 16000, 1);
+        ByteBuffer buffer = stream.getBuffer();
+
+        for (long sequence = 0; sequence < 10; sequence++) {
+            byte[] chunk = chunk(sequence, sequence % 2 == 0 ? 6 : 5);
+            assertTrue(stream.publish(chunk, chunk.length));
+
+            int slot = stream.offsetOf(sequence) - PcmStream.SLOT_HEADER_SIZE;
+            assertEquals(sequence, buffer.getLong(slot));
+            assertEquals(chunk.length, stream.lengthOf(sequence));
+            for (int i = 0; i < chunk.length; i++) {
+                assertEquals(chunk[i], buffer.get(stream.offsetOf(sequence) + i));
+            }
+            assertEquals(sequence + 1, buffer.getLong(0));
+
+            stream.release(sequence);
+            assertEquals(sequence + 1, buffer.getLong(8));
+        }
+    }
+
+    @Test
+    public void dropsChunksWhileFullAndResumesAfterRelease() {
+        PcmStream stream = new PcmStream(2, 4, 16000, 1);
+        assertTrue(stream.publish(chunk(0, 4), 4));
+        assertTrue(stream.publish(chunk(1, 4), 4));
+        assertTrue(stream.isFull());
+
+        assertFalse(stream.publish(chunk(2, 4), 4));
+        assertFalse(stream.publish(chunk(3, 4), 4));
+        assertEquals(2, stream.getDroppedChunks());
+        assertEquals(2, stream.getBuffer().getLong(16));
+        assertEquals(2, stream.getWriteSequence());
+
+        // Releasing is cumulative and never goes past what was published
+        stream.release(0);
+        assertFalse(stream.isFull());
+        stream.release(0);
+        assertEquals(1, stream.getReadSequence());
+        stream.release(100);
+        assertEquals(2, stream.getReadSequence());
+
+        assertTrue(stream.publish(chunk(2, 4), 4));
+        assertEquals(3, stream.getWriteSequence());
+    }
+
+    @Test
+    public void longerChunksAreCutToTheSlot() {
+        PcmStream stream = new PcmStream(2, 4, 16000, 1);
+        assertTrue(stream.publish(chunk(0, 10), 10));
+        assertEquals(4, stream.lengthOf(0));
+    }
+
+    @Test
+    public void nothingIsPublishedAfterTheEnd() {
+        final int[] ends = new int[1];
+        PcmStream stream = new PcmStream(2, 4, 16000, 1);
+        stream.setConsumer(new PcmStream.Consumer() {
+            @Override
+            public void onChunk(PcmStream stream, long sequence) {
+            }
+
+            @Override
+            public void onEnd(PcmStream stream) {
+                ends[0]++;
+            }
+        });
+
+        stream.end();
+        stream.end();
+        assertEquals(1, ends[0]);
+        assertFalse(stream.publish(chunk(0, 4), 4));
+        assertEquals(0, stream.getWriteSequence());
+    }
+
+    private static byte[] chunk(long sequence, int length) {
+        byte[] chunk = new byte[length];
+        for (int i = 0; i < length; i++) {
+            chunk[i] = (byte) (sequence * 31 + i);
+        }
+        return chunk;
+    }
+}
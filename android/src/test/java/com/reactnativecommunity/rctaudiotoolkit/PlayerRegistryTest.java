@@ -0,0 +1,208 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaPlayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerRegistryTest {
+    private final List<MediaPlayer> evicted = Collections.synchronizedList(new ArrayList<MediaPlayer>());
+    private PlayerRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new PlayerRegistry(new PlayerRegistry.EvictionListener() {
+            @Override
+            public void onEvicted(PlayerRegistry.PlayerState state, MediaPlayer player) {
+                evicted.add(player);
+            }
+        });
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedIdlePlayer() {
+        registry.setMaxSize(2);
+        MediaPlayer a = new FakePlayer(false, 0);
+        MediaPlayer b = new FakePlayer(false, 0);
+        registry.put("a", a, "a.mp3", null);
+        registry.put("b", b, "b.mp3", null);
+
+        // Touching a makes b the least recently used one
+        assertSame(a, registry.get("a"));
+        registry.put("c", new FakePlayer(false, 0), "c.mp3", null);
+
+        assertEquals(1, evicted.size());
+        assertSame(b, evicted.get(0));
+        assertNull(registry.peek("b"));
+        assertSame(a, registry.peek("a"));
+        assertEquals(2, registry.stats().get("size"));
+        assertEquals(1.0, registry.stats().get("evictions"));
+    }
+
+    @Test
+    public void neverEvictsPlayingPlayers() {
+        registry.setMaxSize(1);
+        registry.put("a", new FakePlayer(true, 0), "a.mp3", null);
+        registry.put("b", new FakePlayer(true, 0), "b.mp3", null);
+
+        assertTrue(evicted.isEmpty());
+        assertEquals(2, registry.stats().get("size"));
+    }
+
+    @Test
+    public void evictedPlayerKeepsItsSourceAndPosition() {
+        registry.setMaxSize(1);
+        registry.put("a", new FakePlayer(false, 1234), "a.mp3", null);
+        registry.put("b", new FakePlayer(false, 0), "b.mp3", null);
+
+        PlayerRegistry.Source source = registry.takeEvicted("a");
+        assertNotNull(source);
+        assertEquals("a.mp3", source.path);
+        assertEquals(1234, source.position);
+        // Only taken once, the second caller prepares nothing
+        assertNull(registry.takeEvicted("a"));
+        assertEquals(1.0, registry.stats().get("reprepares"));
+    }
+
+    @Test
+    public void removeForgetsThePlayer() {
+        MediaPlayer a = new FakePlayer(false, 0);
+        registry.put("a", a, "a.mp3", null);
+
+        PlayerRegistry.PlayerState state = registry.remove("a");
+        assertSame(a, state.player);
+        assertNull(registry.state("a"));
+        assertNull(registry.get("a"));
+        assertEquals(0, registry.stats().get("size"));
+        assertEquals(1.0, registry.stats().get("misses"));
+    }
+
+    // Prepares, re-prepares, destroys and seeks on a handful of shared ids from many threads, the way
+    // the media lanes and listener threads do, and checks that the bookkeeping still adds up
+    @Test
+    public void staysConsistentUnderConcurrentPrepareDestroyAndSeek() throws Exception {
+        final int threads = 8;
+        final int iterations = 20000;
+        final int ids = 12;
+        final int maxSize = 4;
+        registry.setMaxSize(maxSize);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    try {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            String id = "player" + random.nextInt(ids);
+                            switch (random.nextInt(5)) {
+                                case 0:
+                                    registry.put(id, new FakePlayer(false, 0), id, null);
+                                    break;
+                                case 1:
+                                    registry.remove(id);
+                                    break;
+                                case 2:
+                                    if (registry.takeEvicted(id) != null) {
+                                        registry.put(id, new FakePlayer(false, 0), id, null);
+                                    }
+                                    break;
+                                case 3:
+                                    PlayerRegistry.PlayerState state = registry.state(id);
+                                    if (state != null) {
+                                        state.seekCallback.set(null);
+                                        synchronized (state) {
+                                            state.seekWaiters.clear();
+                                        }
+                                    }
+                                    break;
+                                default:
+                                    registry.get(id);
+                                    break;
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        int prepared = 0;
+        for (PlayerRegistry.PlayerState state : registry.states()) {
+            synchronized (state) {
+                if (state.player != null) {
+                    prepared++;
+                    assertFalse(state.evicted);
+                }
+            }
+        }
+        assertEquals(prepared, registry.stats().get("size"));
+        assertTrue("prepared " + prepared, prepared <= maxSize);
+
+        // Every evicted player was handed to the listener once, and none of them is still registered
+        Set<MediaPlayer> unique = Collections.newSetFromMap(new IdentityHashMap<MediaPlayer, Boolean>());
+        unique.addAll(evicted);
+        assertEquals(evicted.size(), unique.size());
+        for (PlayerRegistry.PlayerState state : registry.states()) {
+            synchronized (state) {
+                assertFalse(unique.contains(state.player));
+            }
+        }
+
+        Map<String, Object> stats = registry.stats();
+        assertEquals((double) evicted.size(), stats.get("evictions"));
+    }
+
+    private static class FakePlayer extends MediaPlayer {
+        private final boolean playing;
+        private final int position;
+
+        FakePlayer(boolean playing, int position) {
+            this.playing = playing;
+            this.position = position;
+        }
+
+        @Override
+        public boolean isPlaying() {
+            return playing;
+        }
+
+        @Override
+        public int getCurrentPosition() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaRecorder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RecorderRegistryTest {
+    @Test
+    public void looksUpRecordersByIdAndInstance() {
+        RecorderRegistry registry = new RecorderRegistry();
+        MediaRecorder recorder = new MediaRecorder();
+        registry.put(new RecorderRegistry.RecorderState(1, recorder, null, true));
+
+        assertSame(recorder, registry.get(1).recorder);
+        assertEquals(Integer.valueOf(1), registry.idOf(recorder));
+
+        registry.remove(1);
+        assertNull(registry.get(1));
+        assertNull(registry.idOf(recorder));
+    }
+
+    // Prepare and destroy race on shared ids, the reverse lookup must never point at a recorder that
+    // is no longer registered under that id
+    @Test
+    public void reverseLookupStaysConsistentUnderConcurrentPrepareAndDestroy() throws Exception {
+        final RecorderRegistry registry = new RecorderRegistry();
+        final int ids = 4;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < ids; t++) {
+            // One lane per id, like the media executor, with listener lookups from other threads
+            final int id = t;
+            Thread lane = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 20000; i++) {
+                            registry.remove(id);
+                            registry.put(new RecorderRegistry.RecorderState(id, new MediaRecorder(), null, true));
+                        }
+                        registry.remove(id);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            Thread listener = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(id);
+                    try {
+                        start.await();
+                        for (int i = 0; i < 20000; i++) {
+                            RecorderRegistry.RecorderState state = registry.get(random.nextInt(ids));
+                            if (state != null) {
+                                Integer found = registry.idOf(state.recorder);
+                                if (found != null) {
+                                    assertEquals(state.recorderId, found);
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            workers.add(lane);
+            workers.add(listener);
+        }
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        for (int id = 0; id < ids; id++) {
+            assertNull(registry.get(id));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimeStretchTest {
+    private static final int RATE = 16000;
+    private static final double TONE = 440.0;
+
+    @Test
+    public void unchangedPlaybackCopiesTheSource() {
+        MixerCore.Sample sample = sine(RATE, 1);
+        float[] out = renderAll(new TimeStretch(sample), 300);
+        assertArrayEquals(sample.data, out, 0.0f);
+    }
+
+    @Test
+    public void outputLengthFollowsSpeedNotPitch() {
+        float[][] params = {
+                {2.0f, 1.0f}, {0.5f, 1.0f}, {1.5f, 1.0f}, {0.75f, 1.0f},
+                {1.0f, 2.0f}, {1.0f, 0.5f}, {1.5f, 0.8f}, {4.0f, 2.0f}, {0.25f, 1.0f},
+        };
+        MixerCore.Sample sample = sine(2 * RATE, 1);
+        for (float[] param : params) {
+            TimeStretch stretch = new TimeStretch(sample);
+            stretch.setParams(param[0], param[1]);
+            int length = renderAll(stretch, 256).length;
+
+            // Within a couple of segments of the exact length, the last ones are cut at the end
+            double expected = sample.frames / param[0];
+            String name = "speed " + param[0] + ", pitch " + param[1];
+            assertEquals(name, expected, length, 0.02 * expected + 0.1 * RATE);
+            assertTrue(name, stretch.isEnded());
+        }
+    }
+
+    @Test
+    public void positionFollowsTheSourceWhileRendering() {
+        MixerCore.Sample sample = sine(4 * RATE, 1);
+        for (float speed : new float[] {0.5f, 1.0f, 1.7f, 3.0f}) {
+            for (float pitch : new float[] {0.7f, 1.0f, 1.5f}) {
+                TimeStretch stretch = new TimeStretch(sample);
+                stretch.setParams(speed, pitch);
+                float[] out = new float[512];
+                long rendered = 0;
+                while (rendered < RATE / speed) {
+                    rendered += stretch.render(out, 512);
+                    // Output frames played so far, in source time. One segment of slack each way.
+                    double expected = rendered * 1000.0 * speed / RATE;
+                    assertEquals("speed " + speed + ", pitch " + pitch, expected, stretch.positionMillis(),
+                            60 * speed + 20);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void pitchChangesTheFrequencyAndSpeedDoesNot() {
+        MixerCore.Sample sample = sine(2 * RATE, 1);
+        assertEquals(TONE, frequencyAt(sample, 1.0f, 1.0f), TONE * 0.01);
+        assertEquals(TONE, frequencyAt(sample, 2.0f, 1.0f), TONE * 0.05);
+        assertEquals(TONE, frequencyAt(sample, 0.5f, 1.0f), TONE * 0.05);
+        assertEquals(2 * TONE, frequencyAt(sample, 1.0f, 2.0f), TONE * 0.1);
+        assertEquals(0.5 * TONE, frequencyAt(sample, 1.0f, 0.5f), TONE * 0.05);
+        assertEquals(1.5 * TONE, frequencyAt(sample, 0.8f, 1.5f), TONE * 0.1);
+    }
+
+    @Test
+    public void stereoChannelsStaySeparate() {
+        float[] data = new float[2 * RATE];
+        for (int f = 0; f < RATE; f++) {
+            data[f * 2] = 0.25f;
+            data[f * 2 + 1] = -0.5f;
+        }
+        TimeStretch stretch = new TimeStretch(new MixerCore.Sample(data, 2, RATE));
+        stretch.setParams(1.3f, 0.9f);
+
+        float[] out = new float[2 * 256];
+        int frames;
+        while ((frames = stretch.render(out, 256)) > 0) {
+            for (int f = 0; f < frames; f++) {
+                assertEquals(0.25f, out[f * 2], 1e-5f);
+                assertEquals(-0.5f, out[f * 2 + 1], 1e-5f);
+            }
+        }
+    }
+
+    @Test
+    public void seekMovesThePosition() {
+        TimeStretch stretch = new TimeStretch(sine(2 * RATE, 1));
+        stretch.setParams(1.5f, 1.0f);
+        stretch.render(new float[1000], 1000);
+
+        stretch.seek(1500);
+        assertEquals(1500, stretch.positionMillis());
+        float[] out = new float[256];
+        stretch.render(out, 256);
+        assertEquals(1500 + 256 * 1000.0 * 1.5 / RATE, stretch.positionMillis(), 60 * 1.5 + 20);
+
+        // Rendering from a seek target past the end gives nothing
+        stretch.seek(5000);
+        assertEquals(2000, stretch.positionMillis());
+        assertTrue(stretch.isEnded());
+        assertEquals(0, stretch.render(out, 256));
+
+        stretch.seek(0);
+        assertFalse(stretch.isEnded());
+        assertEquals(256, stretch.render(out, 256));
+    }
+
+    @Test
+    public void paramsAreClamped() {
+        TimeStretch stretch = new TimeStretch(sine(RATE, 1));
+        stretch.setParams(100.0f, 0.01f);
+        assertEquals(TimeStretch.MAX_SPEED, stretch.getSpeed(), 0.0f);
+        assertEquals(TimeStretch.MIN_PITCH, stretch.getPitch(), 0.0f);
+        stretch.setParams(0.0f, 10.0f);
+        assertEquals(TimeStretch.MIN_SPEED, stretch.getSpeed(), 0.0f);
+        assertEquals(TimeStretch.MAX_PITCH, stretch.getPitch(), 0.0f);
+    }
+
+    @Test
+    public void needsASampleOnHeap() {
+        try {
+            new TimeStretch(new MixerCore.Sample(FloatBuffer.allocate(100), 1, RATE));
+            fail("Accepted a sample in a buffer");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static float[] renderAll(TimeStretch stretch, int block) {
+        float[] out = new float[1024 * stretch.getChannels()];
+        float[] all = new float[0];
+        int total = 0;
+        int frames;
+        while ((frames = stretch.render(out, block)) > 0) {
+            int samples = frames * stretch.getChannels();
+            if (total + samples > all.length) {
+                all = Arrays.copyOf(all, Math.max(all.length * 2, total + samples));
+            }
+            System.arraycopy(out, 0, all, total, samples);
+            total += samples;
+        }
+        return Arrays.copyOf(all, total);
+    }
+
+    // Counts rising zero crossings of the rendered output, skipping its first and last 10%
+    private static double frequencyAt(MixerCore.Sample sample, float speed, float pitch) {
+        TimeStretch stretch = new TimeStretch(sample);
+        stretch.setParams(speed, pitch);
+        float[] out = renderAll(stretch, 256);
+
+        int from = out.length / 10;
+        int to = out.length - from;
+        int crossings = 0;
+        int first = -1;
+        int last = -1;
+        for (int i = from + 1; i < to; i++) {
+            if (out[i - 1] < 0 && out[i] >= 0) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+                crossings++;
+            }
+        }
+        return (crossings - 1) * (double) RATE / (last - first);
+    }
+
+    private static MixerCore.Sample sine(int frames, int channels) {
+        float[] data = new float[frames * channels];
+        for (int f = 0; f < frames; f++) {
+            float value = (float) (0.5 * Math.sin(2 * Math.PI * TONE * f / RATE));
+            for (int c = 0; c < channels; c++) {
+                data[f * channels + c] = value;
+            }
+        }
+        return new MixerCore.Sample(data, channels, RATE);
+    }
+}
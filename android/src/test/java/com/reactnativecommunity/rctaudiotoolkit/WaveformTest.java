@@ -0,0 +1,122 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class WaveformTest {
+    private static final float DELTA = 1e-4f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void spreadsBucketsEvenlyOverTheDuration() {
+        // One second at 1000 Hz in 4 buckets, each bucket at its own constant level
+        Waveform waveform = new Waveform(4, 1000, 1000);
+        for (int bucket = 0; bucket < 4; bucket++) {
+            waveform.add(constant(250, 0.1f * (bucket + 1)), 250, 1);
+        }
+        waveform.finish();
+
+        for (int bucket = 0; bucket < 4; bucket++) {
+            assertEquals(0.1f * (bucket + 1), waveform.rms[bucket], DELTA);
+            assertEquals(0.1f * (bucket + 1), waveform.max[bucket], DELTA);
+        }
+        assertEquals(4, waveform.getCompleted());
+    }
+
+    @Test
+    public void tracksMinMaxAndRmsOfStereoMixedToMono() {
+        Waveform waveform = new Waveform(1, 1000, 4);
+        // Mono values 0.5, -0.5, 0.25 and -0.25
+        waveform.add(new float[] {1.0f, 0.0f, -1.0f, 0.0f, 0.25f, 0.25f, -0.5f, 0.0f}, 4, 2);
+        waveform.finish();
+
+        assertEquals(-0.5f, waveform.min[0], DELTA);
+        assertEquals(0.5f, waveform.max[0], DELTA);
+        assertEquals((float) Math.sqrt((0.25 + 0.25 + 0.0625 + 0.0625) / 4), waveform.rms[0], DELTA);
+    }
+
+    @Test
+    public void outputRateChangeBeforeTheFirstFrames() {
+        // Container says 22050 Hz, the HE-AAC decoder then delivers twice as many frames
+        Waveform waveform = new Waveform(4, 1000, 22050);
+        waveform.setSampleRate(44100);
+        for (int bucket = 0; bucket < 4; bucket++) {
+            waveform.add(constant(44100 / 4, 0.1f * (bucket + 1)), 44100 / 4, 1);
+        }
+        waveform.finish();
+
+        for (int bucket = 0; bucket < 4; bucket++) {
+            assertEquals(0.1f * (bucket + 1), waveform.rms[bucket], DELTA);
+        }
+    }
+
+    @Test
+    public void outputRateChangeInTheMiddleKeepsTheBucketsSoFar() {
+        Waveform waveform = new Waveform(4, 1000, 1000);
+        waveform.add(constant(250, 0.1f), 250, 1);
+        waveform.add(constant(250, 0.2f), 250, 1);
+        waveform.setSampleRate(2000);
+        waveform.add(constant(500, 0.3f), 500, 1);
+        waveform.add(constant(500, 0.4f), 500, 1);
+        waveform.finish();
+
+        assertEquals(0.1f, waveform.rms[0], DELTA);
+        assertEquals(0.2f, waveform.rms[1], DELTA);
+        assertEquals(0.3f, waveform.rms[2], DELTA);
+        assertEquals(0.4f, waveform.rms[3], DELTA);
+    }
+
+    @Test
+    public void framesPastTheDurationFallIntoTheLastBucket() {
+        Waveform waveform = new Waveform(2, 1000, 100);
+        waveform.add(constant(100, 0.1f), 100, 1);
+        waveform.add(constant(50, 0.9f), 50, 1);
+        waveform.finish();
+
+        assertEquals(0.1f, waveform.max[0], DELTA);
+        assertEquals(0.9f, waveform.max[1], DELTA);
+        assertEquals(2, waveform.getCompleted());
+    }
+
+    @Test
+    public void sidecarRoundTrip() throws Exception {
+        Waveform waveform = new Waveform(3, 1500, 30);
+        waveform.add(constant(15, -0.5f), 15, 1);
+        waveform.add(constant(15, 0.25f), 15, 1);
+        waveform.add(constant(15, 1.0f), 15, 1);
+        waveform.finish();
+
+        File file = new File(folder.getRoot(), "a.waveform");
+        waveform.write(file);
+
+        Waveform read = Waveform.read(file, 3);
+        assertNotNull(read);
+        assertEquals(1500, read.durationMillis);
+        assertEquals(3, read.getCompleted());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(waveform.min[i], read.min[i], DELTA);
+            assertEquals(waveform.max[i], read.max[i], DELTA);
+            assertEquals(waveform.rms[i], read.rms[i], DELTA);
+        }
+
+        // Asked for another resolution, the sidecar is computed again
+        assertNull(Waveform.read(file, 4));
+    }
+
+    private static float[] constant(int frames, float value) {
+        float[] samples = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            samples[i] = value;
+        }
+        return samples;
+    }
+}
@@ -2,6 +2,9 @@
 
 import Player, { PlaybackCategories } from './src/Player';
 import Recorder from './src/Recorder';
+import SoundEffect from './src/SoundEffect';
+import PlayerQueue from './src/PlayerQueue';
+import Mixer from './src/Mixer';
 import MediaStates from './src/MediaStates';
 
-export { Player, Recorder, MediaStates, PlaybackCategories };
+export { Player, Recorder, SoundEffect, PlayerQueue, Mixer, MediaStates, PlaybackCategories };
@@ -0,0 +1,79 @@
+import { NativeModules } from 'react-native';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+const RCTAudioMixer = NativeModules.AudioMixer;
+
+/**
+ * Software mixer for many simultaneous short sounds (Android only). Clips are
+ * decoded to PCM once with `load()`, and every `play()` starts a voice on one
+ * shared output track. Voices are addressed by the id passed to `play()`'s
+ * callback.
+ */
+class Mixer {
+  /**
+   * Configure the mixer. Changing `maxVoices` stops all playing voices.
+   */
+  static setup(options, callback = noop) {
+    RCTAudioMixer.setup(options, callback);
+  }
+
+  /**
+   * Decode the clip at `path` and keep it under `sampleId`. Callback receives
+   * `(err, { duration, channels, sampleRate })`.
+   */
+  static load(sampleId, path, options = {}, callback = noop) {
+    RCTAudioMixer.load(sampleId, path, options || {}, callback);
+  }
+
+  static unload(sampleId, callback = noop) {
+    RCTAudioMixer.unload(sampleId, callback);
+  }
+
+  /**
+   * Start a voice of a loaded clip. Callback receives `(err, voiceId)`.
+   */
+  static play(sampleId, options = {}, callback = noop) {
+    RCTAudioMixer.play(sampleId, options || {}, (err, results) => {
+      callback(err, results && results.voiceId);
+    });
+  }
+
+  static setVoice(voiceId, options, callback = noop) {
+    RCTAudioMixer.setVoice(voiceId, options, callback);
+  }
+
+  static stopVoice(voiceId, callback = noop) {
+    RCTAudioMixer.stopVoice(voiceId, callback);
+  }
+
+  static stopAll(callback = noop) {
+    RCTAudioMixer.stopAll(callback);
+  }
+
+  static getStats(callback) {
+    RCTAudioMixer.getStats(callback);
+  }
+
+  /**
+   * Configure the shared cache of decoded clips. `maxSize` is in bytes,
+   * `offHeap` keeps newly decoded clips in direct buffers.
+   */
+  static setCacheOptions(options, callback = noop) {
+    RCTAudioMixer.setCacheOptions(options, callback);
+  }
+
+  static getCacheStats(callback) {
+    RCTAudioMixer.getCacheStats(callback);
+  }
+
+  /**
+   * Drop all decoded clips that are not loaded anymore.
+   */
+  static clearCache(callback = noop) {
+    RCTAudioMixer.clearCache(callback);
+  }
+}
+
+export default Mixer;
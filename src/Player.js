@@ -18,11 +18,64 @@ export const PlaybackCategories = {
   SoloAmbient: 3,
 }
 
+// Players by id, used to demultiplex batched events (see Player.setEventBatching)
+const players = {};
+// Progress handlers of running Player.prepareMany calls by batch id
+const prepareManyHandlers = {};
+let prepareManyCount = 0;
+// Event handlers of other native objects sharing the player event channels, e.g. PlayerQueue
+const eventHandlers = {};
+let batchListener = null;
+
+const appEventEmitter = Platform.OS === 'ios' ? NativeAppEventEmitter : DeviceEventEmitter;
+
+function listenForBatchedEvents() {
+  if (batchListener != null) {
+    return;
+  }
+
+  batchListener = appEventEmitter.addListener('RCTAudioPlayerEvents', (payloads) => {
+    payloads.forEach((payload) => {
+      const player = players[payload.playerId];
+      if (player) {
+        player._handleEvent(payload.playerId, payload.event, payload.data);
+      } else if (prepareManyHandlers[payload.playerId]) {
+        prepareManyHandlers[payload.playerId](payload.data);
+      } else if (eventHandlers[payload.playerId]) {
+        eventHandlers[payload.playerId](payload.event, payload.data);
+      }
+    });
+  });
+}
+
+/**
+ * Route the player events of `id` to `handler(event, data)`, whether they
+ * arrive on the id's own channel or batched. Returns a subscription with a
+ * `remove()` method.
+ */
+export function addPlayerEventHandler(id, handler) {
+  eventHandlers[id] = handler;
+  listenForBatchedEvents();
+
+  const subscription = appEventEmitter.addListener(`RCTAudioPlayerEvent:${id}`, (payload) => {
+    handler(payload.event, payload.data);
+  });
+
+  return {
+    remove() {
+      delete eventHandlers[id];
+      subscription.remove();
+    },
+  };
+}
+
 const defaultPlayerOptions = {
   autoDestroy: true,
   continuesToPlayInBackground: false,
   category: PlaybackCategories.Playback,
   mixWithOthers: false,
+  // durationReadable/positionReadable are only built natively when asked for
+  readableTimes: false,
 };
 
 /**
@@ -47,6 +100,8 @@ class Player extends EventEmitter {
         options.category = defaultPlayerOptions.category;
       if (options.mixWithOthers == null)
         options.mixWithOthers = defaultPlayerOptions.mixWithOthers;
+      if (options.readableTimes == null)
+        options.readableTimes = defaultPlayerOptions.readableTimes;
 
       this._options = options;
     }
@@ -54,10 +109,221 @@ class Player extends EventEmitter {
     //reset jika kosong
     this._reset();
 
-    const appEventEmitter = Platform.OS === 'ios' ? NativeAppEventEmitter : DeviceEventEmitter;
+    this._subscription = null;
+    this._register(playerId);
+  }
+
+  // Route the events of `playerId` to this player, until _unregister() is called
+  _register(playerId) {
+    if (this._subscription == null) {
+      this._subscription = appEventEmitter.addListener(`RCTAudioPlayerEvent:${playerId}`, (payload) => {
+        this._handleEvent(payload.playerId,payload.event, payload.data);
+      });
+    }
+
+    players[playerId] = this;
+    listenForBatchedEvents();
+  }
+
+  // Lets go of the player once the native one was destroyed, prepare() registers it again
+  _unregister(playerId) {
+    if (this._subscription != null) {
+      this._subscription.remove();
+      this._subscription = null;
+    }
+    if (players[playerId] === this) {
+      delete players[playerId];
+    }
+  }
+
+  /**
+   * Collect events of all players into one batched bridge event (Android only).
+   * Options: `enabled` (default true) and `window` in milliseconds (default 0,
+   * meaning once per frame).
+   */
+  static setEventBatching(options, callback = noop) {
+    if (!RCTAudioPlayer.setEventBatching) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setEventBatching(options, callback);
+  }
+
+  /**
+   * Configure native error reporting (Android only). `stackTraces` (default
+   * false) adds a native `stackTrace` to every error, `resetStats` clears the
+   * error counters.
+   */
+  static setErrorOptions(options, callback = noop) {
+    if (!RCTAudioPlayer.setErrorOptions) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setErrorOptions(options, callback);
+  }
+
+  /**
+   * Callback receives `(err, { counts, suppressedLogs, stackTraces })`, where
+   * `counts` holds the number of errors by code of all modules (Android only).
+   */
+  static getErrorStats(callback) {
+    RCTAudioPlayer.getErrorStats(callback);
+  }
+
+  /**
+   * Callback receives `(err, { timings, events, enabled })` with lifecycle
+   * latency histograms and emitted event counts (Android only).
+   */
+  static getMetrics(callback) {
+    RCTAudioPlayer.getMetrics(callback);
+  }
+
+  /**
+   * Options: `enabled`, `reset`, and `interval` for periodic metrics events
+   * in milliseconds (0 stops them) (Android only).
+   */
+  static setMetricsOptions(options, callback = noop) {
+    RCTAudioPlayer.setMetricsOptions(options, callback);
+  }
+
+  /**
+   * Listen to the periodic metrics events enabled with `setMetricsOptions`.
+   * Returns a subscription with a `remove()` method.
+   */
+  static addMetricsListener(listener) {
+    return appEventEmitter.addListener('RCTAudioMetrics', listener);
+  }
+
+  /**
+   * Limit the number of prepared native players (Android only). Idle players
+   * beyond `maxSize` are released in least recently used order and prepared
+   * again when played. 0 means unbounded.
+   */
+  static setPoolOptions(options, callback = noop) {
+    if (!RCTAudioPlayer.setPoolOptions) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setPoolOptions(options, callback);
+  }
 
-    appEventEmitter.addListener(`RCTAudioPlayerEvent:${playerId}`, (payload) => {
-      this._handleEvent(payload.playerId,payload.event, payload.data);
+  static getPoolStats(callback) {
+    RCTAudioPlayer.getPoolStats(callback);
+  }
+
+  /**
+   * Play remote URLs through an on-disk LRU cache (Android only). Options:
+   * `enabled` (default true) and `maxSize` in bytes (default 100 MB). Only
+   * affects players prepared afterwards.
+   */
+  static setCacheOptions(options, callback = noop) {
+    if (!RCTAudioPlayer.setCacheOptions) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setCacheOptions(options, callback);
+  }
+
+  static getCacheStats(callback) {
+    RCTAudioPlayer.getCacheStats(callback);
+  }
+
+  static clearCache(callback = noop) {
+    RCTAudioPlayer.clearCache(callback);
+  }
+
+  /**
+   * Size limits of the in-memory clip cache used by players prepared with the
+   * `inMemory` option (Android only). Options: `maxSize` and `maxClipSize` in
+   * bytes.
+   */
+  static setClipCacheOptions(options, callback = noop) {
+    if (!RCTAudioPlayer.setClipCacheOptions) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setClipCacheOptions(options, callback);
+  }
+
+  static getClipCacheStats(callback) {
+    RCTAudioPlayer.getClipCacheStats(callback);
+  }
+
+  /**
+   * Resolve a path ahead of time, so that a later prepare() finds it in the
+   * native resolution cache (Android only). Callback receives
+   * `(err, { uri, source })`.
+   */
+  static resolve(path, callback = noop) {
+    if (!RCTAudioPlayer.resolve) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.resolve(path, callback);
+  }
+
+  /**
+   * Compute min, max and RMS levels of `buckets` equal slices of the file at
+   * `path` (Android only). Callback receives `(err, { duration, min, max, rms,
+   * cached })`. While a file is decoded, `onProgress` receives the slices
+   * completed since its last call as `{ from, completed, min, max, rms }`.
+   */
+  static getWaveform(path, buckets, callback = noop, onProgress = null) {
+    let subscription = null;
+    if (onProgress) {
+      subscription = appEventEmitter.addListener('RCTAudioWaveform', (data) => {
+        if (data.path === path && data.buckets === buckets) {
+          onProgress(data);
+        }
+      });
+    }
+    RCTAudioPlayer.getWaveform(path, buckets, (err, results) => {
+      if (subscription) {
+        subscription.remove();
+      }
+      callback(err, results);
+    });
+  }
+
+  /**
+   * Configure the native path resolution cache (Android only). `fileTtl` is
+   * how long file lookups are kept in milliseconds (default 5000, 0 disables
+   * caching them, -1 keeps them forever). Always clears the cache.
+   */
+  static setResolverOptions(options, callback = noop) {
+    if (!RCTAudioPlayer.setResolverOptions) {
+      setTimeout(callback, 0);
+      return;
+    }
+    RCTAudioPlayer.setResolverOptions(options, callback);
+  }
+
+  /**
+   * Prepare many native players at once, with at most `options.concurrency`
+   * (default 4) preparing at the same time (Android only). `entries` is an
+   * array of `{ playerId, path, options }`. `options.onProgress` is called
+   * with `{ playerId, success, completed, total }` as entries finish, and the
+   * callback receives one `{ playerId, err, info }` result per entry.
+   */
+  static prepareMany(entries, options = {}, callback = noop) {
+    const { onProgress, ...nativeOptions } = options;
+    const batchId = nativeOptions.batchId || `prepareMany:${++prepareManyCount}`;
+    nativeOptions.batchId = batchId;
+
+    let subscription = null;
+    if (onProgress) {
+      prepareManyHandlers[batchId] = onProgress;
+      subscription = appEventEmitter.addListener(`RCTAudioPlayerEvent:${batchId}`, (payload) => {
+        onProgress(payload.data);
+      });
+    }
+
+    RCTAudioPlayer.prepareMany(entries, nativeOptions, (err, results) => {
+      delete prepareManyHandlers[batchId];
+      if (subscription) {
+        subscription.remove();
+      }
+      callback(err, results);
     });
   }
 
@@ -66,6 +332,7 @@ class Player extends EventEmitter {
     this._volume = 1.0;
     this._pan = 0.0;
     this._speed = 1.0;
+    this._pitch = 1.0;
     this._wakeLock = false;
     this._duration = -1;
     this._durationReadable = "";
@@ -81,9 +348,11 @@ class Player extends EventEmitter {
     }
 
     this._duration = info.duration;
-    this._durationReadable = info.durationReadable;
+    if (info.durationReadable != null) {
+      this._durationReadable = info.durationReadable;
+      this._positionReadable = info.positionReadable;
+    }
     this._position = info.position;
-    this._positionReadable=info.positionReadable
     this._lastSync = Date.now();
   }
 
@@ -123,6 +392,8 @@ class Player extends EventEmitter {
         break;
       case 'error':
         this._state = MediaStates.ERROR;
+        // The native player destroys itself after an error
+        this._unregister(playerId);
         // this.emit('error', data);
         break;
       case 'pause':
@@ -132,14 +403,16 @@ class Player extends EventEmitter {
       case 'forcePause':
         this.pause();
         break;
-      case 'looped':
-        this._position = 0;
-        this._lastSync = Date.now();
+      case 'evicted':
+        // Native player was released to make room, it is prepared again on play()
+        this._position = -1;
+        this.emit(event, payload);
         break;
     }
   }
 
   prepare(playerId,callback = noop) {
+    this._register(playerId);
     this._updateState(null, MediaStates.PREPARING);
 
     const tasks = [];
@@ -166,6 +439,7 @@ class Player extends EventEmitter {
           wakeLock: this._wakeLock,
           looping: this._looping,
           speed: this._speed,
+          pitch: this._pitch,
         },
         next,
       );
@@ -245,6 +519,7 @@ class Player extends EventEmitter {
 
   destroy(playerId,callback = noop) {
     this._reset();
+    this._unregister(playerId);
     RCTAudioPlayer.destroy(playerId, callback);
   }
 
@@ -266,6 +541,61 @@ class Player extends EventEmitter {
     });
   }
 
+  /**
+   * Loop between `region.start` and `region.end` (ms) natively (Android
+   * only). Pass `null` to clear the region.
+   */
+  setLoopRegion(playerId, region, callback = noop) {
+    RCTAudioPlayer.setLoopRegion(playerId, region, callback);
+
+    return this;
+  }
+
+  /**
+   * Scrubbing mode (Android only). While enabled, seeks issued during an
+   * in-flight seek are coalesced so that only the newest target is sent to
+   * the native player. With `fastSeek`, previews seek to the closest sync
+   * frame and a precise seek follows when scrubbing is disabled again.
+   * Callback receives `(err, { scrubbing, droppedSeeks })`.
+   */
+  setScrubbing(playerId, enabled, options = {}, callback = noop) {
+    RCTAudioPlayer.setScrubbing(playerId, { ...options, enabled }, callback);
+
+    return this;
+  }
+
+  /**
+   * Cheap position polling (Android only). Callback receives
+   * `(err, { position, duration, playing })` without the rest of the info.
+   */
+  getSnapshot(playerId, callback) {
+    RCTAudioPlayer.getSnapshot(playerId, (err, position, duration, playing) => {
+      if (err) {
+        callback(err);
+        return;
+      }
+
+      this._position = position;
+      this._duration = duration;
+      this._lastSync = Date.now();
+      callback(null, { position, duration, playing });
+    });
+
+    return this;
+  }
+
+  subscribeProgress(playerId, interval, callback = noop) {
+    RCTAudioPlayer.subscribeProgress(playerId, interval, callback);
+
+    return this;
+  }
+
+  unsubscribeProgress(playerId, callback = noop) {
+    RCTAudioPlayer.unsubscribeProgress(playerId, callback);
+
+    return this;
+  }
+
   _setIfInitialized(options, callback = noop) {
     if (this._state >= MediaStates.PREPARED) {
       RCTAudioPlayer.set(_playerId, options, callback);
@@ -296,6 +626,11 @@ class Player extends EventEmitter {
     this._setIfInitialized({ speed: value });
   }
 
+  set pitch(value) {
+    this._pitch = value;
+    this._setIfInitialized({ pitch: value });
+  }
+
   get currentTime() {
     // Queue up an async call to get an accurate current time
     RCTAudioPlayer.getCurrentTime(_playerId, (err, results) => {
@@ -309,6 +644,10 @@ class Player extends EventEmitter {
     if (this._state === MediaStates.PLAYING) {
       // Estimate the current time based on the latest info we received
       let pos = this._position + (Date.now() - this._lastSync) * this._speed;
+      if (this._looping && this._duration > 0) {
+        // Looping players wrap natively without an event, follow them around
+        return pos % this._duration;
+      }
       pos = Math.min(pos, this._duration);
       return pos;
     }
@@ -333,6 +672,9 @@ class Player extends EventEmitter {
   get speed() {
     return this._speed;
   }
+  get pitch() {
+    return this._pitch;
+  }
 
   get state() {
     return this._state;
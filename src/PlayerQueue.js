@@ -0,0 +1,113 @@
+import { NativeModules } from 'react-native';
+
+import EventEmitter from 'eventemitter3';
+import { addPlayerEventHandler } from './Player';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+const RCTAudioPlayer = NativeModules.AudioPlayer;
+
+/**
+ * Plays a list of files back to back without gaps (Android only). The next
+ * `preload` items (default 1, at most 4) are prepared natively ahead of time
+ * and started by the platform the moment the current item completes.
+ *
+ * `queueId` shares the id space of players, so it must not be used by a
+ * Player at the same time.
+ * @constructor
+ */
+class PlayerQueue extends EventEmitter {
+  constructor(queueId, paths, options = {}) {
+    super();
+
+    this._queueId = queueId;
+    this._items = paths.map((path) => (typeof path === 'string' ? { path } : path));
+    this._options = options || {};
+    this._info = null;
+
+    this._subscription = addPlayerEventHandler(queueId, (event, data) => {
+      this._handleEvent(event, data);
+    });
+  }
+
+  _handleEvent(event, data) {
+    switch (event) {
+      case 'itemchange':
+      case 'looped':
+      case 'ended':
+      case 'error':
+        this.emit(event, data);
+        break;
+    }
+  }
+
+  _storeInfo(err, info, callback) {
+    if (!err && info) {
+      this._info = info;
+    }
+    callback(err, info);
+  }
+
+  prepare(callback = noop) {
+    RCTAudioPlayer.queuePrepare(this._queueId, this._items, this._options, (err, info) => {
+      this._storeInfo(err, info, callback);
+    });
+
+    return this;
+  }
+
+  play(callback = noop) {
+    RCTAudioPlayer.queuePlay(this._queueId, (err, info) => {
+      this._storeInfo(err, info, callback);
+    });
+
+    return this;
+  }
+
+  pause(callback = noop) {
+    RCTAudioPlayer.queuePause(this._queueId, (err, info) => {
+      this._storeInfo(err, info, callback);
+    });
+
+    return this;
+  }
+
+  skip(index, callback = noop) {
+    RCTAudioPlayer.queueSkip(this._queueId, index, (err, info) => {
+      this._storeInfo(err, info, callback);
+    });
+
+    return this;
+  }
+
+  /**
+   * Set `volume`, `looping` or `preload` of the queue.
+   */
+  set(options, callback = noop) {
+    RCTAudioPlayer.queueSet(this._queueId, options, callback);
+
+    return this;
+  }
+
+  /**
+   * Current `index`, `position` and `duration` of the playing item, and
+   * `queuePosition`/`queueDuration` across all items.
+   */
+  getInfo(callback) {
+    RCTAudioPlayer.queueGetInfo(this._queueId, (err, info) => {
+      this._storeInfo(err, info, callback);
+    });
+  }
+
+  destroy(callback = noop) {
+    this._subscription.remove();
+    RCTAudioPlayer.queueDestroy(this._queueId, callback);
+  }
+
+  get info() {
+    return this._info;
+  }
+}
+
+export default PlayerQueue;
@@ -18,6 +18,27 @@ var RCTAudioRecorder = NativeModules.AudioRecorder;
 
 var recorderId = 0;
 
+// Recorders by id, used to demultiplex batched events such as meter frames
+var recorders = {};
+var batchListener = null;
+
+var appEventEmitter = Platform.OS === 'ios' ? NativeAppEventEmitter : DeviceEventEmitter;
+
+function listenForBatchedEvents() {
+  if (batchListener != null) {
+    return;
+  }
+
+  batchListener = appEventEmitter.addListener('RCTAudioRecorderEvents', (payloads) => {
+    payloads.forEach((payload) => {
+      let recorder = recorders[payload.recorderId];
+      if (recorder) {
+        recorder._handleEvent(payload.event, payload.data);
+      }
+    });
+  });
+}
+
 var defaultRecorderOptions = {
   autoDestroy: true
 };
@@ -35,12 +56,30 @@ class Recorder extends EventEmitter {
 
     this._recorderId = recorderId++;
     this._reset();
+    this._register();
+  }
 
-    let appEventEmitter = Platform.OS === 'ios' ? NativeAppEventEmitter : DeviceEventEmitter;
+  // Route the events of the native recorder to this one, until _unregister() is called
+  _register() {
+    if (this._subscription == null) {
+      this._subscription = appEventEmitter.addListener('RCTAudioRecorderEvent:' + this._recorderId, (payload: Event) => {
+        this._handleEvent(payload.event, payload.data);
+      });
+    }
 
-    appEventEmitter.addListener('RCTAudioRecorderEvent:' + this._recorderId, (payload: Event) => {
-      this._handleEvent(payload.event, payload.data);
-    });
+    recorders[this._recorderId] = this;
+    listenForBatchedEvents();
+  }
+
+  // Lets go of the recorder once the native one was destroyed, prepare() registers it again
+  _unregister() {
+    if (this._subscription != null) {
+      this._subscription.remove();
+      this._subscription = null;
+    }
+    if (recorders[this._recorderId] === this) {
+      delete recorders[this._recorderId];
+    }
   }
 
   _reset() {
@@ -65,6 +104,7 @@ class Recorder extends EventEmitter {
         break;
       case 'error':
         this._reset();
+        this._unregister();
         //this.emit('error', data);
         break;
     }
@@ -73,6 +113,7 @@ class Recorder extends EventEmitter {
   }
 
   prepare(callback = noop) {
+    this._register();
     this._updateState(null, MediaStates.PREPARING);
 
     // Prepare recorder
@@ -112,6 +153,10 @@ class Recorder extends EventEmitter {
     if (this._state >= MediaStates.RECORDING) {
       RCTAudioRecorder.stop(this._recorderId, (err) => {
         this._updateState(err, MediaStates.DESTROYED);
+        if (this._options.autoDestroy) {
+          // The native recorder destroys itself once stopped
+          this._unregister();
+        }
         callback(err);
       });
     } else {
@@ -148,8 +193,17 @@ class Recorder extends EventEmitter {
     return this;
   }
 
+  /**
+   * Statistics of the shared memory stream of a `'pcm'` recorder prepared
+   * with `stream: true` (Android only).
+   */
+  getStreamStats(callback) {
+    RCTAudioRecorder.getStreamStats(this._recorderId, callback);
+  }
+
   destroy(callback = noop) {
     this._reset();
+    this._unregister();
     RCTAudioRecorder.destroy(this._recorderId, callback);
   }
 
@@ -0,0 +1,119 @@
+import { NativeModules } from 'react-native';
+
+import EventEmitter from 'eventemitter3';
+import MediaStates from './MediaStates';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+const RCTAudioSoundPool = NativeModules.AudioSoundPool;
+
+/**
+ * Represents a short, low latency sound effect (Android only). Follows the
+ * Player API so that an app can choose the engine per sound, but every play()
+ * starts a new stream, so the same effect can overlap with itself.
+ * @constructor
+ */
+class SoundEffect extends EventEmitter {
+  constructor(playerId, path, options = {}) {
+    super();
+
+    this._path = path;
+    this._options = options || {};
+    this._playerId = playerId;
+    this._reset();
+  }
+
+  /**
+   * Configure the shared sound pool. Changing `maxStreams` drops all
+   * previously prepared sound effects.
+   */
+  static setup(options, callback = noop) {
+    RCTAudioSoundPool.setup(options, callback);
+  }
+
+  _reset() {
+    this._state = MediaStates.IDLE;
+    this._volume = 1.0;
+    this._pan = 0.0;
+    this._speed = 1.0;
+    this._looping = false;
+  }
+
+  prepare(playerId, callback = noop) {
+    this._state = MediaStates.PREPARING;
+
+    RCTAudioSoundPool.prepare(playerId, this._path, this._options, (err) => {
+      this._state = err ? MediaStates.ERROR : MediaStates.PREPARED;
+      callback(err);
+    });
+
+    return this;
+  }
+
+  play(playerId, callback = noop) {
+    const options = {
+      volume: this._volume,
+      pan: this._pan,
+      speed: this._speed,
+      looping: this._looping,
+    };
+
+    RCTAudioSoundPool.play(playerId, options, (err, results) => {
+      callback(err, results && results.streamId);
+    });
+
+    return this;
+  }
+
+  stop(playerId, callback = noop) {
+    RCTAudioSoundPool.stop(playerId, callback);
+
+    return this;
+  }
+
+  destroy(playerId, callback = noop) {
+    this._reset();
+    RCTAudioSoundPool.destroy(playerId, callback);
+  }
+
+  set volume(value) {
+    this._volume = value;
+  }
+
+  set pan(value) {
+    this._pan = value;
+  }
+
+  set speed(value) {
+    this._speed = value;
+  }
+
+  set looping(value) {
+    this._looping = value;
+  }
+
+  get volume() {
+    return this._volume;
+  }
+  get pan() {
+    return this._pan;
+  }
+  get speed() {
+    return this._speed;
+  }
+  get looping() {
+    return this._looping;
+  }
+  get state() {
+    return this._state;
+  }
+  get canPlay() {
+    return this._state >= MediaStates.PREPARED;
+  }
+  get isPrepared() {
+    return this._state == MediaStates.PREPARED;
+  }
+}
+
+export default SoundEffect;
@@ -21,7 +21,7 @@ declare enum PlaybackCategories {
 }
 
 interface BaseError<T> {
-    err: "invalidpath" | "preparefail" | "startfail" | "notfound" | "stopfail" | T;
+    err: "invalidpath" | "preparefail" | "startfail" | "notfound" | "stopfail" | "unexpected" | T;
     message: string;
     stackTrace: string[] | string;
 }
@@ -64,6 +64,137 @@ interface PlayerOptions {
      * (Default: false)
      */
     mixWithOthers?: boolean;
+
+    /**
+     * (Android only) Subscribe to `interval` events right after the player has been prepared,
+     * see `subscribeProgress()`.
+     */
+    progressInterval?: number;
+
+    /**
+     * Include `durationReadable` and `positionReadable` in the playback info. (Default: false)
+     */
+    readableTimes?: boolean;
+
+    /**
+     * (Android 6.0+ only) Play the file from a shared in-memory clip cache, for short sounds that
+     * are prepared over and over. (Default: false)
+     */
+    inMemory?: boolean;
+}
+
+interface LatencyHistogram {
+    count: number;
+    mean: number;
+    max: number;
+    /**
+     * Upper bounds of the bucket holding the percentile, in milliseconds
+     */
+    p50: number;
+    p90: number;
+    p99: number;
+    /**
+     * Counts per power of two bucket: below 1 ms, 1-2 ms, 2-4 ms, ...
+     */
+    buckets: number[];
+}
+
+interface AudioMetrics {
+    /**
+     * Keyed by `prepare`, `firstAudio`, `seek`, `bufferingStall`, `recorderPrepare`, `recorderStart` and `recorderStop`
+     */
+    timings: { [name: string]: LatencyHistogram };
+    /**
+     * Number of emitted events by event name
+     */
+    events: { [event: string]: number };
+    enabled: boolean;
+}
+
+interface Waveform {
+    /**
+     * Duration of the file in milliseconds
+     */
+    duration: number;
+    /**
+     * Lowest and highest sample and RMS level of each bucket, from -1.0 to 1.0
+     */
+    min: number[];
+    max: number[];
+    rms: number[];
+    /**
+     * `true` when read from the sidecar cache instead of decoding the file
+     */
+    cached: boolean;
+}
+
+interface WaveformProgress {
+    path: string;
+    buckets: number;
+    duration: number;
+    /**
+     * Index of the first bucket in `min`, `max` and `rms`
+     */
+    from: number;
+    /**
+     * Number of buckets completed so far
+     */
+    completed: number;
+    min: number[];
+    max: number[];
+    rms: number[];
+}
+
+interface RecorderStreamStats {
+    slots: number;
+    chunkBytes: number;
+    /**
+     * Sequence of the next chunk to be published
+     */
+    writeSequence: number;
+    /**
+     * Sequence of the oldest chunk not released by the native consumer
+     */
+    readSequence: number;
+    pending: number;
+    dropped: number;
+    full: boolean;
+    ended: boolean;
+}
+
+interface PlayerPoolStats {
+    size: number;
+    maxSize: number;
+    evictedCount: number;
+    hits: number;
+    misses: number;
+    evictions: number;
+    reprepares: number;
+}
+
+interface MediaCacheStats {
+    hits: number;
+    misses: number;
+    hitRatio: number;
+    bytesSaved: number;
+    bytesDownloaded: number;
+    size: number;
+    maxSize: number;
+    entries: number;
+    downloads: number;
+}
+
+interface PrepareProgress {
+    playerId: string;
+    success: boolean;
+    completed: number;
+    total: number;
+}
+
+interface PrepareResult {
+    playerId: string;
+    err?: PlayerError;
+    info?: object;
 }
 
 /**
@@ -135,6 +266,144 @@ declare class Player extends EventEmitter {
      */
     seek(position?: number, callback?: ((err: PlayerError | null) => void)): void;
 
+    /**
+     * Loop between two positions without JS involvement. A region covering the whole file uses the platform
+     * player's gapless looping. Android only.
+     *
+     * @param region Start and end in milliseconds, `end` defaults to the duration. `null` clears the region.
+     * @param callback Called once the region is in effect.
+     */
+    setLoopRegion(region: { start?: number, end?: number } | null, callback?: ((err: PlayerError | null) => void)): this;
+
+    /**
+     * Enable or disable scrubbing mode. While scrubbing, seeks issued during an in-flight seek are coalesced
+     * and only the newest target is sent to the native player. Android only.
+     *
+     * @param enabled Whether seeks should be coalesced.
+     * @param options With `fastSeek`, seeks while scrubbing go to the closest sync frame (API 26+) and a precise
+     * seek to the last target follows when scrubbing is disabled.
+     * @param callback Callback receives the total number of seeks this player dropped by coalescing.
+     */
+    setScrubbing(enabled: boolean, options?: { fastSeek?: boolean }, callback?: ((err: PlayerError | null, result?: { scrubbing: boolean, droppedSeeks: number }) => void)): this;
+
+    /**
+     * Get position, duration and playing state without queueing behind other operations. Android only.
+     */
+    getSnapshot(callback: ((err: PlayerError | null, snapshot?: { position: number, duration: number, playing: boolean }) => void)): this;
+
+    /**
+     * Emit `interval` events every `interval` milliseconds while this player is playing. Android only.
+     *
+     * @param interval Interval in milliseconds, must be greater than 0.
+     * @param callback Callback is called after the subscription has been registered.
+     */
+    subscribeProgress(interval: number, callback?: ((err: PlayerError | null) => void)): this;
+
+    /**
+     * Stop emitting `interval` events for this player. Android only.
+     *
+     * @param callback Callback is called after the operation has finished.
+     */
+    unsubscribeProgress(callback?: ((err: PlayerError | null) => void)): this;
+
+    /**
+     * Collect the events of all players into a single bridge event, flushed once per frame or once per `window`
+     * milliseconds. Events are still delivered to the individual players. Android only.
+     *
+     * @param options `enabled` (default: true) and `window` in milliseconds (default: 0, once per frame).
+     * @param callback Callback is called after the setting has been applied.
+     */
+    /**
+     * Bound the number of prepared native players, evicting idle ones in least recently used order. Evicted players
+     * are prepared again on their next `play()`. Android only.
+     */
+    static setPoolOptions(options: { maxSize?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Capture native stack traces in errors (expensive) or reset the error counters. Android only.
+     */
+    static setErrorOptions(options: { stackTraces?: boolean, resetStats?: boolean }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Get the number of native errors per error code. Android only.
+     */
+    static getErrorStats(callback: ((err: PlayerError | null, stats: { counts: { [code: string]: number }, suppressedLogs: number, stackTraces: boolean }) => void)): void;
+
+    /**
+     * Get lifecycle latency histograms and emitted event counts of the native modules. Android only.
+     */
+    static getMetrics(callback: ((err: PlayerError | null, metrics: AudioMetrics) => void)): void;
+
+    /**
+     * Configure metrics collection. Android only.
+     *
+     * @param options `interval` sends periodic metrics events every `interval` milliseconds, 0 stops them.
+     */
+    static setMetricsOptions(options: { enabled?: boolean, reset?: boolean, interval?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Listen to the periodic metrics events. Android only.
+     */
+    static addMetricsListener(listener: ((metrics: AudioMetrics) => void)): { remove(): void };
+
+    /**
+     * Get hit/miss/eviction counters of the native player pool. Android only.
+     */
+    static getPoolStats(callback: ((err: PlayerError | null, stats: PlayerPoolStats) => void)): void;
+
+    /**
+     * Play remote URLs through an LRU disk cache. Only affects players prepared afterwards. Android only.
+     */
+    static setCacheOptions(options: { enabled?: boolean, maxSize?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Get hit ratio and bytes saved by the media cache. Android only.
+     */
+    static getCacheStats(callback: ((err: PlayerError | null, stats: MediaCacheStats) => void)): void;
+
+    /**
+     * Delete all cached files. Android only.
+     */
+    static clearCache(callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Size limits of the in-memory clip cache, in bytes. Android only.
+     */
+    static setClipCacheOptions(options: { maxSize?: number, maxClipSize?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    static getClipCacheStats(callback: ((err: PlayerError | null, stats: { size: number, maxSize: number, maxClipSize: number, clips: number, hits: number, misses: number }) => void)): void;
+
+    /**
+     * Resolve a path ahead of time into the native resolution cache. Android only.
+     */
+    static resolve(path: string, callback?: ((err: PlayerError | null, result?: { uri: string, source: 'files' | 'external' | 'absolute' | 'raw' | 'uri' }) => void)): void;
+
+    /**
+     * Set how long file lookups stay in the resolution cache, in milliseconds. Clears the cache. Android only.
+     */
+    static setResolverOptions(options: { fileTtl?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Compute min, max and RMS levels of `buckets` equal slices of a file. Finished waveforms of local files are
+     * cached in sidecar files. Android only.
+     */
+    static getWaveform(path: string, buckets: number, callback?: ((err: PlayerError | null, waveform?: Waveform) => void),
+        onProgress?: ((progress: WaveformProgress) => void)): void;
+
+    /**
+     * Prepare the native players of many files with bounded concurrency. Android only.
+     *
+     * @param entries Players to prepare, entry options default to the shared `options`.
+     * @param options `concurrency` (default: 4) and an `onProgress` handler called as entries finish.
+     * @param callback Receives one result per entry, in the order of `entries`.
+     */
+    static prepareMany(entries: { playerId: string, path: string, options?: PlayerOptions }[],
+                       options?: { concurrency?: number, onProgress?: ((progress: PrepareProgress) => void) },
+                       callback?: ((err: PlayerError | null, results: PrepareResult[]) => void)): void;
+
+    static setEventBatching(options: { enabled?: boolean, window?: number },
+                            callback?: ((err: PlayerError | null) => void)): void;
+
     /**
      * Get/set playback volume. The scale is from 0.0 (silence) to 1.0 (full volume). Default is 1.0.
      */
@@ -160,11 +429,16 @@ declare class Player extends EventEmitter {
     /**
      * Get/set the playback speed for audio.
      * Default is `1.0`.
-     * 
-     * NOTE: On Android, this is only supported on Android 6.0+.
+     *
+     * NOTE: Before Android 6.0, the file is decoded into memory and time stretched while speed or pitch differ from `1.0`.
      */
     speed: number;
 
+    /**
+     * Get/set the playback pitch independently of the speed. Default is `1.0`. Android only.
+     */
+    pitch: number;
+
     /**
      * Get duration of prepared/playing media in milliseconds.
      * If no duration is available (for example live streams), `-1` is returned.
@@ -212,6 +486,146 @@ declare class Player extends EventEmitter {
     readonly isPrepared: boolean;
 }
 
+/**
+ * Represents a short, low latency sound effect played from a shared sound pool. Android only.
+ */
+declare class SoundEffect extends EventEmitter {
+    constructor(path: string, options?: object);
+
+    /**
+     * Configure the shared sound pool. Changing `maxStreams` drops all previously prepared sound effects.
+     */
+    static setup(options: { maxStreams?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    prepare(callback?: ((err: PlayerError | null) => void)): this;
+    play(callback?: ((err: PlayerError | null, streamId?: number) => void)): this;
+    stop(callback?: ((err: PlayerError | null) => void)): this;
+    destroy(callback?: ((err: PlayerError | null) => void)): void;
+
+    volume: number;
+    pan: number;
+    speed: number;
+    looping: boolean;
+
+    readonly state: MediaStates;
+    readonly canPlay: boolean;
+    readonly isPrepared: boolean;
+}
+
+interface MixerVoiceOptions {
+    volume?: number;
+
+    /**
+     * -1.0 (left) to 1.0 (right)
+     */
+    pan?: number;
+
+    /**
+     * Playback rate, 0.25 to 4.0
+     */
+    speed?: number;
+
+    looping?: boolean;
+}
+
+interface PcmCacheStats {
+    hits: number;
+    misses: number;
+    hitRatio: number;
+    evictions: number;
+    residentBytes: number;
+    /**
+     * Bytes of clips that are loaded and can't be evicted
+     */
+    pinnedBytes: number;
+    maxSize: number;
+    entries: number;
+    pinned: number;
+    offHeap: boolean;
+}
+
+/**
+ * Software mixer that plays many short clips at once on a single output track. Android only.
+ */
+declare class Mixer {
+    /**
+     * Configure the mixer. Changing `maxVoices` stops all playing voices.
+     */
+    static setup(options: { maxVoices?: number, volume?: number }, callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Decode a clip to PCM once and keep it under `sampleId`.
+     */
+    static load(sampleId: string, path: string, options?: object, callback?: ((err: PlayerError | null, info?: { duration: number, channels: number, sampleRate: number }) => void)): void;
+    static unload(sampleId: string, callback?: ((err: PlayerError | null) => void)): void;
+
+    static play(sampleId: string, options?: MixerVoiceOptions, callback?: ((err: PlayerError | null, voiceId?: number) => void)): void;
+    static setVoice(voiceId: number, options: MixerVoiceOptions, callback?: ((err: PlayerError | null) => void)): void;
+    static stopVoice(voiceId: number, callback?: ((err: PlayerError | null) => void)): void;
+    static stopAll(callback?: ((err: PlayerError | null) => void)): void;
+
+    static getStats(callback: ((err: PlayerError | null, stats?: { samples: number, maxVoices: number, activeVoices: number, rejectedVoices: number, sampleRate: number, blocks: number }) => void)): void;
+
+    /**
+     * Configure the shared cache of decoded clips.
+     *
+     * @param options `maxSize` is the byte budget (Default: 32 MB), `offHeap` keeps newly decoded clips in direct buffers.
+     */
+    static setCacheOptions(options: { maxSize?: number, offHeap?: boolean }, callback?: ((err: PlayerError | null) => void)): void;
+    static getCacheStats(callback: ((err: PlayerError | null, stats?: PcmCacheStats) => void)): void;
+
+    /**
+     * Drop all decoded clips that are not loaded anymore.
+     */
+    static clearCache(callback?: ((err: PlayerError | null) => void)): void;
+}
+
+interface PlayerQueueOptions {
+    /**
+     * Number of items prepared ahead of the current one, 1 to 4 (Default: 1)
+     */
+    preload?: number;
+
+    /**
+     * Start again from the first item after the last one (Default: false)
+     */
+    looping?: boolean;
+
+    startIndex?: number;
+
+    volume?: number;
+}
+
+interface PlayerQueueInfo {
+    index: number;
+    count: number;
+    position: number;
+    duration: number;
+    queuePosition: number;
+    queueDuration: number;
+    queueDurationKnown: boolean;
+    loops: number;
+    preloaded: number;
+    playing: boolean;
+}
+
+/**
+ * Plays a list of files back to back without gaps. Android only.
+ */
+declare class PlayerQueue extends EventEmitter {
+    constructor(queueId: string, paths: Array<string | { path: string }>, options?: PlayerQueueOptions);
+
+    prepare(callback?: ((err: PlayerError | null, info?: PlayerQueueInfo) => void)): this;
+    play(callback?: ((err: PlayerError | null, info?: PlayerQueueInfo) => void)): this;
+    pause(callback?: ((err: PlayerError | null, info?: PlayerQueueInfo) => void)): this;
+    skip(index: number, callback?: ((err: PlayerError | null, info?: PlayerQueueInfo) => void)): this;
+    set(options: { volume?: number, looping?: boolean, preload?: number }, callback?: ((err: PlayerError | null) => void)): this;
+    getInfo(callback: ((err: PlayerError | null, info?: PlayerQueueInfo) => void)): void;
+    destroy(callback?: ((err: PlayerError | null) => void)): void;
+
+    readonly info: PlayerQueueInfo | null;
+}
+
 interface RecorderOptions {
     /**
      * Set bitrate for the recorder, in bits per second (Default: 128000)
@@ -261,6 +675,32 @@ interface RecorderOptions {
      * e.g. 250 will fire 4 time in a second.
      */
     meteringInterval: number;
+
+    /**
+     * Recording engine, Android only. `'pcm'` records 16 bit PCM with AudioRecord, emits `data` events while
+     * recording and writes a WAV file to `path`.
+     */
+    engine?: 'pcm';
+
+    /**
+     * Milliseconds of audio per `data` event with the `'pcm'` engine. (Default: 100)
+     */
+    chunkInterval?: number;
+
+    /**
+     * Whether the `'pcm'` engine also writes the WAV file. (Default: true)
+     */
+    writeFile?: boolean;
+
+    /**
+     * Hand `'pcm'` chunks to native consumers through a shared memory ring instead of `data` events. (Default: false)
+     */
+    stream?: boolean;
+
+    /**
+     * Number of chunks the shared memory ring holds. (Default: 2000 / chunkInterval, at least 4)
+     */
+    streamSlots?: number;
 }
 
 /**
@@ -323,6 +763,11 @@ declare class Recorder extends EventEmitter {
      */
     destroy(callback?: ((err: RecorderError | null) => void)): void;
 
+    /**
+     * Statistics of the shared memory stream of a `'pcm'` recorder prepared with `stream: true`. Android only.
+     */
+    getStreamStats(callback: ((err: RecorderError | null, stats?: RecorderStreamStats) => void)): void;
+
     /**
      * Get the filesystem path of file being recorded to.
      * Available after `prepare()` call has invoked its callback successfully.
@@ -355,4 +800,4 @@ declare class Recorder extends EventEmitter {
     readonly isPrepared: boolean;
 }
 
-export { Player, Recorder, MediaStates };
+export { Player, Recorder, SoundEffect, PlayerQueue, Mixer, MediaStates };